@@ -0,0 +1,390 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Local activity log. {@link #log} only drops the entry into a bounded ring buffer; the
+ * "activity-log" thread appends whatever has queued up in one write. Files rotate per day and at a
+ * size limit ({@code activity-yyyyMMdd-NNN.csv}), and every {@code INDEX_INTERVAL}-th line's
+ * timestamp and byte offset goes to a sidecar {@code .idx} file. {@link #read} uses those offsets
+ * to read only the blocks that overlap the requested time window, newest first.
+ */
+public class ActivityLogger {
+    private static final Logger LOGGER = Logger.getLogger(ActivityLogger.class.getName());
+    private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final String FILE_PREFIX = "activity-";
+    private static final String FILE_SUFFIX = ".csv";
+    private static final String INDEX_SUFFIX = ".idx";
+    private static final String HEADER = "Timestamp,Action,Details";
+    private static final int INDEX_INTERVAL = 256;
+    private static final int MAX_BATCH = 1024;
+
+    private static final class Block {
+        private final String firstTimestamp;
+        private final long offset;
+
+        private Block(String firstTimestamp, long offset) {
+            this.firstTimestamp = firstTimestamp;
+            this.offset = offset;
+        }
+    }
+
+    private final Path directory;
+    private final long maxFileBytes;
+    private final ArrayBlockingQueue<String[]> buffer;
+    private final TreeMap<String, List<Block>> blocksByFile = new TreeMap<>();
+    private final Thread writerThread;
+    private final AtomicInteger dropped = new AtomicInteger();
+    private volatile boolean closed;
+    private String activeFile;
+    private String activeDay;
+    private BufferedWriter activeWriter;
+    private BufferedWriter activeIndex;
+    private long activeBytes;
+    private long activeLines;
+
+    public ActivityLogger(Path directory, int bufferCapacity, long maxFileBytes) {
+        this.directory = directory;
+        this.maxFileBytes = Math.max(4096, maxFileBytes);
+        this.buffer = new ArrayBlockingQueue<>(Math.max(16, bufferCapacity));
+        this.writerThread = new Thread(this::runWriter, "activity-log");
+        this.writerThread.setDaemon(true);
+    }
+
+    /**
+     * Loads the block indexes, importing {@code legacyFile} (the old single CSV) first if present,
+     * and starts the writer thread.
+     */
+    public synchronized void open(Path legacyFile) throws IOException {
+        Files.createDirectories(directory);
+        if (legacyFile != null && Files.exists(legacyFile)) {
+            // Named for day zero so it sorts before every dated file.
+            Path target = directory.resolve(FILE_PREFIX + "00000000-000" + FILE_SUFFIX);
+            Files.move(legacyFile, target, StandardCopyOption.REPLACE_EXISTING);
+            LOGGER.info("Moved " + legacyFile + " into " + directory);
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, FILE_PREFIX + "*" + FILE_SUFFIX)) {
+            for (Path file : files) {
+                blocksByFile.put(file.getFileName().toString(), loadBlocks(file));
+            }
+        }
+        writerThread.start();
+    }
+
+    /**
+     * Queues an entry; never blocks. When the buffer is full the oldest queued entry is dropped and
+     * counted, and the count is logged once the writer catches up.
+     */
+    public void log(String actionType, String details) {
+        if (closed) {
+            return;
+        }
+        String[] entry = {TIMESTAMP_FORMAT.format(LocalDateTime.now()), singleLine(actionType), singleLine(details)};
+        while (!buffer.offer(entry)) {
+            if (buffer.poll() != null) {
+                dropped.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Up to {@code limit} entries with {@code from <= timestamp < to}, newest first, after skipping
+     * the {@code skip} newest matches. Null bounds are open. Timestamps are {@code yyyy-MM-dd HH:mm:ss}.
+     */
+    public synchronized List<SupabaseClient.ActionLogRecord> read(String from, String to, int skip, int limit) throws IOException {
+        List<SupabaseClient.ActionLogRecord> page = new ArrayList<>();
+        int toSkip = Math.max(0, skip);
+        for (Map.Entry<String, List<Block>> file : blocksByFile.descendingMap().entrySet()) {
+            if (from != null && !mayEndAfter(file.getKey(), from)) {
+                break;
+            }
+            Path path = directory.resolve(file.getKey());
+            List<Block> blocks = file.getValue();
+            long end = Files.size(path);
+            for (int i = blocks.size() - 1; i >= 0 && page.size() < limit; i--) {
+                Block block = blocks.get(i);
+                long blockEnd = end;
+                end = block.offset;
+                if (to != null && block.firstTimestamp != null && block.firstTimestamp.compareTo(to) >= 0) {
+                    continue;
+                }
+                List<SupabaseClient.ActionLogRecord> matches = readBlock(path, block.offset, blockEnd, from, to);
+                for (int j = matches.size() - 1; j >= 0 && page.size() < limit; j--) {
+                    if (toSkip > 0) {
+                        toSkip--;
+                    } else {
+                        page.add(matches.get(j));
+                    }
+                }
+                if (from != null && block.firstTimestamp != null && block.firstTimestamp.compareTo(from) < 0) {
+                    return page;
+                }
+            }
+            if (page.size() >= limit) {
+                break;
+            }
+        }
+        return page;
+    }
+
+    /**
+     * Writes everything still buffered and stops the writer thread.
+     */
+    public void close() {
+        closed = true;
+        writerThread.interrupt();
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void runWriter() {
+        List<String[]> batch = new ArrayList<>(MAX_BATCH);
+        while (true) {
+            try {
+                String[] first = buffer.poll(1, TimeUnit.SECONDS);
+                if (first != null) {
+                    batch.add(first);
+                }
+            } catch (InterruptedException e) {
+                if (!closed) {
+                    continue;
+                }
+            }
+            buffer.drainTo(batch, MAX_BATCH - batch.size());
+            if (!batch.isEmpty()) {
+                try {
+                    writeBatch(batch);
+                } catch (IOException e) {
+                    LOGGER.log(Level.WARNING, "Failed writing activity log", e);
+                }
+                batch.clear();
+            }
+            if (closed && buffer.isEmpty()) {
+                closeActiveFile();
+                return;
+            }
+        }
+    }
+
+    private synchronized void writeBatch(List<String[]> batch) throws IOException {
+        int lost = dropped.getAndSet(0);
+        if (lost > 0) {
+            writeEntry(new String[]{batch.get(0)[0], "activity_log_overflow", lost + " entries dropped while the log was busy"});
+        }
+        for (String[] entry : batch) {
+            writeEntry(entry);
+        }
+        activeWriter.flush();
+        activeIndex.flush();
+    }
+
+    private void writeEntry(String[] entry) throws IOException {
+        String day = entry[0].substring(0, 10).replace("-", "");
+        if (activeWriter == null || !day.equals(activeDay) || activeBytes >= maxFileBytes) {
+            rotate(day);
+        }
+        if (activeLines % INDEX_INTERVAL == 0) {
+            activeIndex.write(entry[0] + "\t" + activeBytes);
+            activeIndex.newLine();
+            blocksByFile.get(activeFile).add(new Block(entry[0], activeBytes));
+        }
+        String line = csvEscape(entry[0]) + "," + csvEscape(entry[1]) + "," + csvEscape(entry[2]) + "\n";
+        activeWriter.write(line);
+        activeBytes += line.getBytes(StandardCharsets.UTF_8).length;
+        activeLines++;
+    }
+
+    private void rotate(String day) throws IOException {
+        closeActiveFile();
+        int sequence = 0;
+        String name;
+        do {
+            name = String.format("%s%s-%03d%s", FILE_PREFIX, day, sequence++, FILE_SUFFIX);
+        } while (Files.exists(directory.resolve(name)));
+        Path path = directory.resolve(name);
+        activeWriter = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(path.toFile()), StandardCharsets.UTF_8));
+        activeIndex = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(indexPath(path).toFile()), StandardCharsets.UTF_8));
+        String header = HEADER + "\n";
+        activeWriter.write(header);
+        activeFile = name;
+        activeDay = day;
+        activeBytes = header.getBytes(StandardCharsets.UTF_8).length;
+        activeLines = 0;
+        blocksByFile.put(name, new ArrayList<>());
+    }
+
+    private synchronized void closeActiveFile() {
+        try {
+            if (activeWriter != null) {
+                activeWriter.close();
+            }
+            if (activeIndex != null) {
+                activeIndex.close();
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed closing activity log file", e);
+        }
+        activeWriter = null;
+        activeIndex = null;
+    }
+
+    /**
+     * Reads the sidecar index, or rebuilds it by scanning the file when it is missing or empty. An
+     * index that lost its last lines in a crash is still valid; its last block just runs longer.
+     */
+    private List<Block> loadBlocks(Path file) throws IOException {
+        List<Block> blocks = new ArrayList<>();
+        Path index = indexPath(file);
+        long fileSize = Files.size(file);
+        if (Files.exists(index)) {
+            for (String line : Files.readAllLines(index, StandardCharsets.UTF_8)) {
+                int tab = line.indexOf('\t');
+                try {
+                    long offset = Long.parseLong(line.substring(tab + 1));
+                    if (tab > 0 && offset < fileSize) {
+                        blocks.add(new Block(line.substring(0, tab), offset));
+                    }
+                } catch (NumberFormatException | IndexOutOfBoundsException ignored) {
+                }
+            }
+            if (!blocks.isEmpty()) {
+                return blocks;
+            }
+        }
+        return rebuildBlocks(file, index);
+    }
+
+    private List<Block> rebuildBlocks(Path file, Path index) throws IOException {
+        List<Block> blocks = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(Files.newInputStream(file), StandardCharsets.UTF_8));
+             BufferedWriter out = Files.newBufferedWriter(index, StandardCharsets.UTF_8)) {
+            long offset = 0;
+            long lines = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                long lineStart = offset;
+                offset += line.getBytes(StandardCharsets.UTF_8).length + 1;
+                if (line.equals(HEADER) || line.isBlank()) {
+                    continue;
+                }
+                if (lines++ % INDEX_INTERVAL == 0) {
+                    String timestamp = parseCsvLine(line).get(0);
+                    blocks.add(new Block(timestamp, lineStart));
+                    out.write(timestamp + "\t" + lineStart);
+                    out.newLine();
+                }
+            }
+        }
+        if (blocks.isEmpty()) {
+            blocks.add(new Block(null, 0));
+        }
+        return blocks;
+    }
+
+    private static List<SupabaseClient.ActionLogRecord> readBlock(Path file, long start, long end, String from, String to) throws IOException {
+        List<SupabaseClient.ActionLogRecord> records = new ArrayList<>();
+        if (end <= start) {
+            return records;
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "r")) {
+            raf.seek(start);
+            BufferedReader reader = new BufferedReader(new InputStreamReader(Channels.newInputStream(raf.getChannel()), StandardCharsets.UTF_8));
+            long position = start;
+            String line;
+            while (position < end && (line = reader.readLine()) != null) {
+                position += line.getBytes(StandardCharsets.UTF_8).length + 1;
+                if (line.equals(HEADER) || line.isBlank()) {
+                    continue;
+                }
+                List<String> parts = parseCsvLine(line);
+                if (parts.size() < 3) {
+                    continue;
+                }
+                String timestamp = parts.get(0);
+                if ((from == null || timestamp.compareTo(from) >= 0) && (to == null || timestamp.compareTo(to) < 0)) {
+                    records.add(new SupabaseClient.ActionLogRecord(parts.get(1), parts.get(2), timestamp));
+                }
+            }
+        }
+        return records;
+    }
+
+    /**
+     * False only when the file's name shows it was written entirely before {@code from}'s day.
+     */
+    private static boolean mayEndAfter(String fileName, String from) {
+        String day = fileName.substring(FILE_PREFIX.length(), FILE_PREFIX.length() + 8);
+        if (day.equals("00000000")) {
+            return true;
+        }
+        return day.compareTo(from.substring(0, 10).replace("-", "")) >= 0;
+    }
+
+    private static Path indexPath(Path file) {
+        String name = file.getFileName().toString();
+        return file.resolveSibling(name.substring(0, name.length() - FILE_SUFFIX.length()) + INDEX_SUFFIX);
+    }
+
+    private static String singleLine(String value) {
+        return value == null ? "" : value.replace("\r\n", " ").replace('\n', ' ').replace('\r', ' ');
+    }
+
+    private static String csvEscape(String value) {
+        if (value.contains(",") || value.contains("\"")) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
+
+    private static List<String> parseCsvLine(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        values.add(current.toString());
+        return values;
+    }
+}
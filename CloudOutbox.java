@@ -0,0 +1,448 @@
+import java.io.BufferedReader;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of cloud writes that have been applied locally but not yet confirmed by
+ * Supabase. When {@link #enqueue} returns, the record is in the OS cache and survives a crash of
+ * the app; it reaches the disk once a background thread forces the log, and one force covers
+ * every operation enqueued while the previous one ran. Operations are replayed at least once, in
+ * enqueue order, on a background thread; an operation that keeps being rejected only holds back
+ * later operations that touch one of the same entities.
+ */
+public class CloudOutbox {
+    public enum Type {
+        UPSERT_ITEM,
+        UPDATE_ITEM,
+        DELETE_ITEM,
+        CHECKOUT_SALE
+    }
+
+    public static final class Operation {
+        private final long sequence;
+        private final String id;
+        private final Type type;
+        private final List<String> entityKeys;
+        private final Map<String, String> fields;
+
+        private Operation(long sequence, String id, Type type, List<String> entityKeys, Map<String, String> fields) {
+            this.sequence = sequence;
+            this.id = id;
+            this.type = type;
+            this.entityKeys = Collections.unmodifiableList(entityKeys);
+            this.fields = Collections.unmodifiableMap(fields);
+        }
+
+        public long getSequence() {
+            return sequence;
+        }
+
+        /**
+         * Stable idempotency key, reused for every replay of this operation.
+         */
+        public String getId() {
+            return id;
+        }
+
+        public Type getType() {
+            return type;
+        }
+
+        public List<String> getEntityKeys() {
+            return entityKeys;
+        }
+
+        public String getString(String name) {
+            String value = fields.get(name);
+            return value == null ? "" : value;
+        }
+
+        public int getInt(String name) {
+            try {
+                return Integer.parseInt(getString(name));
+            } catch (NumberFormatException e) {
+                return 0;
+            }
+        }
+
+        public double getDouble(String name) {
+            try {
+                return Double.parseDouble(getString(name));
+            } catch (NumberFormatException e) {
+                return 0.0;
+            }
+        }
+
+        public boolean getBoolean(String name) {
+            return Boolean.parseBoolean(getString(name));
+        }
+    }
+
+    /**
+     * Thrown by a handler when the server refused the operation itself rather than being unreachable.
+     */
+    public static class RejectedOperationException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        public RejectedOperationException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+
+    @FunctionalInterface
+    public interface Handler {
+        String apply(Operation operation) throws IOException, InterruptedException;
+    }
+
+    public interface Listener {
+        void onApplied(Operation operation, String result);
+
+        void onDiscarded(Operation operation, IOException error);
+
+        void onDrainInterrupted(IOException error, int pendingCount);
+    }
+
+    private static final Logger LOGGER = Logger.getLogger(CloudOutbox.class.getName());
+    private static final String RECORD_ENQUEUE = "E";
+    private static final String RECORD_ACK = "A";
+    private static final long MIN_RETRY_DELAY_MS = 5_000;
+    private static final long MAX_RETRY_DELAY_MS = 300_000;
+    private static final int MAX_REJECTIONS = 3;
+    private static final int COMPACT_AFTER_ACKS = 256;
+
+    private final Path path;
+    private final Handler handler;
+    private final Listener listener;
+    private final ScheduledExecutorService drainer;
+    private final ExecutorService syncer;
+    private final AtomicBoolean drainQueued = new AtomicBoolean();
+    private final AtomicBoolean syncQueued = new AtomicBoolean();
+    private final Map<String, Operation> pending = new LinkedHashMap<>();
+    private final Map<String, Integer> rejections = new HashMap<>();
+    private FileOutputStream log;
+    private long nextSequence = 1;
+    private int acksSinceCompaction;
+    private long retryDelayMs = MIN_RETRY_DELAY_MS;
+    private ScheduledFuture<?> retry;
+
+    public CloudOutbox(Path path, Handler handler, Listener listener) {
+        this.path = path;
+        this.handler = handler;
+        this.listener = listener;
+        this.drainer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cloud-outbox");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.syncer = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cloud-outbox-sync");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Replays the log into memory, drops acknowledged and torn records, and rewrites it compactly.
+     */
+    public synchronized void load() throws IOException {
+        pending.clear();
+        if (Files.exists(path)) {
+            try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    readRecord(line);
+                }
+            }
+        }
+        compact();
+    }
+
+    /**
+     * Appends the operation without waiting for the disk; it is forced in the background, so this
+     * is safe to call from the EDT.
+     */
+    public synchronized Operation enqueue(Type type, List<String> entityKeys, Map<String, String> fields) throws IOException {
+        Operation operation = new Operation(
+                nextSequence++,
+                UUID.randomUUID().toString(),
+                type,
+                new ArrayList<>(entityKeys),
+                new LinkedHashMap<>(fields)
+        );
+        append(enqueueRecord(operation));
+        pending.put(operation.getId(), operation);
+        requestSync();
+        requestDrain();
+        return operation;
+    }
+
+    public synchronized int pendingCount() {
+        return pending.size();
+    }
+
+    public synchronized boolean isPending(String operationId) {
+        return pending.containsKey(operationId);
+    }
+
+    /**
+     * Starts a drain pass now, e.g. after connectivity was restored; coalesces with one already queued.
+     */
+    public void requestDrain() {
+        if (drainer.isShutdown() || !drainQueued.compareAndSet(false, true)) {
+            return;
+        }
+        synchronized (this) {
+            if (retry != null) {
+                retry.cancel(false);
+                retry = null;
+            }
+        }
+        drainer.execute(this::drain);
+    }
+
+    public void shutdown() {
+        drainer.shutdownNow();
+        syncer.shutdown();
+        synchronized (this) {
+            if (log != null) {
+                try {
+                    log.getChannel().force(false);
+                } catch (IOException e) {
+                    LOGGER.log(Level.WARNING, "Failed to sync cloud outbox log", e);
+                }
+            }
+            closeLog();
+        }
+    }
+
+    private void requestSync() {
+        if (syncer.isShutdown() || !syncQueued.compareAndSet(false, true)) {
+            return;
+        }
+        syncer.execute(this::syncLog);
+    }
+
+    /**
+     * Forces everything appended so far. Runs outside the lock so enqueue never waits on the disk.
+     */
+    private void syncLog() {
+        syncQueued.set(false);
+        FileChannel channel;
+        synchronized (this) {
+            if (log == null) {
+                return;
+            }
+            channel = log.getChannel();
+        }
+        try {
+            channel.force(false);
+        } catch (ClosedChannelException e) {
+            // compact() replaced the log meanwhile, and forced the rewrite itself.
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to sync cloud outbox log", e);
+        }
+    }
+
+    private void drain() {
+        drainQueued.set(false);
+        List<Operation> batch;
+        synchronized (this) {
+            batch = new ArrayList<>(pending.values());
+        }
+
+        Set<String> blockedEntities = new HashSet<>();
+        for (Operation operation : batch) {
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            if (!Collections.disjoint(blockedEntities, operation.getEntityKeys())) {
+                continue;
+            }
+            try {
+                String result = handler.apply(operation);
+                acknowledge(operation);
+                listener.onApplied(operation, result);
+            } catch (RejectedOperationException e) {
+                if (recordRejection(operation)) {
+                    LOGGER.log(Level.WARNING, "Discarding cloud operation " + operation.getType() + " " + operation.getId(), e);
+                    acknowledge(operation);
+                    listener.onDiscarded(operation, e);
+                } else {
+                    blockedEntities.addAll(operation.getEntityKeys());
+                }
+            } catch (IOException e) {
+                int remaining = pendingCount();
+                scheduleRetry(retryDelayMs);
+                retryDelayMs = Math.min(retryDelayMs * 2, MAX_RETRY_DELAY_MS);
+                listener.onDrainInterrupted(e, remaining);
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Cloud outbox handler failed for " + operation.getId(), e);
+                blockedEntities.addAll(operation.getEntityKeys());
+            }
+        }
+
+        retryDelayMs = MIN_RETRY_DELAY_MS;
+        if (!blockedEntities.isEmpty()) {
+            scheduleRetry(MAX_RETRY_DELAY_MS);
+        }
+    }
+
+    private synchronized boolean recordRejection(Operation operation) {
+        int count = rejections.merge(operation.getId(), 1, Integer::sum);
+        return count >= MAX_REJECTIONS;
+    }
+
+    private synchronized void scheduleRetry(long delayMs) {
+        if (drainer.isShutdown()) {
+            return;
+        }
+        if (retry != null) {
+            retry.cancel(false);
+        }
+        retry = drainer.schedule(this::requestDrain, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized void acknowledge(Operation operation) {
+        if (pending.remove(operation.getId()) == null) {
+            return;
+        }
+        rejections.remove(operation.getId());
+        try {
+            // Not forced: losing an ack only means one more idempotent replay.
+            append(checksummed(RECORD_ACK + '\t' + operation.getId()));
+            acksSinceCompaction++;
+            if (pending.isEmpty() || acksSinceCompaction >= COMPACT_AFTER_ACKS) {
+                compact();
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to record cloud outbox acknowledgement", e);
+        }
+    }
+
+    private void compact() throws IOException {
+        closeLog();
+        Path tempPath = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tempPath.toFile())) {
+            for (Operation operation : pending.values()) {
+                out.write(enqueueRecord(operation).getBytes(StandardCharsets.UTF_8));
+            }
+            out.getChannel().force(true);
+        }
+        Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        acksSinceCompaction = 0;
+    }
+
+    private void append(String record) throws IOException {
+        if (log == null) {
+            log = new FileOutputStream(path.toFile(), true);
+        }
+        log.write(record.getBytes(StandardCharsets.UTF_8));
+        log.flush();
+    }
+
+    private void closeLog() {
+        if (log == null) {
+            return;
+        }
+        try {
+            log.close();
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Failed to close cloud outbox log", e);
+        }
+        log = null;
+    }
+
+    private void readRecord(String line) {
+        int checksumStart = line.lastIndexOf('\t');
+        if (checksumStart <= 0 || !line.substring(checksumStart + 1).equals(checksum(line.substring(0, checksumStart)))) {
+            // Torn write. Either the app died mid-append and that enqueue never returned, or the OS
+            // went down before the background force and the operation is lost from the outbox.
+            return;
+        }
+        String[] parts = line.substring(0, checksumStart).split("\t", -1);
+        try {
+            if (RECORD_ACK.equals(parts[0]) && parts.length == 2) {
+                pending.remove(parts[1]);
+            } else if (RECORD_ENQUEUE.equals(parts[0]) && parts.length >= 5) {
+                long sequence = Long.parseLong(parts[1]);
+                List<String> entityKeys = new ArrayList<>();
+                for (String key : decode(parts[4]).split("\n")) {
+                    if (!key.isEmpty()) {
+                        entityKeys.add(key);
+                    }
+                }
+                Map<String, String> fields = new LinkedHashMap<>();
+                for (int i = 5; i < parts.length; i++) {
+                    int separator = parts[i].indexOf('=');
+                    if (separator > 0) {
+                        fields.put(decode(parts[i].substring(0, separator)), decode(parts[i].substring(separator + 1)));
+                    }
+                }
+                pending.put(parts[2], new Operation(sequence, parts[2], Type.valueOf(parts[3]), entityKeys, fields));
+                nextSequence = Math.max(nextSequence, sequence + 1);
+            }
+        } catch (IllegalArgumentException e) {
+            LOGGER.log(Level.WARNING, "Skipping unreadable cloud outbox record", e);
+        }
+    }
+
+    private static String enqueueRecord(Operation operation) {
+        StringBuilder record = new StringBuilder(128)
+                .append(RECORD_ENQUEUE).append('\t')
+                .append(operation.getSequence()).append('\t')
+                .append(operation.getId()).append('\t')
+                .append(operation.getType().name()).append('\t')
+                .append(encode(String.join("\n", operation.getEntityKeys())));
+        for (Map.Entry<String, String> field : operation.fields.entrySet()) {
+            record.append('\t').append(encode(field.getKey())).append('=').append(encode(field.getValue()));
+        }
+        return checksummed(record.toString());
+    }
+
+    private static String checksummed(String record) {
+        return record + '\t' + checksum(record) + '\n';
+    }
+
+    private static String checksum(String record) {
+        CRC32 crc = new CRC32();
+        crc.update(record.getBytes(StandardCharsets.UTF_8));
+        return Long.toHexString(crc.getValue());
+    }
+
+    private static String encode(String value) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString((value == null ? "" : value).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decode(String value) {
+        return new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+    }
+}
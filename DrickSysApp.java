@@ -2,15 +2,27 @@ import java.awt.*;
 import java.awt.event.*;
 import java.awt.print.PrinterException;
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.text.SimpleDateFormat;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Scanner;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.swing.*;
@@ -23,7 +35,9 @@ public class DrickSysApp extends JFrame {
     private static final long serialVersionUID = 1L;
     private static final Logger LOGGER = Logger.getLogger(DrickSysApp.class.getName());
 
-    private DefaultTableModel tableModel;
+    private InventoryTableModel tableModel;
+    private final transient InventoryStore inventoryStore = new InventoryStore(this::normalizeInventoryKey);
+    private final transient ReservationLedger ingredientReservations = new ReservationLedger(this::normalizeInventoryKey);
     private JTable inventoryTable;
     private JTextField itemNameField;
     private JComboBox<String> itemCategoryField;
@@ -31,7 +45,7 @@ public class DrickSysApp extends JFrame {
     private JTextField itemPriceField;
     private JTextField searchField;
     private JLabel totalQuantityLabel;
-    private transient TableRowSorter<DefaultTableModel> sorter;
+    private transient TableRowSorter<InventoryTableModel> sorter;
     private JLabel statusBarLabel;
     private JLabel cloudStatusLabel;
     private JButton addButtonReference;
@@ -59,8 +73,41 @@ public class DrickSysApp extends JFrame {
     private static final String INVENTORY_TEXT_BACKUP_FILE = "inventory_backup.txt";
     private static final String SALES_HISTORY_FILE = "sales_history.csv";
     private static final String SALES_TEXT_BACKUP_FILE = "sales_backup.txt";
+    private static final String TEXT_BACKUP_DIR = "backups";
+    private static final String SALES_JOURNAL_DIR = "sales_journal";
+    private static final long SALES_JOURNAL_SEGMENT_BYTES = 1L << 20;
+    private static final int SALES_JOURNAL_COMPACT_SEGMENTS = 8;
+    private static final String INVENTORY_JOURNAL_DIR = "inventory_journal";
+    private static final long INVENTORY_JOURNAL_SEGMENT_BYTES = 256L << 10;
+    private static final int INVENTORY_JOURNAL_COMPACT_SEGMENTS = 4;
+    private static final long LOCAL_STORE_GROUP_COMMIT_MS = 25;
     private static final String ACTIVITY_LOG_FILE = "activity_logs.csv";
+    private static final String ACTIVITY_LOG_DIR = "activity_logs";
+    private static final int ACTIVITY_LOG_BUFFER = 8192;
+    private static final long ACTIVITY_LOG_FILE_BYTES = 8L * 1024 * 1024;
+    private static final int ACTIVITY_LOG_PAGE_SIZE = 200;
     private static final String RECEIPTS_DIR = "receipts";
+    private static final long RECEIPT_SEGMENT_BYTES = 4L * 1024 * 1024;
+    private static final String CLOUD_OUTBOX_FILE = "cloud_outbox.log";
+    private static final String SALES_SYNC_STATE_FILE = "sales_sync_state.properties";
+    // Re-read this many ids below the mark: ids are taken at insert, so a checkout that commits late can land under it.
+    private static final long SALES_SYNC_OVERLAP = 100;
+    private static final String SYNC_PENDING = "Pending Cloud Sync";
+    private static final String SYNC_REJECTED = "Cloud Rejected";
+    private static final String LANE_INVENTORY = "inventory";
+    private static final String LANE_SALES = "sales";
+    private static final String LANE_RECEIPTS = "receipts";
+    private static final String LANE_ACTIVITY_LOG = "activity-log";
+    private static final String LANE_SALES_JOURNAL = "sales";
+    private static final String LANE_INVENTORY_JOURNAL = "inventory";
+    private static final String DATASET_INVENTORY = "inventory";
+    private static final String DATASET_PRODUCTS = "products";
+    private static final String DATASET_RECIPES = "recipes";
+    private static final String DATASET_SALES = "sales";
+    private static final String BACKUP_INVENTORY = "inventory";
+    private static final String BACKUP_SALES = "sales";
+    private static final int BACKGROUND_QUEUE_LIMIT = 64;
+    private static final int RECENT_SALES_LIMIT = 8;
     private static final String DEFAULT_ITEM_NAME_PLACEHOLDER = "e.g., Cafe Latte";
     private static final String DEFAULT_QUANTITY_PLACEHOLDER = "e.g., 25";
     private static final String DEFAULT_PRICE_PLACEHOLDER = "e.g., 125.50";
@@ -73,10 +120,6 @@ public class DrickSysApp extends JFrame {
     private static final String ACTIVITY_LOGS_TEXT = "Activity Logs";
     private static final String INVENTORY_HUB_TEXT = "Inventory";
     private static final String PRODUCTS_TEXT = "Products";
-    private static final String SUPPLIER_TEXT = "Suppliers";
-    private static final String EXPIRATION_TEXT = "Expirations";
-    private static final String INGREDIENTS_TEXT = "Ingredients";
-    private static final String STOCK_OUT_TEXT = "Stock Out";
 
     private static final Color PRIMARY_COLOR = new Color(92, 148, 86);
     private static final Color SECONDARY_COLOR = new Color(220, 240, 210);
@@ -89,14 +132,45 @@ public class DrickSysApp extends JFrame {
     private static final Font HEADER_FONT = new Font("Segoe UI", Font.BOLD, 14);
 
     private final int LOW_STOCK_THRESHOLD = 10;
-
-    private final transient ExecutorService executorService = Executors.newSingleThreadExecutor();
-    private final transient List<SaleSummary> recentSales = new ArrayList<>();
-    private final transient List<SaleSummary> salesHistory = new ArrayList<>();
-    private final transient List<ProductDefinition> productCatalog = new ArrayList<>();
+    private static final long TYPE_AHEAD_RESET_MS = 1000;
+
+    private final transient KeyedSerialExecutor backgroundExecutor = new KeyedSerialExecutor("drick-bg", BACKGROUND_QUEUE_LIMIT);
+    private final transient CloudOutbox cloudOutbox;
+    private final transient SalesHistoryStore<SaleSummary> salesHistory = new SalesHistoryStore<>(
+            sale -> sale.saleId,
+            sale -> sale.cloudSaleId,
+            sale -> sale.timestamp
+    );
+    private final transient RecordJournal salesJournal = new RecordJournal(
+            Path.of(SALES_JOURNAL_DIR),
+            SALES_JOURNAL_SEGMENT_BYTES,
+            SALES_JOURNAL_COMPACT_SEGMENTS
+    );
+    private final transient LocalDataStore localStore = new LocalDataStore(Path.of("."), LOCAL_STORE_GROUP_COMMIT_MS);
+    private final transient PersistenceScheduler persistenceScheduler = new PersistenceScheduler(
+            localStore,
+            SupabaseConfig.getPersistWindowMs(),
+            (datasets, error) -> SwingUtilities.invokeLater(() -> updateStatusBar("Error saving local data (" + String.join(", ", datasets) + ").", Color.RED))
+    );
+    private final transient ActivityLogger activityLogger = new ActivityLogger(Path.of(ACTIVITY_LOG_DIR), ACTIVITY_LOG_BUFFER, ACTIVITY_LOG_FILE_BYTES);
+    private final transient ReceiptArchive receiptArchive = new ReceiptArchive(Path.of(RECEIPTS_DIR), RECEIPT_SEGMENT_BYTES);
+    private final transient TextBackupScheduler textBackupScheduler = new TextBackupScheduler(
+            Path.of(TEXT_BACKUP_DIR),
+            TimeUnit.MINUTES.toMillis(SupabaseConfig.getTextBackupIntervalMinutes()),
+            SupabaseConfig.getTextBackupRetention()
+    );
+    // Unbounded per lane: a dropped journal append or receipt would be a lost sale, stock change or receipt.
+    private final transient KeyedSerialExecutor journalExecutor = new KeyedSerialExecutor("drick-journal", Integer.MAX_VALUE);
+    private final transient RecordJournal inventoryJournal = new RecordJournal(
+            Path.of(INVENTORY_JOURNAL_DIR),
+            INVENTORY_JOURNAL_SEGMENT_BYTES,
+            INVENTORY_JOURNAL_COMPACT_SEGMENTS
+    );
+    private final transient ProductIndex<ProductDefinition> productCatalog = new ProductIndex<>(product -> product.productName);
     private final transient Map<String, List<RecipeLine>> productRecipes = new LinkedHashMap<>();
     private boolean cloudConnected;
     private boolean cloudDisconnectDialogShown;
+    private final AtomicBoolean inventoryRefreshDeferred = new AtomicBoolean();
     private int sessionSalesCount;
     private int sessionUnitsSold;
     private double sessionRevenue;
@@ -119,6 +193,22 @@ public class DrickSysApp extends JFrame {
         }
     }
 
+    private interface TextBody {
+        void write(BufferedWriter writer) throws IOException;
+    }
+
+    private static final class CloudSalesBatch {
+        private final SalesSyncWatermark watermark;
+        private final List<SupabaseClient.SaleHistoryLineRecord> lines;
+        private final long previousMark;
+
+        private CloudSalesBatch(SalesSyncWatermark watermark, List<SupabaseClient.SaleHistoryLineRecord> lines, long previousMark) {
+            this.watermark = watermark;
+            this.lines = lines;
+            this.previousMark = previousMark;
+        }
+    }
+
     private static final class SaleSummary {
         private final String saleId;
         private final String timestamp;
@@ -139,6 +229,41 @@ public class DrickSysApp extends JFrame {
             this.syncStatus = syncStatus;
             this.cloudSaleId = cloudSaleId;
         }
+
+        private SaleSummary withSync(String newSyncStatus, String newCloudSaleId) {
+            String newDetails = details.replace(
+                    "\nSync: " + syncStatus + "\n",
+                    "\nSync: " + newSyncStatus + (newCloudSaleId.isBlank() ? "" : "\nCloud Sale ID: " + newCloudSaleId) + "\n"
+            );
+            return new SaleSummary(saleId, timestamp, items, units, total, newDetails, newSyncStatus, newCloudSaleId);
+        }
+
+        private List<String> toFields() {
+            return List.of(saleId, timestamp, items, String.valueOf(units), String.valueOf(total), details, syncStatus, cloudSaleId);
+        }
+
+        /**
+         * Reads the eight sales-history columns, as stored in the journal and the CSV export; null if malformed.
+         */
+        private static SaleSummary fromFields(List<String> fields) {
+            if (fields.size() < 8) {
+                return null;
+            }
+            try {
+                return new SaleSummary(
+                        fields.get(0),
+                        fields.get(1),
+                        fields.get(2),
+                        Integer.parseInt(fields.get(3)),
+                        Double.parseDouble(fields.get(4)),
+                        fields.get(5),
+                        fields.get(6),
+                        fields.get(7)
+                );
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
     }
 
 
@@ -152,6 +277,7 @@ public class DrickSysApp extends JFrame {
         this.loginFrame = loginFrame;
         this.supabaseClient = supabaseClient;
         this.session = session;
+        this.cloudOutbox = new CloudOutbox(Path.of(CLOUD_OUTBOX_FILE), this::applyOutboxOperation, new CloudOutboxListener());
 
         setTitle("Dricko's");
         ImageIcon appIcon = loadResourceIcon("/resources/myicon.png");
@@ -172,10 +298,27 @@ public class DrickSysApp extends JFrame {
             @Override
             public void windowClosing(WindowEvent e) {
                 persistAllData();
+                shutdownTextBackups();
+                persistenceScheduler.shutdown();
+                localStore.shutdown();
+                cloudOutbox.shutdown();
+                activityLogger.close();
                 dispose();
             }
         });
 
+        try {
+            localStore.recover();
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "Failed recovering local data commit", e);
+        }
+        registerPersistedDatasets();
+        try {
+            activityLogger.open(Path.of(ACTIVITY_LOG_FILE));
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "Failed opening activity log", e);
+        }
+
         initializeTable();
 
         initializePosModels();
@@ -190,6 +333,12 @@ public class DrickSysApp extends JFrame {
         loadProducts();
         loadRecipes();
         loadSalesHistoryFromLocalFile();
+        openReceiptArchive();
+        try {
+            cloudOutbox.load();
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to load cloud outbox", e);
+        }
 
         JPanel mainPanel = new JPanel(new BorderLayout(10, 10));
         mainPanel.setBackground(SECONDARY_COLOR);
@@ -222,27 +371,13 @@ public class DrickSysApp extends JFrame {
             int targetHeight = Math.min(920, Math.max(760, screenSize.height - 140));
             setSize(targetWidth, targetHeight);
             setLocationRelativeTo(null);
+            textBackupScheduler.start();
             startInitialCloudSync();
         });
     }
 
     private void initializeTable() {
-        String[] columnNames = {"Item Name", "Category", "Quantity", "Date Added", "Date Updated"};
-        tableModel = new DefaultTableModel(columnNames, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-
-            @Override
-            public Class<?> getColumnClass(int column) {
-                return switch (column) {
-                    case 2 -> Integer.class;
-                    case 3, 4 -> String.class;
-                    default -> String.class;
-                };
-            }
-        };
+        tableModel = new InventoryTableModel(inventoryStore, LOW_STOCK_THRESHOLD);
 
         inventoryTable = new JTable(tableModel);
         sorter = new TableRowSorter<>(tableModel);
@@ -284,7 +419,7 @@ public class DrickSysApp extends JFrame {
             }
         };
 
-        recentSalesTableModel = new DefaultTableModel(new String[]{"Sale ID", "Time", "Items", "Units", "Total"}, 0) {
+        recentSalesTableModel = new DefaultTableModel(new String[]{"Sale ID", "Time", "Items", "Units", "Total", "Sync"}, 0) {
             @Override
             public boolean isCellEditable(int row, int column) {
                 return false;
@@ -379,6 +514,7 @@ public class DrickSysApp extends JFrame {
 
         posItemField = new JComboBox<>();
         posItemField.setFont(MAIN_FONT);
+        posItemField.setKeySelectionManager(new ProductTypeAhead());
         posQuantitySpinner = new JSpinner(new SpinnerNumberModel(1, 1, 9999, 1));
         posQuantitySpinner.setFont(MAIN_FONT);
         JButton addToCartButton = createDialogActionButton("Add To Cart");
@@ -454,6 +590,7 @@ public class DrickSysApp extends JFrame {
         recentSalesTable = createWorkspaceTable(recentSalesTableModel);
         recentSalesTable.setRowHeight(24);
         recentSalesTable.setToolTipText("Click a sale to view its details. Press Enter to open.");
+        recentSalesTable.getColumnModel().getColumn(5).setCellRenderer(new SyncStatusRenderer());
         recentSalesTable.getInputMap(JComponent.WHEN_ANCESTOR_OF_FOCUSED_COMPONENT)
                 .put(KeyStroke.getKeyStroke(KeyEvent.VK_ENTER, 0), "openSaleDetails");
         recentSalesTable.getActionMap().put("openSaleDetails", new AbstractAction() {
@@ -508,18 +645,7 @@ public class DrickSysApp extends JFrame {
             Component cellComponent = super.getTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
 
             if (column == 2) {
-                int quantity = 0;
-                if (value instanceof Number numberValue) {
-                    quantity = numberValue.intValue();
-                } else if (value != null) {
-                    try {
-                        quantity = Integer.parseInt(String.valueOf(value));
-                    } catch (NumberFormatException e) {
-
-                    }
-                }
-
-                if (quantity < LOW_STOCK_THRESHOLD) {
+                if (tableModel.isLowStock(table.convertRowIndexToModel(row))) {
                     cellComponent.setBackground(LOW_STOCK_COLOR);
                     cellComponent.setForeground(Color.RED.darker());
                     cellComponent.setFont(cellComponent.getFont().deriveFont(Font.BOLD));
@@ -536,6 +662,23 @@ public class DrickSysApp extends JFrame {
         }
     }
 
+    private class SyncStatusRenderer extends DefaultTableCellRenderer {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected, boolean hasFocus, int row, int column) {
+            Component cellComponent = super.getTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
+            if (SYNC_REJECTED.equals(value)) {
+                cellComponent.setForeground(isSelected ? table.getSelectionForeground() : Color.RED.darker());
+                cellComponent.setFont(cellComponent.getFont().deriveFont(Font.BOLD));
+            } else {
+                cellComponent.setForeground(isSelected ? table.getSelectionForeground() : TEXT_COLOR);
+                cellComponent.setFont(cellComponent.getFont().deriveFont(Font.PLAIN));
+            }
+            return cellComponent;
+        }
+    }
+
     private ImageIcon loadResourceIcon(String path) {
         java.net.URL resource = getClass().getResource(path);
         return resource != null ? new ImageIcon(resource) : null;
@@ -1042,7 +1185,7 @@ public class DrickSysApp extends JFrame {
         }
         Object selected = posItemField.getSelectedItem();
         posItemField.removeAllItems();
-        for (ProductDefinition product : productCatalog) {
+        for (ProductDefinition product : productCatalog.values()) {
             posItemField.addItem(product.productName);
         }
         if (selected != null) {
@@ -1054,21 +1197,36 @@ public class DrickSysApp extends JFrame {
     }
 
     private ProductDefinition findProductByName(String productName) {
-        for (ProductDefinition product : productCatalog) {
-            if (product.productName.equalsIgnoreCase(productName)) {
-                return product;
+        return productCatalog.get(productName);
+    }
+
+    /**
+     * Lets the POS picker jump to the first product whose name starts with what was typed, rather
+     * than only matching the first letter. Keys typed within {@link #TYPE_AHEAD_RESET_MS} of each
+     * other extend the prefix.
+     */
+    private class ProductTypeAhead implements JComboBox.KeySelectionManager {
+        private final StringBuilder typed = new StringBuilder();
+        private long lastKeyAt;
+
+        @Override
+        public int selectionForKey(char key, ComboBoxModel<?> model) {
+            long now = System.currentTimeMillis();
+            if (now - lastKeyAt > TYPE_AHEAD_RESET_MS) {
+                typed.setLength(0);
             }
+            lastKeyAt = now;
+            typed.append(key);
+            List<ProductDefinition> matches = productCatalog.withPrefix(typed.toString(), 1);
+            if (matches.isEmpty() || !(model instanceof DefaultComboBoxModel<?> comboModel)) {
+                return -1;
+            }
+            return comboModel.getIndexOf(matches.get(0).productName);
         }
-        return null;
     }
 
     private int findInventoryRowByName(String itemName) {
-        for (int i = 0; i < tableModel.getRowCount(); i++) {
-            if (String.valueOf(tableModel.getValueAt(i, 0)).equalsIgnoreCase(itemName)) {
-                return i;
-            }
-        }
-        return -1;
+        return inventoryStore.rowOf(itemName);
     }
 
     private int getQuantityReservedInCart(String itemName) {
@@ -1107,6 +1265,7 @@ public class DrickSysApp extends JFrame {
     private void removeCartLinesForItem(String itemName) {
         for (int i = cartTableModel.getRowCount() - 1; i >= 0; i--) {
             if (String.valueOf(cartTableModel.getValueAt(i, 0)).equalsIgnoreCase(itemName)) {
+                releaseCartRow(i);
                 cartTableModel.removeRow(i);
             }
         }
@@ -1179,13 +1338,13 @@ public class DrickSysApp extends JFrame {
         }
 
         for (RecipeLine recipeLine : recipeLines) {
-            int inventoryRow = findInventoryRowByName(recipeLine.itemName);
-            if (inventoryRow < 0) {
+            InventoryStore.Item ingredient = inventoryStore.get(recipeLine.itemName);
+            if (ingredient == null) {
                 JOptionPane.showMessageDialog(this, "Missing inventory item for recipe: " + recipeLine.itemName, "POS", JOptionPane.ERROR_MESSAGE);
                 return;
             }
             int needed = recipeLine.quantityNeeded * quantity;
-            int available = ((Number) tableModel.getValueAt(inventoryRow, 2)).intValue() - getReservedIngredientQuantity(recipeLine.itemName);
+            int available = ingredient.getQuantity() - ingredientReservations.reserved(recipeLine.itemName);
             if (needed > available) {
                 JOptionPane.showMessageDialog(
                         this,
@@ -1199,6 +1358,7 @@ public class DrickSysApp extends JFrame {
 
         double price = product.unitPrice;
         cartTableModel.addRow(new Object[]{itemName, quantity, price, quantity * price});
+        reserveCartLine(itemName, quantity);
         updateCartSummary();
         updateStatusBar("Added " + quantity + " x " + itemName + " to the current sale.", PRIMARY_COLOR.darker());
         posQuantitySpinner.setValue(1);
@@ -1210,6 +1370,7 @@ public class DrickSysApp extends JFrame {
             JOptionPane.showMessageDialog(this, "Select a cart line to remove.", "POS", JOptionPane.WARNING_MESSAGE);
             return;
         }
+        releaseCartRow(selectedRow);
         cartTableModel.removeRow(selectedRow);
         updateCartSummary();
         updateStatusBar("Cart line removed.", TEXT_COLOR);
@@ -1217,6 +1378,7 @@ public class DrickSysApp extends JFrame {
 
     private void clearCart() {
         cartTableModel.setRowCount(0);
+        ingredientReservations.clear();
         updateCartSummary();
         updateStatusBar("Current sale cleared.", TEXT_COLOR);
     }
@@ -1242,17 +1404,35 @@ public class DrickSysApp extends JFrame {
         return new ArrayList<>(merged.values());
     }
 
-    private int getReservedIngredientQuantity(String itemName) {
-        int reserved = 0;
-        for (CartLine line : buildCartLines()) {
-            List<RecipeLine> recipeLines = productRecipes.getOrDefault(line.itemName, new ArrayList<>());
-            for (RecipeLine recipeLine : recipeLines) {
-                if (recipeLine.itemName.equalsIgnoreCase(itemName)) {
-                    reserved += recipeLine.quantityNeeded * line.quantity;
-                }
-            }
+    /**
+     * Adds the ingredients {@code quantity} of the product needs to the reservation ledger; a
+     * negative quantity releases them. Products no longer in the catalog hold nothing, as in
+     * {@link #buildCartLines()}.
+     */
+    private void reserveCartLine(String productName, int quantity) {
+        if (findProductByName(productName) == null) {
+            return;
+        }
+        for (RecipeLine recipeLine : productRecipes.getOrDefault(productName, List.of())) {
+            ingredientReservations.reserve(recipeLine.itemName, recipeLine.quantityNeeded * quantity);
+        }
+    }
+
+    private void releaseCartRow(int row) {
+        reserveCartLine(String.valueOf(cartTableModel.getValueAt(row, 0)), -((Number) cartTableModel.getValueAt(row, 1)).intValue());
+    }
+
+    /**
+     * Recounts the ledger from the cart, for when the recipes behind it change.
+     */
+    private void rebuildIngredientReservations() {
+        ingredientReservations.clear();
+        if (cartTableModel == null) {
+            return;
+        }
+        for (int i = 0; i < cartTableModel.getRowCount(); i++) {
+            reserveCartLine(String.valueOf(cartTableModel.getValueAt(i, 0)), ((Number) cartTableModel.getValueAt(i, 1)).intValue());
         }
-        return reserved;
     }
 
     private void updateCartSummary() {
@@ -1283,17 +1463,42 @@ public class DrickSysApp extends JFrame {
     }
 
     private void addRecentSale(SaleSummary summary) {
-        salesHistory.add(0, summary);
-        recentSales.clear();
-        for (int i = 0; i < Math.min(8, salesHistory.size()); i++) {
-            recentSales.add(salesHistory.get(i));
-        }
+        salesHistory.addNewest(summary);
+        refreshRecentSales();
+        recalculateDailySalesSummary();
+        journalSales(List.of(summary), List.of());
+    }
+
+    private void refreshRecentSales() {
         recentSalesTableModel.setRowCount(0);
-        for (SaleSummary sale : recentSales) {
-            recentSalesTableModel.addRow(new Object[]{sale.saleId, sale.timestamp, sale.items, sale.units, sale.total});
+        for (SaleSummary sale : salesHistory.newest(RECENT_SALES_LIMIT)) {
+            recentSalesTableModel.addRow(new Object[]{sale.saleId, sale.timestamp, sale.items, sale.units, sale.total, sale.syncStatus});
+        }
+    }
+
+    /**
+     * Applies the outcome of a queued checkout to the local sale it was made from.
+     */
+    private void updateSaleSyncStatus(String saleId, String syncStatus, String cloudSaleId) {
+        List<String> removed = new ArrayList<>();
+        List<SaleSummary> updated = new ArrayList<>();
+        SaleSummary imported = salesHistory.getByCloudSaleId(cloudSaleId);
+        if (imported != null && !imported.saleId.equals(saleId)) {
+            // Already imported by a cloud history merge that ran before the confirmation arrived.
+            salesHistory.remove(imported);
+            removed.add(imported.saleId);
+        }
+        SaleSummary sale = salesHistory.getBySaleId(saleId);
+        if (sale != null) {
+            SaleSummary synced = sale.withSync(syncStatus, cloudSaleId);
+            salesHistory.replace(synced);
+            updated.add(synced);
+        }
+        if (!removed.isEmpty() || !updated.isEmpty()) {
+            refreshRecentSales();
+            recalculateDailySalesSummary();
+            journalSales(updated, removed);
         }
-        recalculateDailySalesSummary();
-        saveSalesHistory();
     }
 
     private void handleRecentSaleTableClick(MouseEvent event) {
@@ -1312,11 +1517,14 @@ public class DrickSysApp extends JFrame {
             return;
         }
         int modelRow = recentSalesTable.convertRowIndexToModel(selectedRow);
-        if (modelRow < 0 || modelRow >= recentSales.size()) {
+        if (modelRow < 0 || modelRow >= recentSalesTableModel.getRowCount()) {
             return;
         }
 
-        SaleSummary sale = recentSales.get(modelRow);
+        SaleSummary sale = salesHistory.getBySaleId(String.valueOf(recentSalesTableModel.getValueAt(modelRow, 0)));
+        if (sale == null) {
+            return;
+        }
         JPanel panel = new JPanel(new BorderLayout(10, 10));
         panel.setBackground(SECONDARY_COLOR);
         panel.setBorder(BorderFactory.createCompoundBorder(
@@ -1364,55 +1572,176 @@ public class DrickSysApp extends JFrame {
         panel.add(header, BorderLayout.NORTH);
         panel.add(scrollPane, BorderLayout.CENTER);
 
-        JOptionPane.showMessageDialog(
+        if (!receiptArchive.contains(sale.saleId)) {
+            JOptionPane.showMessageDialog(
+                    this,
+                    panel,
+                    "Sale Details",
+                    JOptionPane.INFORMATION_MESSAGE
+            );
+            return;
+        }
+        Object[] options = {"Reprint Receipt", "Close"};
+        int choice = JOptionPane.showOptionDialog(
                 this,
                 panel,
                 "Sale Details",
-                JOptionPane.INFORMATION_MESSAGE
+                JOptionPane.DEFAULT_OPTION,
+                JOptionPane.INFORMATION_MESSAGE,
+                null,
+                options,
+                options[1]
         );
+        if (choice == 0) {
+            reprintReceipt(sale.saleId);
+        }
     }
 
-    @FunctionalInterface
-    private interface CloudOperation {
-        void run() throws IOException, InterruptedException;
+    private void reprintReceipt(String saleId) {
+        String receiptContent;
+        try {
+            receiptContent = receiptArchive.find(saleId);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed reading archived receipt for " + saleId, e);
+            updateStatusBar("Could not read the saved receipt.", Color.RED);
+            return;
+        }
+        if (receiptContent == null) {
+            updateStatusBar("No saved receipt for sale " + saleId + ".", Color.ORANGE.darker());
+            return;
+        }
+        printReceipt(receiptContent);
     }
 
-    private boolean runCloudOperation(String actionLabel, CloudOperation operation) {
-        if (!isCloudConfigured()) {
+    /**
+     * Records the change in the durable outbox; it is pushed in the background and replayed after restarts.
+     */
+    private boolean enqueueCloudOperation(CloudOutbox.Type type, List<String> entityKeys, Map<String, String> fields) {
+        try {
+            cloudOutbox.enqueue(type, entityKeys, fields);
+            return true;
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to record cloud operation " + type, e);
+            updateStatusBar("Could not queue cloud sync, saved locally only.", Color.ORANGE.darker());
             return false;
         }
+    }
+
+    private String outboxItemKey(String itemName) {
+        return "item:" + normalizeInventoryKey(itemName);
+    }
+
+    private String applyOutboxOperation(CloudOutbox.Operation operation) throws IOException, InterruptedException {
+        if (!isCloudConfigured()) {
+            throw new IOException("Cloud sync is not configured for this session.");
+        }
         try {
-            operation.run();
-            if (!cloudConnected) {
-                cloudDisconnectDialogShown = false;
-                updateStatusBar("Cloud reconnected. Live sync resumed.", new Color(0, 128, 0));
+            switch (operation.getType()) {
+                case UPSERT_ITEM -> {
+                    return String.valueOf(supabaseClient.upsertInventoryItem(
+                            session,
+                            operation.getId(),
+                            operation.getString("item_name"),
+                            operation.getString("category"),
+                            operation.getInt("quantity"),
+                            operation.getDouble("price"),
+                            operation.getBoolean("link_product")
+                    ));
+                }
+                case UPDATE_ITEM -> {
+                    return String.valueOf(supabaseClient.updateInventoryItem(
+                            session,
+                            operation.getId(),
+                            operation.getString("original_name"),
+                            operation.getString("item_name"),
+                            operation.getString("category"),
+                            operation.getInt("quantity"),
+                            operation.getDouble("price"),
+                            operation.getBoolean("link_product")
+                    ));
+                }
+                case DELETE_ITEM -> {
+                    supabaseClient.deleteInventoryItemByName(session, operation.getString("item_name"));
+                    return "";
+                }
+                case CHECKOUT_SALE -> {
+                    List<SupabaseClient.SaleItem> saleItems = new ArrayList<>();
+                    for (int i = 0; i < operation.getInt("lines"); i++) {
+                        saleItems.add(new SupabaseClient.SaleItem(
+                                operation.getString("line." + i + ".name"),
+                                operation.getString("line." + i + ".category"),
+                                operation.getInt("line." + i + ".quantity"),
+                                operation.getDouble("line." + i + ".price"),
+                                0
+                        ));
+                    }
+                    Map<String, Integer> ingredientUsage = new LinkedHashMap<>();
+                    for (int i = 0; i < operation.getInt("usage"); i++) {
+                        ingredientUsage.put(operation.getString("usage." + i + ".item"), operation.getInt("usage." + i + ".quantity"));
+                    }
+                    return String.valueOf(supabaseClient.placeCheckoutSale(session, operation.getId(), saleItems, ingredientUsage));
+                }
+                default -> throw new IllegalStateException("Unknown cloud operation: " + operation.getType());
             }
-            cloudConnected = true;
-            updateCloudStatusIndicator();
-            return true;
-        } catch (IOException | InterruptedException e) {
-            cloudConnected = false;
-            updateCloudStatusIndicator();
-            updateStatusBar("Cloud unavailable, saved locally only.", Color.ORANGE.darker());
-            if (!cloudDisconnectDialogShown) {
-                JOptionPane.showMessageDialog(
-                        this,
-                        "Cloud sync failed during " + actionLabel + ".\nThe app will continue in offline mode and save local backup files.",
-                        "Cloud Connection Warning",
-                        JOptionPane.WARNING_MESSAGE
-                );
-                cloudDisconnectDialogShown = true;
+        } catch (SupabaseClient.RequestFailedException e) {
+            if (e.isRejected()) {
+                throw new CloudOutbox.RejectedOperationException(e.getMessage(), e);
             }
-            LOGGER.log(Level.WARNING, "Cloud operation failed: " + actionLabel, e);
-            return false;
+            throw e;
         }
     }
 
-    private void queueCloudOperation(String actionLabel, CloudOperation operation) {
-        if (!isCloudConfigured()) {
-            return;
+    private void resumeDeferredInventoryRefresh() {
+        if (cloudOutbox.pendingCount() == 0 && inventoryRefreshDeferred.compareAndSet(true, false)) {
+            runInBackground(LANE_INVENTORY, this::refreshInventoryFromCloudInBackground);
+        }
+    }
+
+    private final class CloudOutboxListener implements CloudOutbox.Listener {
+        @Override
+        public void onApplied(CloudOutbox.Operation operation, String result) {
+            resumeDeferredInventoryRefresh();
+            SwingUtilities.invokeLater(() -> {
+                if (operation.getType() == CloudOutbox.Type.CHECKOUT_SALE) {
+                    updateSaleSyncStatus(operation.getString("sale_id"), "Cloud Synced", result);
+                }
+                if (!cloudConnected) {
+                    cloudConnected = true;
+                    cloudDisconnectDialogShown = false;
+                    updateCloudStatusIndicator();
+                    updateStatusBar("Cloud reconnected. Queued changes are syncing.", new Color(0, 128, 0));
+                }
+            });
+        }
+
+        @Override
+        public void onDiscarded(CloudOutbox.Operation operation, IOException error) {
+            resumeDeferredInventoryRefresh();
+            SwingUtilities.invokeLater(() -> {
+                if (operation.getType() == CloudOutbox.Type.CHECKOUT_SALE) {
+                    // Local stock was already taken for this sale; the cloud never will be.
+                    String saleId = operation.getString("sale_id");
+                    updateSaleSyncStatus(saleId, SYNC_REJECTED, "");
+                    updateStatusBar("Sale " + saleId + " was rejected by the cloud and is only recorded locally.", Color.RED);
+                    JOptionPane.showMessageDialog(DrickSysApp.this,
+                            "Sale " + saleId + " could not be synced to the cloud:\n" + error.getMessage()
+                                    + "\n\nThe sale and its stock deduction are kept locally only. Check the cloud inventory for this sale's items.",
+                            "Cloud Sync Rejected",
+                            JOptionPane.WARNING_MESSAGE);
+                }
+                appendLocalActionLog("cloud_sync_failed", operation.getType() + " " + String.join(", ", operation.getEntityKeys()) + ": " + error.getMessage());
+            });
+        }
+
+        @Override
+        public void onDrainInterrupted(IOException error, int pendingCount) {
+            LOGGER.log(Level.FINE, "Cloud outbox drain paused", error);
+            SwingUtilities.invokeLater(() -> {
+                cloudConnected = false;
+                updateCloudStatusIndicator();
+                updateStatusBar(pendingCount + " change(s) waiting for cloud connection.", Color.ORANGE.darker());
+            });
         }
-        executorService.submit(() -> runCloudOperation(actionLabel, operation));
     }
 
     private String csvEscape(Object value) {
@@ -1457,20 +1786,13 @@ public class DrickSysApp extends JFrame {
         return "DS-" + new SimpleDateFormat("yyyyMMdd-HHmmss-SSS").format(new Date());
     }
 
-    private boolean isSaleInCurrentDay(SaleSummary sale) {
-        String today = new SimpleDateFormat("yyyy-MM-dd").format(new Date());
-        return sale.timestamp != null && sale.timestamp.startsWith(today);
-    }
-
     private void recalculateDailySalesSummary() {
         sessionSalesCount = 0;
         sessionUnitsSold = 0;
         sessionRevenue = 0;
 
-        for (SaleSummary sale : salesHistory) {
-            if (!isSaleInCurrentDay(sale)) {
-                continue;
-            }
+        String today = new SimpleDateFormat("yyyy-MM-dd").format(new Date());
+        for (SaleSummary sale : salesHistory.withTimestampPrefix(today)) {
             sessionSalesCount++;
             sessionUnitsSold += sale.units;
             sessionRevenue += sale.total;
@@ -1478,47 +1800,8 @@ public class DrickSysApp extends JFrame {
         updateSalesSummary();
     }
 
-    private List<SupabaseClient.ActionLogRecord> loadLocalActionLogs() {
-        List<SupabaseClient.ActionLogRecord> logs = new ArrayList<>();
-        File file = new File(ACTIVITY_LOG_FILE);
-        if (!file.exists()) {
-            return logs;
-        }
-
-        try (Scanner scanner = new Scanner(file)) {
-            if (scanner.hasNextLine()) {
-                scanner.nextLine();
-            }
-            while (scanner.hasNextLine()) {
-                List<String> parts = parseCsvLine(scanner.nextLine());
-                if (parts.size() < 3) {
-                    continue;
-                }
-                logs.add(new SupabaseClient.ActionLogRecord(parts.get(1), parts.get(2), parts.get(0)));
-            }
-        } catch (FileNotFoundException e) {
-            LOGGER.log(Level.WARNING, "Activity log file not found during load", e);
-        }
-        return logs;
-    }
-
     private void appendLocalActionLog(String actionType, String details) {
-        File file = new File(ACTIVITY_LOG_FILE);
-        boolean writeHeader = !file.exists();
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(file, true))) {
-            if (writeHeader) {
-                writer.write("Timestamp,Action,Details");
-                writer.newLine();
-            }
-            writer.write(csvEscape(dateFormatter.format(new Date())));
-            writer.write(",");
-            writer.write(csvEscape(actionType));
-            writer.write(",");
-            writer.write(csvEscape(details));
-            writer.newLine();
-        } catch (IOException e) {
-            LOGGER.log(Level.WARNING, "Failed writing local activity log", e);
-        }
+        activityLogger.log(actionType, details);
     }
 
     private void loadSalesHistory() {
@@ -1528,13 +1811,36 @@ public class DrickSysApp extends JFrame {
     }
 
     private void loadSalesHistoryFromLocalFile() {
+        awaitJournalWrites(LANE_SALES_JOURNAL);
         salesHistory.clear();
-        recentSales.clear();
 
+        try {
+            if (salesJournal.exists()) {
+                for (List<String> fields : salesJournal.load().values()) {
+                    SaleSummary sale = SaleSummary.fromFields(fields);
+                    if (sale != null) {
+                        salesHistory.add(sale);
+                    }
+                }
+            } else {
+                salesJournal.load();
+                importLegacySalesHistory();
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "Failed reading sales journal", e);
+            updateStatusBar("Could not read local sales history.", Color.RED);
+        }
+
+        refreshRecentSales();
+        recalculateDailySalesSummary();
+    }
+
+    /**
+     * One-time move of a pre-journal sales_history.csv into the journal's first snapshot.
+     */
+    private void importLegacySalesHistory() throws IOException {
         File file = new File(SALES_HISTORY_FILE);
         if (!file.exists()) {
-            recentSalesTableModel.setRowCount(0);
-            recalculateDailySalesSummary();
             return;
         }
 
@@ -1543,49 +1849,159 @@ public class DrickSysApp extends JFrame {
                 scanner.nextLine();
             }
             while (scanner.hasNextLine()) {
-                List<String> parts = parseCsvLine(scanner.nextLine());
-                if (parts.size() < 8) {
-                    continue;
-                }
-                try {
-                    salesHistory.add(new SaleSummary(
-                            parts.get(0),
-                            parts.get(1),
-                            parts.get(2),
-                            Integer.parseInt(parts.get(3)),
-                            Double.parseDouble(parts.get(4)),
-                            parts.get(5),
-                            parts.get(6),
-                            parts.get(7)
-                    ));
-                } catch (NumberFormatException ignored) {
+                SaleSummary sale = SaleSummary.fromFields(parseCsvLine(scanner.nextLine()));
+                if (sale != null) {
+                    salesHistory.add(sale);
                 }
             }
-        } catch (FileNotFoundException e) {
-            LOGGER.log(Level.WARNING, "Sales history file not found during load", e);
         }
 
-        for (int i = 0; i < Math.min(8, salesHistory.size()); i++) {
-            recentSales.add(salesHistory.get(i));
+        if (!salesHistory.isEmpty()) {
+            salesJournal.writeSnapshot(salesJournal.sealForCompaction(), salesJournalSnapshot());
         }
-        recentSalesTableModel.setRowCount(0);
-        for (SaleSummary sale : recentSales) {
-            recentSalesTableModel.addRow(new Object[]{sale.saleId, sale.timestamp, sale.items, sale.units, sale.total});
+    }
+
+    /**
+     * Appends changed and removed sales to the journal off the EDT (one fsync per call).
+     */
+    private void journalSales(Collection<SaleSummary> changed, Collection<String> removedSaleIds) {
+        journalSales(changed, removedSaleIds, () -> {
+        });
+    }
+
+    /**
+     * @param afterSync runs on the journal lane once the records are synced; skipped if the write fails
+     */
+    private void journalSales(Collection<SaleSummary> changed, Collection<String> removedSaleIds, Runnable afterSync) {
+        List<List<String>> records = new ArrayList<>(changed.size());
+        for (SaleSummary sale : changed) {
+            records.add(sale.toFields());
+        }
+        appendToJournal(salesJournal, LANE_SALES_JOURNAL, records, List.copyOf(removedSaleIds), this::salesJournalSnapshot, afterSync);
+    }
+
+    /**
+     * Queues the records on the journal's lane, so writes keep their EDT order without blocking it,
+     * and schedules a compaction once enough segments have built up.
+     */
+    private void appendToJournal(
+            RecordJournal journal,
+            String lane,
+            List<List<String>> records,
+            List<String> removedKeys,
+            Supplier<List<List<String>>> snapshot,
+            Runnable afterSync
+    ) {
+        journalExecutor.submit(lane, () -> {
+            try {
+                for (String key : removedKeys) {
+                    journal.remove(key);
+                }
+                for (List<String> record : records) {
+                    journal.put(record);
+                }
+                journal.sync();
+            } catch (IOException e) {
+                LOGGER.log(Level.SEVERE, "Failed writing " + lane + " journal", e);
+                SwingUtilities.invokeLater(() -> updateStatusBar("Error saving " + lane + " locally.", Color.RED));
+                return;
+            }
+            afterSync.run();
+            if (journal.needsCompaction()) {
+                SwingUtilities.invokeLater(() -> compactJournal(journal, lane, snapshot.get(), false));
+            }
+        });
+    }
+
+    /**
+     * Seals the journal and writes its snapshot on the journal's lane. {@code snapshot} must be
+     * captured on the EDT right before this call; the lane seals only after every append queued
+     * ahead of it, so the snapshot matches the sealed segments exactly.
+     */
+    private void compactJournal(RecordJournal journal, String lane, List<List<String>> snapshot, boolean force) {
+        journalExecutor.submit(lane, () -> {
+            if (!force && !journal.needsCompaction()) {
+                // An earlier compaction already covered these segments.
+                return;
+            }
+            try {
+                journal.writeSnapshot(journal.sealForCompaction(), snapshot);
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Failed compacting " + lane + " journal", e);
+            }
+        });
+    }
+
+    /**
+     * Waits for the journal writes already queued on the lane, before reloading or closing the journal.
+     */
+    private void awaitJournalWrites(String lane) {
+        try {
+            journalExecutor.submit(lane, () -> {
+            }).get(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            LOGGER.log(Level.WARNING, "Journal writes on " + lane + " did not finish", e);
+        }
+    }
+
+    private List<List<String>> salesJournalSnapshot() {
+        List<List<String>> snapshot = new ArrayList<>(salesHistory.size());
+        for (SaleSummary sale : salesHistory) {
+            snapshot.add(sale.toFields());
         }
+        return snapshot;
     }
 
     private void startInitialCloudSync() {
         if (!isCloudConfigured()) {
             return;
         }
+        cloudOutbox.requestDrain();
+
+        runInBackground(LANE_INVENTORY, this::refreshInventoryFromCloudInBackground);
+        runInBackground(LANE_SALES, this::mergeCloudSalesHistoryInBackground);
+    }
+
+    private void runInBackground(String lane, Runnable task) {
+        try {
+            backgroundExecutor.submit(lane, task).whenComplete((ignored, error) -> {
+                if (error != null) {
+                    LOGGER.log(Level.WARNING, "Background task failed on " + lane, error);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            LOGGER.log(Level.WARNING, "Background task dropped", e);
+            SwingUtilities.invokeLater(() -> updateStatusBar("Background work is backed up (" + lane + "). Please retry shortly.", Color.ORANGE.darker()));
+        }
+    }
 
-        executorService.submit(() -> {
-            refreshInventoryFromCloudInBackground();
-            mergeCloudSalesHistoryInBackground();
+    /**
+     * Like {@link #runInBackground} but on the unbounded journal executor, for writes that must not be dropped.
+     */
+    private void runDurably(String lane, Runnable task) {
+        journalExecutor.submit(lane, task).whenComplete((ignored, error) -> {
+            if (error != null) {
+                LOGGER.log(Level.WARNING, "Background task failed on " + lane, error);
+            }
         });
     }
 
     private void refreshInventoryFromCloudInBackground() {
+        if (cloudOutbox.pendingCount() > 0) {
+            // Cloud rows would overwrite local edits that have not been replayed yet, so the outbox
+            // listener runs this again once it is empty. Re-checked after raising the flag in case
+            // the last operation was acknowledged in between.
+            inventoryRefreshDeferred.set(true);
+            if (cloudOutbox.pendingCount() > 0 || !inventoryRefreshDeferred.compareAndSet(true, false)) {
+                SwingUtilities.invokeLater(() -> updateStatusBar(
+                        "Syncing " + cloudOutbox.pendingCount() + " queued change(s) to cloud. Showing local inventory.",
+                        PRIMARY_COLOR.darker()
+                ));
+                return;
+            }
+        }
         try {
             List<SupabaseClient.InventoryRecord> cloudRecords = supabaseClient.fetchInventory(session);
             SwingUtilities.invokeLater(() -> applyCloudInventoryRecords(cloudRecords));
@@ -1599,22 +2015,10 @@ public class DrickSysApp extends JFrame {
     }
 
     private void applyCloudInventoryRecords(List<SupabaseClient.InventoryRecord> cloudRecords) {
-        Map<String, String[]> dateCache = buildInventoryDateCache();
-        tableModel.setRowCount(0);
-        for (SupabaseClient.InventoryRecord record : cloudRecords) {
-            String[] cachedDates = dateCache.get(normalizeInventoryKey(record.getItemName()));
-            tableModel.addRow(new Object[]{
-                    record.getItemName(),
-                    record.getCategory(),
-                    record.getQuantity(),
-                    normalizeInventoryDate(record.getDateAdded(), cachedDates == null ? "" : cachedDates[0]),
-                    normalizeInventoryDate(record.getDateUpdated(), cachedDates == null ? "" : cachedDates[1])
-            });
-        }
         cloudConnected = true;
         cloudDisconnectDialogShown = false;
         updateCloudStatusIndicator();
-        if (tableModel.getRowCount() == 0) {
+        if (cloudRecords.isEmpty()) {
             int localRows = loadInventoryFromLocalFile();
             if (localRows > 0) {
                 updateStatusBar("Cloud inventory is empty. Showing local backup items.", Color.ORANGE.darker());
@@ -1623,10 +2027,34 @@ public class DrickSysApp extends JFrame {
                 return;
             }
         }
-        saveInventory();
+        InventoryStore.MergeResult delta = mergeCloudInventoryRecords(cloudRecords);
+        if (!delta.hasChanges()) {
+            updateStatusBar("Inventory is up to date with cloud.", PRIMARY_COLOR.darker());
+            return;
+        }
+        // A cloud refresh can touch every row, so it goes straight into a fresh snapshot.
+        compactJournal(inventoryJournal, LANE_INVENTORY_JOURNAL, inventoryJournalSnapshot(), true);
         refreshPosItemChoices();
         updateTotalQuantity();
-        updateStatusBar("Inventory loaded from cloud.", PRIMARY_COLOR.darker());
+        updateStatusBar("Inventory synced from cloud (" + delta.getInserted() + " added, "
+                + delta.getUpdated() + " changed, " + delta.getRemoved() + " removed).", PRIMARY_COLOR.darker());
+    }
+
+    /**
+     * Updates only the inventory rows that differ from the cloud; local dates fill in where the cloud has none.
+     */
+    private InventoryStore.MergeResult mergeCloudInventoryRecords(List<SupabaseClient.InventoryRecord> cloudRecords) {
+        return inventoryStore.merge(
+                cloudRecords,
+                SupabaseClient.InventoryRecord::getItemName,
+                (record, current) -> new Object[]{
+                        record.getItemName(),
+                        record.getCategory(),
+                        record.getQuantity(),
+                        normalizeInventoryDate(record.getDateAdded(), current == null ? "" : current.getDateAdded()),
+                        normalizeInventoryDate(record.getDateUpdated(), current == null ? "" : current.getDateUpdated())
+                }
+        );
     }
 
     private void mergeCloudSalesHistoryInBackground() {
@@ -1635,8 +2063,8 @@ public class DrickSysApp extends JFrame {
         }
 
         try {
-            List<SupabaseClient.SaleHistoryLineRecord> lines = supabaseClient.fetchSalesHistory(session);
-            SwingUtilities.invokeLater(() -> mergeCloudSalesHistory(lines));
+            CloudSalesBatch batch = fetchCloudSalesBatch();
+            SwingUtilities.invokeLater(() -> applyCloudSalesBatch(batch));
         } catch (IOException | InterruptedException e) {
             SwingUtilities.invokeLater(() -> {
                 cloudConnected = false;
@@ -1651,14 +2079,64 @@ public class DrickSysApp extends JFrame {
         }
 
         try {
-            mergeCloudSalesHistory(supabaseClient.fetchSalesHistory(session));
+            applyCloudSalesBatch(fetchCloudSalesBatch());
         } catch (IOException | InterruptedException e) {
             cloudConnected = false;
             updateCloudStatusIndicator();
         }
     }
 
-    private void mergeCloudSalesHistory(List<SupabaseClient.SaleHistoryLineRecord> cloudLines) {
+    /**
+     * Fetches only sale lines above the stored watermark, or the full history when there is no usable
+     * mark: none saved, saved for another project or user, the local sales journal is gone, or the cloud
+     * no longer reaches the mark (reset or restored database).
+     */
+    private CloudSalesBatch fetchCloudSalesBatch() throws IOException, InterruptedException {
+        SalesSyncWatermark watermark = salesSyncWatermark();
+        long mark = salesJournal.exists() ? watermark.load() : -1;
+        if (mark >= 0) {
+            SupabaseClient.SaleHistoryDelta delta = supabaseClient.fetchSalesHistorySince(session, mark - SALES_SYNC_OVERLAP);
+            if (delta.getLatestSaleDetailId() >= mark) {
+                return new CloudSalesBatch(watermark, delta.getLines(), mark);
+            }
+            LOGGER.info("Sales sync mark " + mark + " is ahead of the cloud (" + delta.getLatestSaleDetailId() + "); running a full resync");
+        }
+        return new CloudSalesBatch(watermark, supabaseClient.fetchSalesHistory(session), 0);
+    }
+
+    /**
+     * Merges the batch and then advances the watermark. The mark is saved on the sales journal lane only
+     * after the imported sales are synced, so it never gets ahead of what is stored locally; a failed
+     * write leaves the old mark and the next sync fetches those sales again.
+     */
+    private void applyCloudSalesBatch(CloudSalesBatch batch) {
+        long nextMark = batch.previousMark;
+        for (SupabaseClient.SaleHistoryLineRecord line : batch.lines) {
+            nextMark = Math.max(nextMark, line.getSaleDetailId());
+        }
+        if (nextMark == batch.previousMark && nextMark > 0) {
+            mergeCloudSalesHistory(batch.lines, () -> {
+            });
+            return;
+        }
+        long savedMark = nextMark;
+        mergeCloudSalesHistory(batch.lines, () -> {
+            try {
+                batch.watermark.save(savedMark);
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Failed saving sales sync mark", e);
+            }
+        });
+    }
+
+    private SalesSyncWatermark salesSyncWatermark() {
+        return new SalesSyncWatermark(Path.of(SALES_SYNC_STATE_FILE), supabaseClient.getSupabaseUrl(), session.getUserId());
+    }
+
+    /**
+     * @param afterDurable runs on the sales journal lane once every imported sale is synced
+     */
+    private void mergeCloudSalesHistory(List<SupabaseClient.SaleHistoryLineRecord> cloudLines, Runnable afterDurable) {
         Map<Long, List<SupabaseClient.SaleHistoryLineRecord>> groupedLines = new LinkedHashMap<>();
         for (SupabaseClient.SaleHistoryLineRecord line : cloudLines) {
             if (line.getSaleId() <= 0) {
@@ -1667,38 +2145,26 @@ public class DrickSysApp extends JFrame {
             groupedLines.computeIfAbsent(line.getSaleId(), saleId -> new ArrayList<>()).add(line);
         }
 
-        boolean changed = false;
+        List<SaleSummary> importedSales = new ArrayList<>();
         for (Map.Entry<Long, List<SupabaseClient.SaleHistoryLineRecord>> entry : groupedLines.entrySet()) {
             String cloudSaleId = String.valueOf(entry.getKey());
-            boolean exists = false;
-            for (SaleSummary existing : salesHistory) {
-                if (cloudSaleId.equals(existing.cloudSaleId)) {
-                    exists = true;
-                    break;
-                }
-            }
-            if (exists) {
+            if (salesHistory.containsCloudSaleId(cloudSaleId)) {
                 continue;
             }
 
             SaleSummary imported = buildSaleSummaryFromCloud(cloudSaleId, entry.getValue());
             if (imported != null) {
                 salesHistory.add(imported);
-                changed = true;
+                importedSales.add(imported);
             }
         }
 
-        if (changed) {
-            salesHistory.sort((left, right) -> right.timestamp.compareTo(left.timestamp));
-            recentSales.clear();
-            for (int i = 0; i < Math.min(8, salesHistory.size()); i++) {
-                recentSales.add(salesHistory.get(i));
-            }
-            recentSalesTableModel.setRowCount(0);
-            for (SaleSummary sale : recentSales) {
-                recentSalesTableModel.addRow(new Object[]{sale.saleId, sale.timestamp, sale.items, sale.units, sale.total});
-            }
-            saveSalesHistory();
+        if (!importedSales.isEmpty()) {
+            refreshRecentSales();
+            journalSales(importedSales, List.of(), afterDurable);
+        } else {
+            // Queued behind any pending writes, so ordering matches the case above.
+            journalExecutor.submit(LANE_SALES_JOURNAL, afterDurable);
         }
         recalculateDailySalesSummary();
     }
@@ -1746,54 +2212,48 @@ public class DrickSysApp extends JFrame {
         return new SaleSummary(saleId, timestamp, itemsSummary.toString(), totalUnits, grandTotal, fullDetails, "Cloud Imported", cloudSaleId);
     }
 
-    private void saveSalesHistory() {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(SALES_HISTORY_FILE))) {
-            writer.write("Sale ID,Timestamp,Items,Units,Total,Details,Sync Status,Cloud Sale ID");
+    /**
+     * The sales_history.csv export; the journal is the live store.
+     */
+    private void writeSalesHistoryCsv(BufferedWriter writer, List<SaleSummary> sales) throws IOException {
+        writer.write("Sale ID,Timestamp,Items,Units,Total,Details,Sync Status,Cloud Sale ID");
+        writer.newLine();
+        for (SaleSummary sale : sales) {
+            writer.write(csvEscape(sale.saleId));
+            writer.write(",");
+            writer.write(csvEscape(sale.timestamp));
+            writer.write(",");
+            writer.write(csvEscape(sale.items));
+            writer.write(",");
+            writer.write(csvEscape(sale.units));
+            writer.write(",");
+            writer.write(csvEscape(sale.total));
+            writer.write(",");
+            writer.write(csvEscape(sale.details));
+            writer.write(",");
+            writer.write(csvEscape(sale.syncStatus));
+            writer.write(",");
+            writer.write(csvEscape(sale.cloudSaleId));
             writer.newLine();
-            for (SaleSummary sale : salesHistory) {
-                writer.write(csvEscape(sale.saleId));
-                writer.write(",");
-                writer.write(csvEscape(sale.timestamp));
-                writer.write(",");
-                writer.write(csvEscape(sale.items));
-                writer.write(",");
-                writer.write(csvEscape(sale.units));
-                writer.write(",");
-                writer.write(csvEscape(sale.total));
-                writer.write(",");
-                writer.write(csvEscape(sale.details));
-                writer.write(",");
-                writer.write(csvEscape(sale.syncStatus));
-                writer.write(",");
-                writer.write(csvEscape(sale.cloudSaleId));
-                writer.newLine();
-            }
-            saveSalesTextBackupSnapshot();
-        } catch (IOException e) {
-            LOGGER.log(Level.WARNING, "Failed writing sales history", e);
         }
     }
 
-    private void saveSalesTextBackupSnapshot() {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(SALES_TEXT_BACKUP_FILE))) {
-            writer.write("Sales Backup");
+    private void writeSalesTextBackup(BufferedWriter writer, String savedAt, List<SaleSummary> sales) throws IOException {
+        writer.write("Sales Backup");
+        writer.newLine();
+        writer.write("Saved at: " + savedAt);
+        writer.newLine();
+        writer.write("------------------------------------------------------------");
+        writer.newLine();
+        for (SaleSummary sale : sales) {
+            writer.write("Sale ID: " + sale.saleId + " | Time: " + sale.timestamp + " | Total: PHP " + String.format("%.2f", sale.total));
             writer.newLine();
-            writer.write("Saved at: " + dateFormatter.format(new Date()));
+            writer.write("Sync: " + sale.syncStatus + (sale.cloudSaleId.isBlank() ? "" : " | Cloud Sale ID: " + sale.cloudSaleId));
+            writer.newLine();
+            writer.write(sale.details.replace("\n", System.lineSeparator()));
             writer.newLine();
             writer.write("------------------------------------------------------------");
             writer.newLine();
-            for (SaleSummary sale : salesHistory) {
-                writer.write("Sale ID: " + sale.saleId + " | Time: " + sale.timestamp + " | Total: PHP " + String.format("%.2f", sale.total));
-                writer.newLine();
-                writer.write("Sync: " + sale.syncStatus + (sale.cloudSaleId.isBlank() ? "" : " | Cloud Sale ID: " + sale.cloudSaleId));
-                writer.newLine();
-                writer.write(sale.details.replace("\n", System.lineSeparator()));
-                writer.newLine();
-                writer.write("------------------------------------------------------------");
-                writer.newLine();
-            }
-        } catch (IOException e) {
-            LOGGER.log(Level.WARNING, "Failed writing sales text backup snapshot", e);
         }
     }
 
@@ -1813,12 +2273,10 @@ public class DrickSysApp extends JFrame {
                 return;
             }
 
-            for (int i = 0; i < tableModel.getRowCount(); i++) {
-                if (tableModel.getValueAt(i, 0).toString().equalsIgnoreCase(itemName)) {
-                    JOptionPane.showMessageDialog(this, "An item with this name already exists.", "Duplicate Item", JOptionPane.ERROR_MESSAGE);
-                    updateStatusBar("Error: Duplicate item name.", Color.RED);
-                    return;
-                }
+            if (inventoryStore.contains(itemName)) {
+                JOptionPane.showMessageDialog(this, "An item with this name already exists.", "Duplicate Item", JOptionPane.ERROR_MESSAGE);
+                updateStatusBar("Error: Duplicate item name.", Color.RED);
+                return;
             }
 
             int quantity;
@@ -1835,16 +2293,20 @@ public class DrickSysApp extends JFrame {
 
             double price = 0.0;
             String dateAdded = dateFormatter.format(new Date());
-            tableModel.addRow(new Object[]{itemName, itemCategory, quantity, dateAdded, "-"});
+            InventoryStore.Item added = inventoryStore.add(itemName, itemCategory, quantity, dateAdded, "-");
             clearFields();
             updateTotalQuantity();
             refreshPosItemChoices();
-            saveInventory();
+            journalInventory(List.of(added.getRow()), List.of());
             logActionSafe("add_item", "Added: " + itemName + ", qty=" + quantity);
             if (isCloudConfigured()) {
-                queueCloudOperation("add item", () ->
-                        supabaseClient.insertInventoryItem(session, itemName, itemCategory, quantity, price, dateAdded, "", isSellableCategory(itemCategory))
-                );
+                Map<String, String> fields = new LinkedHashMap<>();
+                fields.put("item_name", itemName);
+                fields.put("category", itemCategory);
+                fields.put("quantity", String.valueOf(quantity));
+                fields.put("price", String.valueOf(price));
+                fields.put("link_product", String.valueOf(isSellableCategory(itemCategory)));
+                enqueueCloudOperation(CloudOutbox.Type.UPSERT_ITEM, List.of(outboxItemKey(itemName)), fields);
                 updateStatusBar("Item '" + itemName + "' added. Cloud sync running in background.", PRIMARY_COLOR.darker());
             } else {
                 updateStatusBar("Item '" + itemName + "' added locally.", TEXT_COLOR);
@@ -1880,12 +2342,11 @@ public class DrickSysApp extends JFrame {
             return;
         }
 
-        for (int i = 0; i < tableModel.getRowCount(); i++) {
-            if (i != modelRow && tableModel.getValueAt(i, 0).toString().equalsIgnoreCase(itemName)) {
-                JOptionPane.showMessageDialog(this, "An item with this name already exists.", "Duplicate Item", JOptionPane.ERROR_MESSAGE);
-                updateStatusBar("Error: Duplicate item name.", Color.RED);
-                return;
-            }
+        int existingRow = inventoryStore.rowOf(itemName);
+        if (existingRow >= 0 && existingRow != modelRow) {
+            JOptionPane.showMessageDialog(this, "An item with this name already exists.", "Duplicate Item", JOptionPane.ERROR_MESSAGE);
+            updateStatusBar("Error: Duplicate item name.", Color.RED);
+            return;
         }
 
         try {
@@ -1900,29 +2361,26 @@ public class DrickSysApp extends JFrame {
         }
 
         double price = 0.0;
-        String originalItemName = String.valueOf(tableModel.getValueAt(modelRow, 0));
+        String originalItemName = inventoryStore.rowAt(modelRow).getName();
         String updatedDate = dateFormatter.format(new Date());
-        tableModel.setValueAt(itemName, modelRow, 0);
-        tableModel.setValueAt(itemCategory, modelRow, 1);
-        tableModel.setValueAt(quantity, modelRow, 2);
-        tableModel.setValueAt(updatedDate, modelRow, 4);
+        inventoryStore.update(modelRow, itemName, itemCategory, quantity, updatedDate);
         clearFields();
         updateTotalQuantity();
         refreshPosItemChoices();
-        saveInventory();
+        journalInventory(List.of(modelRow), originalItemName.equals(itemName) ? List.of() : List.of(originalItemName));
         logActionSafe("update_item", "Updated: " + originalItemName + " -> " + itemName + ", qty=" + quantity);
         if (isCloudConfigured()) {
-            queueCloudOperation("update item", () ->
-                    supabaseClient.updateInventoryItemByName(
-                            session,
-                            originalItemName,
-                            itemName,
-                            itemCategory,
-                            quantity,
-                            price,
-                            updatedDate,
-                            isSellableCategory(itemCategory)
-                    )
+            Map<String, String> fields = new LinkedHashMap<>();
+            fields.put("original_name", originalItemName);
+            fields.put("item_name", itemName);
+            fields.put("category", itemCategory);
+            fields.put("quantity", String.valueOf(quantity));
+            fields.put("price", String.valueOf(price));
+            fields.put("link_product", String.valueOf(isSellableCategory(itemCategory)));
+            enqueueCloudOperation(
+                    CloudOutbox.Type.UPDATE_ITEM,
+                    List.of(outboxItemKey(originalItemName), outboxItemKey(itemName)),
+                    fields
             );
             updateStatusBar("Item '" + itemName + "' updated. Cloud sync running in background.", PRIMARY_COLOR.darker());
         } else {
@@ -1945,18 +2403,15 @@ public class DrickSysApp extends JFrame {
 
         if (confirm == JOptionPane.YES_OPTION) {
             int modelRow = inventoryTable.convertRowIndexToModel(selectedRow);
-            String itemName = (String) tableModel.getValueAt(modelRow, 0);
-            tableModel.removeRow(modelRow);
+            String itemName = inventoryStore.remove(modelRow).getName();
             removeCartLinesForItem(itemName);
             clearFields();
             updateTotalQuantity();
             refreshPosItemChoices();
-            saveInventory();
+            journalInventory(List.of(), List.of(itemName));
             logActionSafe("delete_item", "Deleted: " + itemName);
             if (isCloudConfigured()) {
-                queueCloudOperation("delete item", () ->
-                        supabaseClient.deleteInventoryItemByName(session, itemName)
-                );
+                enqueueCloudOperation(CloudOutbox.Type.DELETE_ITEM, List.of(outboxItemKey(itemName)), Map.of("item_name", itemName));
                 updateStatusBar("Item '" + itemName + "' deleted. Cloud sync running in background.", PRIMARY_COLOR.darker());
             } else {
                 updateStatusBar("Item '" + itemName + "' deleted locally.", TEXT_COLOR);
@@ -2100,35 +2555,9 @@ public class DrickSysApp extends JFrame {
     }
 
     private void loadInventory() {
-        Map<String, String[]> dateCache = buildInventoryDateCache();
-        tableModel.setRowCount(0);
         if (isCloudConfigured()) {
             try {
-                List<SupabaseClient.InventoryRecord> cloudRecords = supabaseClient.fetchInventory(session);
-                for (SupabaseClient.InventoryRecord record : cloudRecords) {
-                    String[] cachedDates = dateCache.get(normalizeInventoryKey(record.getItemName()));
-                    tableModel.addRow(new Object[]{
-                            record.getItemName(),
-                            record.getCategory(),
-                            record.getQuantity(),
-                            normalizeInventoryDate(record.getDateAdded(), cachedDates == null ? "" : cachedDates[0]),
-                            normalizeInventoryDate(record.getDateUpdated(), cachedDates == null ? "" : cachedDates[1])
-                    });
-                }
-                cloudConnected = true;
-                cloudDisconnectDialogShown = false;
-                updateCloudStatusIndicator();
-                if (tableModel.getRowCount() == 0) {
-                    int localRows = loadInventoryFromLocalFile();
-                    if (localRows > 0) {
-                        updateStatusBar("Cloud inventory is empty. Showing local backup items.", Color.ORANGE.darker());
-                        refreshPosItemChoices();
-                        return;
-                    }
-                }
-                saveInventory();
-                refreshPosItemChoices();
-                updateStatusBar("Inventory loaded from cloud.", PRIMARY_COLOR.darker());
+                applyCloudInventoryRecords(supabaseClient.fetchInventory(session));
                 return;
             } catch (IOException | InterruptedException e) {
                 cloudConnected = false;
@@ -2147,12 +2576,47 @@ public class DrickSysApp extends JFrame {
     }
 
     private int loadInventoryFromLocalFile() {
-        tableModel.setRowCount(0);
+        awaitJournalWrites(LANE_INVENTORY_JOURNAL);
+        inventoryStore.load(List.of());
+        try {
+            if (inventoryJournal.exists()) {
+                List<Object[]> rows = new ArrayList<>();
+                for (List<String> fields : inventoryJournal.load().values()) {
+                    Object[] row = inventoryRowFromFields(fields);
+                    if (row != null) {
+                        rows.add(row);
+                    }
+                }
+                inventoryStore.load(rows);
+            } else {
+                inventoryJournal.load();
+                if (!importLegacyInventory()) {
+                    return 0;
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Error loading inventory: " + e.getMessage());
+            updateStatusBar("Error loading inventory.", Color.RED);
+            LOGGER.log(Level.SEVERE, "Error loading inventory", e);
+            return 0;
+        }
+        refreshPosItemChoices();
+        updateStatusBar("Inventory loaded successfully from local storage.", PRIMARY_COLOR.darker());
+        return tableModel.getRowCount();
+    }
+
+    /**
+     * One-time move of a pre-journal inventory.csv into the journal's first snapshot.
+     *
+     * @return false when there is no inventory.csv to import
+     */
+    private boolean importLegacyInventory() throws IOException {
         File file = new File(INVENTORY_FILE);
         if (!file.exists()) {
-            return 0;
+            return false;
         }
 
+        List<Object[]> rows = new ArrayList<>();
         try (Scanner scanner = new Scanner(file)) {
             if (scanner.hasNextLine()) {
                 scanner.nextLine();
@@ -2175,7 +2639,7 @@ public class DrickSysApp extends JFrame {
                             dateUpdated = parts.get(4);
                         }
 
-                        tableModel.addRow(new Object[]{
+                        rows.add(new Object[]{
                                 name,
                                 category,
                                 quantity,
@@ -2189,111 +2653,187 @@ public class DrickSysApp extends JFrame {
                     System.err.println("Skipping malformed inventory line (incorrect number of fields): " + line);
                 }
             }
-            refreshPosItemChoices();
-            updateStatusBar("Inventory loaded successfully from " + INVENTORY_FILE, PRIMARY_COLOR.darker());
-            return tableModel.getRowCount();
-        } catch (FileNotFoundException e) {
-            System.err.println("Error loading inventory: " + e.getMessage());
-            updateStatusBar("Error loading inventory.", Color.RED);
-            LOGGER.log(Level.SEVERE, "Error loading inventory", e);
-            return 0;
         }
+
+        inventoryStore.load(rows);
+        inventoryJournal.writeSnapshot(inventoryJournal.sealForCompaction(), inventoryJournalSnapshot());
+        return true;
     }
 
-    private void saveInventory() {
-        try (FileWriter fw = new FileWriter(INVENTORY_FILE);
-             BufferedWriter bw = new BufferedWriter(fw)) {
-            for (int i = 0; i < tableModel.getColumnCount(); i++) {
-                bw.write(csvEscape(tableModel.getColumnName(i)));
-                if (i < tableModel.getColumnCount() - 1) {
-                    bw.write(",");
-                }
-            }
-            bw.newLine();
+    private List<String> inventoryRowFields(int modelRow) {
+        List<String> fields = new ArrayList<>(tableModel.getColumnCount());
+        for (int column = 0; column < tableModel.getColumnCount(); column++) {
+            fields.add(String.valueOf(tableModel.getValueAt(modelRow, column)));
+        }
+        return fields;
+    }
 
-            for (int i = 0; i < tableModel.getRowCount(); i++) {
-                for (int j = 0; j < tableModel.getColumnCount(); j++) {
-                    bw.write(csvEscape(tableModel.getValueAt(i, j)));
-                    if (j < tableModel.getColumnCount() - 1) {
-                        bw.write(",");
-                    }
-                }
-                bw.newLine();
-            }
-            saveTextBackupSnapshot();
-            System.out.println("Inventory saved successfully to " + INVENTORY_FILE);
-            if (isCloudConfigured() && cloudConnected) {
-                updateStatusBar("Inventory saved locally and cloud is connected.", TEXT_COLOR);
-            } else if (isCloudConfigured()) {
-                updateStatusBar("Inventory saved locally (offline mode).", Color.ORANGE.darker());
-            } else {
-                updateStatusBar("Inventory saved locally.", TEXT_COLOR);
-            }
-        } catch (IOException e) {
-            System.err.println("Error saving inventory: " + e.getMessage());
-            updateStatusBar("Error saving inventory.", Color.RED);
-            LOGGER.log(Level.SEVERE, "Error saving inventory", e);
+    private static Object[] inventoryRowFromFields(List<String> fields) {
+        if (fields.size() < 5) {
+            return null;
+        }
+        try {
+            return new Object[]{fields.get(0), fields.get(1), Integer.parseInt(fields.get(2)), fields.get(3), fields.get(4)};
+        } catch (NumberFormatException e) {
+            return null;
         }
     }
 
-    private void persistAllData() {
-        saveInventory();
-        saveProducts();
-        saveRecipes();
-        saveSalesHistory();
+    private List<List<String>> inventoryJournalSnapshot() {
+        List<List<String>> snapshot = new ArrayList<>(tableModel.getRowCount());
+        for (int i = 0; i < tableModel.getRowCount(); i++) {
+            snapshot.add(inventoryRowFields(i));
+        }
+        return snapshot;
     }
 
-    private void saveTextBackupSnapshot() {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(INVENTORY_TEXT_BACKUP_FILE))) {
-            writer.write("Inventory Text Backup");
-            writer.newLine();
-            writer.write("Saved at: " + dateFormatter.format(new Date()));
-            writer.newLine();
-            writer.write("------------------------------------------------------------");
-            writer.newLine();
-            for (int i = 0; i < tableModel.getColumnCount(); i++) {
-                writer.write(tableModel.getColumnName(i));
-                if (i < tableModel.getColumnCount() - 1) {
-                    writer.write(" | ");
-                }
+    /**
+     * Appends the given inventory rows and removed item names to the journal off the EDT (one fsync
+     * per call) instead of rewriting the whole inventory.
+     */
+    private void journalInventory(Collection<Integer> changedModelRows, Collection<String> removedItemNames) {
+        List<List<String>> records = new ArrayList<>(changedModelRows.size());
+        for (int modelRow : changedModelRows) {
+            records.add(inventoryRowFields(modelRow));
+        }
+        appendToJournal(inventoryJournal, LANE_INVENTORY_JOURNAL, records, List.copyOf(removedItemNames), this::inventoryJournalSnapshot, () -> {
+        });
+    }
+
+    /**
+     * The inventory.csv export; the journal is the live store.
+     */
+    private void writeInventoryCsv(BufferedWriter bw, List<String> columns, List<List<String>> rows) throws IOException {
+        writeCsvRow(bw, columns);
+        for (List<String> row : rows) {
+            writeCsvRow(bw, row);
+        }
+    }
+
+    private void writeCsvRow(BufferedWriter bw, List<String> fields) throws IOException {
+        for (int i = 0; i < fields.size(); i++) {
+            bw.write(csvEscape(fields.get(i)));
+            if (i < fields.size() - 1) {
+                bw.write(",");
             }
-            writer.newLine();
-            writer.write("------------------------------------------------------------");
-            writer.newLine();
-            for (int i = 0; i < tableModel.getRowCount(); i++) {
-                for (int j = 0; j < tableModel.getColumnCount(); j++) {
-                    writer.write(String.valueOf(tableModel.getValueAt(i, j)));
-                    if (j < tableModel.getColumnCount() - 1) {
-                        writer.write(" | ");
-                    }
-                }
-                writer.newLine();
+        }
+        bw.newLine();
+    }
+
+    private static byte[] renderText(TextBody body) {
+        StringWriter out = new StringWriter();
+        try (BufferedWriter writer = new BufferedWriter(out)) {
+            body.write(writer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private void registerPersistedDatasets() {
+        persistenceScheduler.register(DATASET_INVENTORY, () -> {
+            List<String> columns = inventoryColumnNames();
+            List<List<String>> rows = inventoryJournalSnapshot();
+            return () -> Map.of(INVENTORY_FILE, renderText(writer -> writeInventoryCsv(writer, columns, rows)));
+        });
+        persistenceScheduler.register(DATASET_PRODUCTS, () -> {
+            List<ProductDefinition> products = List.copyOf(productCatalog.values());
+            return () -> Map.of(PRODUCTS_FILE, renderText(writer -> writeProductsCsv(writer, products)));
+        });
+        persistenceScheduler.register(DATASET_RECIPES, () -> {
+            List<RecipeLine> recipeLines = new ArrayList<>();
+            for (List<RecipeLine> lines : productRecipes.values()) {
+                recipeLines.addAll(lines);
             }
+            return () -> Map.of(RECIPES_FILE, renderText(writer -> writeRecipesCsv(writer, recipeLines)));
+        });
+        persistenceScheduler.register(DATASET_SALES, () -> {
+            List<SaleSummary> sales = salesHistory.newest(Integer.MAX_VALUE);
+            return () -> Map.of(SALES_HISTORY_FILE, renderText(writer -> writeSalesHistoryCsv(writer, sales)));
+        });
+        // SimpleDateFormat is not thread-safe, so the backup time is formatted here on the EDT.
+        textBackupScheduler.register(BACKUP_INVENTORY, () -> {
+            String savedAt = dateFormatter.format(new Date());
+            List<String> columns = inventoryColumnNames();
+            List<List<String>> rows = inventoryJournalSnapshot();
+            return () -> Map.of(INVENTORY_TEXT_BACKUP_FILE, renderText(writer -> writeInventoryTextBackup(writer, savedAt, columns, rows)));
+        });
+        textBackupScheduler.register(BACKUP_SALES, () -> {
+            String savedAt = dateFormatter.format(new Date());
+            List<SaleSummary> sales = salesHistory.newest(Integer.MAX_VALUE);
+            return () -> Map.of(SALES_TEXT_BACKUP_FILE, renderText(writer -> writeSalesTextBackup(writer, savedAt, sales)));
+        });
+    }
+
+    private List<String> inventoryColumnNames() {
+        List<String> columns = new ArrayList<>(tableModel.getColumnCount());
+        for (int i = 0; i < tableModel.getColumnCount(); i++) {
+            columns.add(tableModel.getColumnName(i));
+        }
+        return columns;
+    }
+
+    /**
+     * Final save on exit or logout: flushes every dataset as one atomic commit and waits for it,
+     * then lets queued journal writes finish before closing the journals.
+     */
+    private void persistAllData() {
+        persistenceScheduler.markDirty(DATASET_INVENTORY);
+        persistenceScheduler.markDirty(DATASET_PRODUCTS);
+        persistenceScheduler.markDirty(DATASET_RECIPES);
+        persistenceScheduler.markDirty(DATASET_SALES);
+        try {
+            persistenceScheduler.flushNow();
         } catch (IOException e) {
-            LOGGER.log(Level.WARNING, "Failed writing text backup snapshot", e);
+            LOGGER.log(Level.SEVERE, "Failed saving local data", e);
+            updateStatusBar("Error saving local data.", Color.RED);
+        }
+        awaitJournalWrites(LANE_INVENTORY_JOURNAL);
+        awaitJournalWrites(LANE_SALES_JOURNAL);
+        inventoryJournal.close();
+        salesJournal.close();
+        receiptArchive.close();
+        if (supabaseClient != null) {
+            try {
+                supabaseClient.saveIdCache();
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Failed writing Supabase id cache", e);
+            }
         }
     }
 
-    private void updateTotalQuantity() {
-        int total = 0;
-        for (int i = 0; i < tableModel.getRowCount(); i++) {
-            total += (int) tableModel.getValueAt(i, 2);
+    /**
+     * Takes the exit snapshot of the text backups, so the newest one always matches the saved data.
+     */
+    private void shutdownTextBackups() {
+        try {
+            textBackupScheduler.shutdown();
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed writing final text backup", e);
         }
-        if (totalQuantityLabel != null) {
-            totalQuantityLabel.setText(String.valueOf(total));
+    }
+
+    private void writeInventoryTextBackup(BufferedWriter writer, String savedAt, List<String> columns, List<List<String>> rows) throws IOException {
+        writer.write("Inventory Text Backup");
+        writer.newLine();
+        writer.write("Saved at: " + savedAt);
+        writer.newLine();
+        writer.write("------------------------------------------------------------");
+        writer.newLine();
+        writer.write(String.join(" | ", columns));
+        writer.newLine();
+        writer.write("------------------------------------------------------------");
+        writer.newLine();
+        for (List<String> row : rows) {
+            writer.write(String.join(" | ", row));
+            writer.newLine();
         }
     }
 
-    private Map<String, String[]> buildInventoryDateCache() {
-        Map<String, String[]> cache = new LinkedHashMap<>();
-        for (int i = 0; i < tableModel.getRowCount(); i++) {
-            String itemName = String.valueOf(tableModel.getValueAt(i, 0));
-            cache.put(normalizeInventoryKey(itemName), new String[]{
-                    String.valueOf(tableModel.getValueAt(i, 3)),
-                    String.valueOf(tableModel.getValueAt(i, 4))
-            });
+    private void updateTotalQuantity() {
+        if (totalQuantityLabel != null) {
+            totalQuantityLabel.setText(String.valueOf(tableModel.getTotalQuantity()));
         }
-        return cache;
     }
 
     private String normalizeInventoryKey(String itemName) {
@@ -2380,17 +2920,6 @@ public class DrickSysApp extends JFrame {
         updateStatusBar("POS is ready. Add items to the cart, then checkout once.", PRIMARY_COLOR.darker());
     }
 
-    private Map<String, Integer> buildIngredientUsage(List<CartLine> lines) {
-        Map<String, Integer> usage = new LinkedHashMap<>();
-        for (CartLine line : lines) {
-            List<RecipeLine> recipeLines = productRecipes.getOrDefault(line.itemName, new ArrayList<>());
-            for (RecipeLine recipeLine : recipeLines) {
-                usage.merge(recipeLine.itemName, recipeLine.quantityNeeded * line.quantity, Integer::sum);
-            }
-        }
-        return usage;
-    }
-
 
     private void checkoutCart() {
         List<CartLine> lines = buildCartLines();
@@ -2399,7 +2928,7 @@ public class DrickSysApp extends JFrame {
             return;
         }
 
-        Map<String, Integer> ingredientUsage = buildIngredientUsage(lines);
+        Map<String, Integer> ingredientUsage = ingredientReservations.snapshot();
         for (CartLine line : lines) {
             if (productRecipes.getOrDefault(line.itemName, new ArrayList<>()).isEmpty()) {
                 JOptionPane.showMessageDialog(this, "Recipe missing for product: " + line.itemName, "POS", JOptionPane.ERROR_MESSAGE);
@@ -2408,12 +2937,12 @@ public class DrickSysApp extends JFrame {
         }
 
         for (Map.Entry<String, Integer> entry : ingredientUsage.entrySet()) {
-            int row = findInventoryRowByName(entry.getKey());
-            if (row < 0) {
+            InventoryStore.Item ingredient = inventoryStore.get(entry.getKey());
+            if (ingredient == null) {
                 JOptionPane.showMessageDialog(this, "Ingredient missing from inventory: " + entry.getKey(), "POS", JOptionPane.ERROR_MESSAGE);
                 return;
             }
-            int available = ((Number) tableModel.getValueAt(row, 2)).intValue();
+            int available = ingredient.getQuantity();
             if (entry.getValue() > available) {
                 JOptionPane.showMessageDialog(this, entry.getKey() + " only has " + available + " unit(s) left.", "Insufficient Stock", JOptionPane.ERROR_MESSAGE);
                 return;
@@ -2455,93 +2984,113 @@ public class DrickSysApp extends JFrame {
             return;
         }
 
-        final long[] cloudSaleIdHolder = {-1L};
-        boolean cloudSynced = !isCloudConfigured() || runCloudOperation("checkout sale", () ->
-        {
-            cloudSaleIdHolder[0] = supabaseClient.placeProductSale(session, convertCartLinesToCloudItems(lines));
-            for (Map.Entry<String, Integer> entry : ingredientUsage.entrySet()) {
-                int row = findInventoryRowByName(entry.getKey());
-                int newQuantity = ((Number) tableModel.getValueAt(row, 2)).intValue() - entry.getValue();
-                supabaseClient.updateInventoryQuantityByName(session, entry.getKey(), newQuantity);
-            }
-        }
-        );
-
         String updatedAt = dateFormatter.format(new Date());
-        for (Map.Entry<String, Integer> entry : ingredientUsage.entrySet()) {
-            int row = findInventoryRowByName(entry.getKey());
-            int newQuantity = ((Number) tableModel.getValueAt(row, 2)).intValue() - entry.getValue();
-            tableModel.setValueAt(newQuantity, row, 2);
-            tableModel.setValueAt(updatedAt, row, 4);
+        // Stock may have moved while the confirmation was open, so the take is re-checked atomically.
+        List<String> shortItems = inventoryStore.consumeAll(ingredientUsage, updatedAt);
+        if (!shortItems.isEmpty()) {
+            JOptionPane.showMessageDialog(this, "Not enough stock left for: " + String.join(", ", shortItems), "Insufficient Stock", JOptionPane.ERROR_MESSAGE);
+            updateStatusBar("Checkout cancelled: stock changed.", Color.RED);
+            return;
+        }
+        List<Integer> changedRows = new ArrayList<>(ingredientUsage.size());
+        for (String itemName : ingredientUsage.keySet()) {
+            changedRows.add(findInventoryRowByName(itemName));
         }
 
         updateTotalQuantity();
-        saveInventory();
+        journalInventory(changedRows, List.of());
         refreshPosItemChoices();
-        String syncStatus = cloudSynced ? "Cloud Synced" : "Local Backup Only";
-        String cloudSaleId = cloudSaleIdHolder[0] > 0 ? String.valueOf(cloudSaleIdHolder[0]) : "";
+        // The sale is committed locally; the cloud copy is confirmed later by the outbox listener.
+        boolean cloudQueued = isCloudConfigured() && enqueueCheckoutSale(saleId, lines, ingredientUsage);
+        String syncStatus = cloudQueued ? SYNC_PENDING : "Local Backup Only";
         String fullSaleDetails = "Sale ID: " + saleId
                 + "\nTimestamp: " + updatedAt
                 + "\nSync: " + syncStatus
-                + (cloudSaleId.isBlank() ? "" : "\nCloud Sale ID: " + cloudSaleId)
                 + "\n\n" + saleDetails;
-        addRecentSale(new SaleSummary(saleId, updatedAt, itemsSummary.toString(), totalUnits, grandTotal, fullSaleDetails, syncStatus, cloudSaleId));
+        addRecentSale(new SaleSummary(saleId, updatedAt, itemsSummary.toString(), totalUnits, grandTotal, fullSaleDetails, syncStatus, ""));
         logActionSafe("order_item", "Sale completed [" + saleId + "]: " + itemsSummary + ", total=" + grandTotal);
         clearCart();
 
-        if (cloudSynced) {
-            updateStatusBar("Sale completed and synced. Total: PHP " + String.format("%.2f", grandTotal), PRIMARY_COLOR.darker());
+        if (cloudQueued) {
+            updateStatusBar("Sale completed. Cloud sync running in background. Total: PHP " + String.format("%.2f", grandTotal), PRIMARY_COLOR.darker());
         } else {
             updateStatusBar("Sale completed locally (offline mode). Total: PHP " + String.format("%.2f", grandTotal), Color.ORANGE.darker());
         }
-        List<CartLine> receiptLines = new ArrayList<>(lines);
-        double receiptTotal = grandTotal;
+        // Built here because dateFormatter is not thread-safe; the archived text is what a reprint shows.
+        String receiptContent = buildReceiptContent(saleId, lines, grandTotal);
         String receiptSaleId = saleId;
-        executorService.submit(() -> {
-            String receiptPath = generateReceipt(receiptSaleId, receiptLines, receiptTotal);
+        runDurably(LANE_RECEIPTS, () -> {
+            String receiptPath = generateReceipt(receiptSaleId, receiptContent);
             if (receiptPath != null) {
-                SwingUtilities.invokeLater(() -> showReceiptDialog(receiptSaleId, receiptLines, receiptTotal, receiptPath));
+                SwingUtilities.invokeLater(() -> showReceiptDialog(receiptContent, receiptPath));
             }
         });
     }
 
-    private List<SupabaseClient.SaleItem> convertCartLinesToCloudItems(List<CartLine> lines) {
-        List<SupabaseClient.SaleItem> items = new ArrayList<>();
-        for (CartLine line : lines) {
-            items.add(new SupabaseClient.SaleItem(
-                    line.itemName,
-                    line.category,
-                    line.quantity,
-                    line.unitPrice,
-                    0
-            ));
+    private boolean enqueueCheckoutSale(String saleId, List<CartLine> lines, Map<String, Integer> ingredientUsage) {
+        Map<String, String> fields = new LinkedHashMap<>();
+        fields.put("sale_id", saleId);
+        fields.put("lines", String.valueOf(lines.size()));
+        for (int i = 0; i < lines.size(); i++) {
+            CartLine line = lines.get(i);
+            fields.put("line." + i + ".name", line.itemName);
+            fields.put("line." + i + ".category", line.category);
+            fields.put("line." + i + ".quantity", String.valueOf(line.quantity));
+            fields.put("line." + i + ".price", String.valueOf(line.unitPrice));
+        }
+        // Ingredient rows must reach the cloud before the sale that consumes them.
+        List<String> entityKeys = new ArrayList<>();
+        entityKeys.add("sale:" + saleId);
+        fields.put("usage", String.valueOf(ingredientUsage.size()));
+        int index = 0;
+        for (Map.Entry<String, Integer> entry : ingredientUsage.entrySet()) {
+            fields.put("usage." + index + ".item", entry.getKey());
+            fields.put("usage." + index + ".quantity", String.valueOf(entry.getValue()));
+            entityKeys.add(outboxItemKey(entry.getKey()));
+            index++;
         }
-        return items;
+        return enqueueCloudOperation(CloudOutbox.Type.CHECKOUT_SALE, entityKeys, fields);
     }
 
-    private String generateReceipt(String saleId, List<CartLine> lines, double grandTotal) {
-        File receiptsDir = new File(RECEIPTS_DIR);
-        if (!receiptsDir.exists() && !receiptsDir.mkdirs()) {
-            SwingUtilities.invokeLater(() -> updateStatusBar("Could not create receipts folder.", Color.RED));
-            return null;
-        }
-
-        String timestamp = new SimpleDateFormat("yyyyMMdd_HHmmss").format(new Date());
-        String receiptFileName = RECEIPTS_DIR + "/receipt_" + saleId + "_" + timestamp + ".txt";
-        String receiptContent = buildReceiptContent(saleId, lines, grandTotal);
-
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(receiptFileName))) {
-            writer.write(receiptContent);
-
+    /**
+     * Appends the receipt to the archive; runs on the receipts lane.
+     *
+     * @return the archive segment holding the receipt, or null if it could not be saved
+     */
+    private String generateReceipt(String saleId, String receiptContent) {
+        try {
+            String receiptFileName = receiptArchive.append(saleId, System.currentTimeMillis(), receiptContent).toString();
             SwingUtilities.invokeLater(() -> updateStatusBar("Receipt generated: " + receiptFileName, PRIMARY_COLOR.darker()));
             return receiptFileName;
         } catch (IOException e) {
-            System.err.println("Error generating receipt: " + e.getMessage());
+            LOGGER.log(Level.SEVERE, "Error generating receipt for " + saleId, e);
             SwingUtilities.invokeLater(() -> updateStatusBar("Error generating receipt.", Color.RED));
             return null;
         }
     }
 
+    /**
+     * Loads the receipt index, then folds any old receipt_*.txt files into the archive in the background.
+     */
+    private void openReceiptArchive() {
+        try {
+            receiptArchive.open();
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "Failed opening receipt archive", e);
+            return;
+        }
+        runDurably(LANE_RECEIPTS, () -> {
+            try {
+                int imported = receiptArchive.importLegacyReceipts(Path.of(RECEIPTS_DIR));
+                if (imported > 0) {
+                    LOGGER.info("Imported " + imported + " receipt files into the receipt archive");
+                }
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Failed importing old receipt files", e);
+            }
+        });
+    }
+
     private void loadProducts() {
         productCatalog.clear();
         File file = new File(PRODUCTS_FILE);
@@ -2573,19 +3122,19 @@ public class DrickSysApp extends JFrame {
     }
 
     private void saveProducts() {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(PRODUCTS_FILE))) {
-            writer.write("Product Name,Category,Price");
+        persistenceScheduler.markDirty(DATASET_PRODUCTS);
+    }
+
+    private void writeProductsCsv(BufferedWriter writer, List<ProductDefinition> products) throws IOException {
+        writer.write("Product Name,Category,Price");
+        writer.newLine();
+        for (ProductDefinition product : products) {
+            writer.write(csvEscape(product.productName));
+            writer.write(",");
+            writer.write(csvEscape(product.category));
+            writer.write(",");
+            writer.write(csvEscape(product.unitPrice));
             writer.newLine();
-            for (ProductDefinition product : productCatalog) {
-                writer.write(csvEscape(product.productName));
-                writer.write(",");
-                writer.write(csvEscape(product.category));
-                writer.write(",");
-                writer.write(csvEscape(product.unitPrice));
-                writer.newLine();
-            }
-        } catch (IOException e) {
-            LOGGER.log(Level.WARNING, "Failed writing products file", e);
         }
     }
 
@@ -2617,21 +3166,21 @@ public class DrickSysApp extends JFrame {
     }
 
     private void saveRecipes() {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(RECIPES_FILE))) {
-            writer.write("Product Name,Item Name,Quantity Needed");
+        // Every recipe edit ends here, and it changes what the cart holds back.
+        rebuildIngredientReservations();
+        persistenceScheduler.markDirty(DATASET_RECIPES);
+    }
+
+    private void writeRecipesCsv(BufferedWriter writer, List<RecipeLine> recipeLines) throws IOException {
+        writer.write("Product Name,Item Name,Quantity Needed");
+        writer.newLine();
+        for (RecipeLine line : recipeLines) {
+            writer.write(csvEscape(line.productName));
+            writer.write(",");
+            writer.write(csvEscape(line.itemName));
+            writer.write(",");
+            writer.write(csvEscape(line.quantityNeeded));
             writer.newLine();
-            for (Map.Entry<String, List<RecipeLine>> entry : productRecipes.entrySet()) {
-                for (RecipeLine line : entry.getValue()) {
-                    writer.write(csvEscape(line.productName));
-                    writer.write(",");
-                    writer.write(csvEscape(line.itemName));
-                    writer.write(",");
-                    writer.write(csvEscape(line.quantityNeeded));
-                    writer.newLine();
-                }
-            }
-        } catch (IOException e) {
-            LOGGER.log(Level.WARNING, "Failed writing recipes file", e);
         }
     }
 
@@ -2679,8 +3228,8 @@ public class DrickSysApp extends JFrame {
         return receipt.toString();
     }
 
-    private void showReceiptDialog(String saleId, List<CartLine> lines, double grandTotal, String receiptPath) {
-        JTextArea receiptArea = new JTextArea(buildReceiptContent(saleId, lines, grandTotal));
+    private void showReceiptDialog(String receiptContent, String receiptPath) {
+        JTextArea receiptArea = new JTextArea(receiptContent);
         receiptArea.setEditable(false);
         receiptArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
         receiptArea.setLineWrap(false);
@@ -2703,8 +3252,8 @@ public class DrickSysApp extends JFrame {
         );
     }
 
-    private void printReceipt(String saleId, List<CartLine> lines, double grandTotal) {
-        JTextArea receiptArea = new JTextArea(buildReceiptContent(saleId, lines, grandTotal));
+    private void printReceipt(String receiptContent) {
+        JTextArea receiptArea = new JTextArea(receiptContent);
         receiptArea.setEditable(false);
         receiptArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 11));
         try {
@@ -2726,48 +3275,108 @@ public class DrickSysApp extends JFrame {
     }
 
     private void showActivityLogsDialog() {
-        try {
-            java.util.List<SupabaseClient.ActionLogRecord> logs = new ArrayList<>(loadLocalActionLogs());
-            if (isCloudReady()) {
-                java.util.List<SupabaseClient.ActionLogRecord> cloudLogs = supabaseClient.fetchActionLogs(session);
-                if (!cloudLogs.isEmpty()) {
-                    logs = cloudLogs;
-                }
+        List<SupabaseClient.ActionLogRecord> cloudLogs = List.of();
+        if (isCloudReady()) {
+            try {
+                cloudLogs = supabaseClient.fetchActionLogs(session);
+            } catch (IOException | InterruptedException e) {
+                JOptionPane.showMessageDialog(this, "Failed to load activity logs: " + e.getMessage(), "Logs Error", JOptionPane.ERROR_MESSAGE);
+                return;
             }
+        }
 
-            String[] columns = {"Timestamp", "Action", "Details"};
-            DefaultTableModel logsTableModel = new DefaultTableModel(columns, 0) {
-                @Override
-                public boolean isCellEditable(int row, int column) {
-                    return false;
-                }
-            };
+        String[] columns = {"Timestamp", "Action", "Details"};
+        DefaultTableModel logsTableModel = new DefaultTableModel(columns, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        };
+
+        JTable logsTable = new JTable(logsTableModel);
+        logsTable.setRowHeight(26);
+        logsTable.getTableHeader().setFont(HEADER_FONT);
+        logsTable.setFont(MAIN_FONT);
+        logsTable.setAutoResizeMode(JTable.AUTO_RESIZE_LAST_COLUMN);
+
+        JDialog dialog = new JDialog(this, ACTIVITY_LOGS_TEXT, true);
+        dialog.setLayout(new BorderLayout());
+        dialog.getContentPane().setBackground(SECONDARY_COLOR);
+        JScrollPane scrollPane = new JScrollPane(logsTable);
+        scrollPane.setBorder(BorderFactory.createLineBorder(BORDER_COLOR, 2));
+        dialog.add(scrollPane, BorderLayout.CENTER);
+
+        if (!cloudLogs.isEmpty()) {
+            for (SupabaseClient.ActionLogRecord log : cloudLogs) {
+                logsTableModel.addRow(new Object[]{log.getCreatedAt(), log.getActionType(), log.getDetails()});
+            }
+        } else {
+            dialog.add(createLocalActivityLogPager(dialog, logsTableModel), BorderLayout.SOUTH);
+        }
 
-            for (SupabaseClient.ActionLogRecord log : logs) {
+        dialog.setSize(700, 440);
+        dialog.setLocationRelativeTo(this);
+        dialog.setVisible(true);
+    }
+
+    /**
+     * Window and paging controls for the local log; each page reads only the index blocks it needs.
+     */
+    private JPanel createLocalActivityLogPager(JDialog dialog, DefaultTableModel logsTableModel) {
+        String[] windows = {"Today", "Last 7 days", "Last 30 days", "All time"};
+        int[] windowDays = {1, 7, 30, 0};
+        JComboBox<String> windowField = createStyledComboBox(windows);
+        JButton newerButton = createDialogActionButton("Newer");
+        JButton olderButton = createDialogActionButton("Older");
+        JLabel pageLabel = new JLabel();
+        pageLabel.setFont(MAIN_FONT);
+        int[] page = {0};
+
+        Runnable loadPage = () -> {
+            int days = windowDays[Math.max(0, windowField.getSelectedIndex())];
+            String from = days > 0 ? LocalDate.now().minusDays(days - 1L) + " 00:00:00" : null;
+            List<SupabaseClient.ActionLogRecord> logs;
+            try {
+                // One extra row tells whether an older page exists.
+                logs = activityLogger.read(from, null, page[0] * ACTIVITY_LOG_PAGE_SIZE, ACTIVITY_LOG_PAGE_SIZE + 1);
+            } catch (IOException e) {
+                JOptionPane.showMessageDialog(dialog, "Failed to load activity logs: " + e.getMessage(), "Logs Error", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+            boolean hasOlder = logs.size() > ACTIVITY_LOG_PAGE_SIZE;
+            logsTableModel.setRowCount(0);
+            for (SupabaseClient.ActionLogRecord log : logs.subList(0, Math.min(logs.size(), ACTIVITY_LOG_PAGE_SIZE))) {
                 logsTableModel.addRow(new Object[]{log.getCreatedAt(), log.getActionType(), log.getDetails()});
             }
-            if (logs.isEmpty()) {
+            if (logs.isEmpty() && page[0] == 0) {
                 logsTableModel.addRow(new Object[]{"-", "info", "No activity logs recorded yet."});
             }
+            newerButton.setEnabled(page[0] > 0);
+            olderButton.setEnabled(hasOlder);
+            pageLabel.setText("Page " + (page[0] + 1));
+        };
 
-            JTable logsTable = new JTable(logsTableModel);
-            logsTable.setRowHeight(26);
-            logsTable.getTableHeader().setFont(HEADER_FONT);
-            logsTable.setFont(MAIN_FONT);
-            logsTable.setAutoResizeMode(JTable.AUTO_RESIZE_LAST_COLUMN);
-
-            JDialog dialog = new JDialog(this, ACTIVITY_LOGS_TEXT, true);
-            dialog.setLayout(new BorderLayout());
-            dialog.getContentPane().setBackground(SECONDARY_COLOR);
-            JScrollPane scrollPane = new JScrollPane(logsTable);
-            scrollPane.setBorder(BorderFactory.createLineBorder(BORDER_COLOR, 2));
-            dialog.add(scrollPane, BorderLayout.CENTER);
-            dialog.setSize(700, 400);
-            dialog.setLocationRelativeTo(this);
-            dialog.setVisible(true);
-        } catch (IOException | InterruptedException e) {
-            JOptionPane.showMessageDialog(this, "Failed to load activity logs: " + e.getMessage(), "Logs Error", JOptionPane.ERROR_MESSAGE);
-        }
+        windowField.addActionListener(event -> {
+            page[0] = 0;
+            loadPage.run();
+        });
+        newerButton.addActionListener(event -> {
+            page[0] = Math.max(0, page[0] - 1);
+            loadPage.run();
+        });
+        olderButton.addActionListener(event -> {
+            page[0]++;
+            loadPage.run();
+        });
+
+        JPanel controls = new JPanel(new FlowLayout(FlowLayout.RIGHT, 8, 6));
+        controls.setBackground(SECONDARY_COLOR);
+        controls.add(windowField);
+        controls.add(newerButton);
+        controls.add(pageLabel);
+        controls.add(olderButton);
+        loadPage.run();
+        return controls;
     }
 
     private JPanel createProductsWorkspaceTab(Component parent) {
@@ -2793,7 +3402,7 @@ public class DrickSysApp extends JFrame {
 
         Runnable refreshProducts = () -> {
             productModel.setRowCount(0);
-            for (ProductDefinition product : productCatalog) {
+            for (ProductDefinition product : productCatalog.values()) {
                 productModel.addRow(new Object[]{
                         product.productName,
                         product.category,
@@ -2898,7 +3507,7 @@ public class DrickSysApp extends JFrame {
             }
             try {
                 double updatedPrice = Double.parseDouble(priceField.getText().trim());
-                productCatalog.remove(original);
+                productCatalog.remove(original.productName);
                 productCatalog.add(new ProductDefinition(updatedName, categoryField.getText().trim(), updatedPrice));
                 List<RecipeLine> existingRecipe = productRecipes.remove(originalName);
                 if (existingRecipe != null) {
@@ -2930,7 +3539,7 @@ public class DrickSysApp extends JFrame {
             }
             ProductDefinition product = findProductByName(productName);
             if (product != null) {
-                productCatalog.remove(product);
+                productCatalog.remove(product.productName);
             }
             productRecipes.remove(productName);
             removeCartLinesForItem(productName);
@@ -3093,382 +3702,7 @@ public class DrickSysApp extends JFrame {
             showLocalInventorySnapshotDialog();
             return;
         }
-        if (useTabbedInventoryWorkspace()) {
-            showTabbedInventoryWorkspaceDialog();
-            return;
-        }
-
-        String[] columns = {"Module", "ID", "Name", "Related", "Quantity", "Unit/Status", "Value", "Date", "Notes"};
-        DefaultTableModel unifiedModel = new DefaultTableModel(columns, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
-
-        JTable unifiedTable = new JTable(unifiedModel);
-        unifiedTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
-        unifiedTable.setRowHeight(24);
-        unifiedTable.setFont(MAIN_FONT);
-        unifiedTable.setForeground(TEXT_COLOR);
-        unifiedTable.setBackground(Color.WHITE);
-        unifiedTable.setGridColor(BORDER_COLOR.brighter());
-        unifiedTable.getTableHeader().setFont(HEADER_FONT);
-        unifiedTable.getTableHeader().setForeground(TEXT_COLOR);
-        unifiedTable.getTableHeader().setBackground(BUTTON_COLOR);
-
-        Runnable refreshData = () -> {
-            unifiedModel.setRowCount(0);
-            try {
-                java.util.List<SupabaseClient.SupplierRecord> suppliers = supabaseClient.fetchSuppliers(session);
-                for (SupabaseClient.SupplierRecord supplier : suppliers) {
-                    unifiedModel.addRow(new Object[]{
-                            SUPPLIER_TEXT,
-                            supplier.getSupplierId(),
-                            supplier.getSupplierName(),
-                            supplier.getContactPerson(),
-                            "",
-                            supplier.getStatus(),
-                            supplier.getPhone(),
-                            "",
-                            supplier.getEmail() + " | " + supplier.getAddress()
-                    });
-                }
-
-                java.util.List<SupabaseClient.ExpirationRecord> expirations = supabaseClient.fetchExpirations(session);
-                for (SupabaseClient.ExpirationRecord expiration : expirations) {
-                    unifiedModel.addRow(new Object[]{
-                            EXPIRATION_TEXT,
-                            expiration.getExpirationId(),
-                            expiration.getItemName(),
-                            "",
-                            expiration.getUnitQuantity(),
-                            expiration.getUnitType(),
-                            "",
-                            expiration.getExpirationDate(),
-                            ""
-                    });
-                }
-
-                java.util.List<SupabaseClient.IngredientRecord> ingredients = supabaseClient.fetchIngredients(session);
-                for (SupabaseClient.IngredientRecord ingredient : ingredients) {
-                    unifiedModel.addRow(new Object[]{
-                            INGREDIENTS_TEXT,
-                            "",
-                            ingredient.getProductName(),
-                            ingredient.getItemName(),
-                            ingredient.getQuantityNeeded(),
-                            ingredient.getUnitType(),
-                            "",
-                            "",
-                            ""
-                    });
-                }
-
-                java.util.List<SupabaseClient.StockOutItemRecord> stockOuts = supabaseClient.fetchStockOutItems(session);
-                for (SupabaseClient.StockOutItemRecord stockOut : stockOuts) {
-                    unifiedModel.addRow(new Object[]{
-                            STOCK_OUT_TEXT,
-                            stockOut.getStockoutItemId(),
-                            stockOut.getItemName(),
-                            "",
-                            stockOut.getQuantity(),
-                            "",
-                            stockOut.getCost(),
-                            stockOut.getStockoutDate(),
-                            stockOut.getReason()
-                    });
-                }
-            } catch (IOException | InterruptedException ex) {
-                JOptionPane.showMessageDialog(this, "Failed to load inventory data: " + ex.getMessage(), "Inventory Error", JOptionPane.ERROR_MESSAGE);
-            }
-        };
-        refreshData.run();
-
-        JDialog dialog = new JDialog(this, INVENTORY_HUB_TEXT, true);
-        dialog.setLayout(new BorderLayout(8, 8));
-        dialog.getContentPane().setBackground(SECONDARY_COLOR);
-        JScrollPane scrollPane = new JScrollPane(unifiedTable);
-        scrollPane.getViewport().setBackground(SECONDARY_COLOR);
-        scrollPane.setBorder(BorderFactory.createLineBorder(BORDER_COLOR, 1));
-        dialog.add(scrollPane, BorderLayout.CENTER);
-
-        JPanel actionsPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
-        actionsPanel.setBackground(SECONDARY_COLOR);
-        actionsPanel.setBorder(BorderFactory.createLineBorder(BORDER_COLOR, 1));
-        JButton addButton = createDialogActionButton("Add");
-        JButton editButton = createDialogActionButton("Edit");
-        JButton deleteButton = createDialogActionButton("Delete");
-        JButton refreshButton = createDialogActionButton("Refresh");
-        JButton closeButton = createDialogActionButton("Close");
-
-        addButton.addActionListener(event -> {
-            event.getSource();
-            String[] modules = {SUPPLIER_TEXT, EXPIRATION_TEXT, INGREDIENTS_TEXT, STOCK_OUT_TEXT};
-            String module = (String) JOptionPane.showInputDialog(dialog, "Module:", "Add Record", JOptionPane.QUESTION_MESSAGE, null, modules, modules[0]);
-            if (module == null) {
-                return;
-            }
-
-            try {
-                switch (module) {
-                    case SUPPLIER_TEXT -> {
-                    JTextField nameField = new JTextField(18);
-                    JTextField contactField = new JTextField(18);
-                    JTextField phoneField = new JTextField(18);
-                    JTextField emailField = new JTextField(18);
-                    JTextField addressField = new JTextField(18);
-                    JTextField statusField = new JTextField("active", 18);
-                    JPanel panel = new JPanel(new GridLayout(0, 2, 6, 6));
-                    panel.setBackground(SECONDARY_COLOR);
-                    panel.add(new JLabel("Supplier Name:")); panel.add(nameField);
-                    panel.add(new JLabel("Contact Person:")); panel.add(contactField);
-                    panel.add(new JLabel("Phone:")); panel.add(phoneField);
-                    panel.add(new JLabel("Email:")); panel.add(emailField);
-                    panel.add(new JLabel("Address:")); panel.add(addressField);
-                    panel.add(new JLabel("Status:")); panel.add(statusField);
-                    if (JOptionPane.showConfirmDialog(dialog, panel, "Add Supplier", JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE) != JOptionPane.OK_OPTION) {
-                        return;
-                    }
-                    if (nameField.getText().trim().isEmpty()) {
-                        JOptionPane.showMessageDialog(dialog, "Supplier name is required.", "Validation", JOptionPane.WARNING_MESSAGE);
-                        return;
-                    }
-                    supabaseClient.addSupplier(session, nameField.getText().trim(), contactField.getText().trim(), phoneField.getText().trim(), emailField.getText().trim(), addressField.getText().trim(), statusField.getText().trim().isEmpty() ? "active" : statusField.getText().trim());
-                    }
-                    case EXPIRATION_TEXT -> {
-                    JTextField itemField = new JTextField(18);
-                    JTextField unitTypeField = new JTextField(18);
-                    JTextField quantityField = new JTextField(18);
-                    JTextField dateField = new JTextField("YYYY-MM-DD", 18);
-                    JPanel panel = new JPanel(new GridLayout(0, 2, 6, 6));
-                    panel.setBackground(SECONDARY_COLOR);
-                    panel.add(new JLabel("Item Name:")); panel.add(itemField);
-                    panel.add(new JLabel("Unit Type:")); panel.add(unitTypeField);
-                    panel.add(new JLabel("Unit Quantity:")); panel.add(quantityField);
-                    panel.add(new JLabel("Expiration Date:")); panel.add(dateField);
-                    if (JOptionPane.showConfirmDialog(dialog, panel, "Add Expiration", JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE) != JOptionPane.OK_OPTION) {
-                        return;
-                    }
-                    if (!quantityField.getText().trim().matches("\\d+") || !dateField.getText().trim().matches("\\d{4}-\\d{2}-\\d{2}")) {
-                        JOptionPane.showMessageDialog(dialog, "Quantity must be numeric and date must be YYYY-MM-DD.", "Validation", JOptionPane.WARNING_MESSAGE);
-                        return;
-                    }
-                    supabaseClient.addExpiration(session, itemField.getText().trim(), unitTypeField.getText().trim(), Integer.parseInt(quantityField.getText().trim()), dateField.getText().trim());
-                    }
-                    case INGREDIENTS_TEXT -> {
-                    JTextField productField = new JTextField(18);
-                    JTextField itemField = new JTextField(18);
-                    JTextField unitTypeField = new JTextField(18);
-                    JTextField quantityField = new JTextField(18);
-                    JPanel panel = new JPanel(new GridLayout(0, 2, 6, 6));
-                    panel.setBackground(SECONDARY_COLOR);
-                    panel.add(new JLabel("Product Name:")); panel.add(productField);
-                    panel.add(new JLabel("Item Name:")); panel.add(itemField);
-                    panel.add(new JLabel("Unit Type:")); panel.add(unitTypeField);
-                    panel.add(new JLabel("Quantity Needed:")); panel.add(quantityField);
-                    if (JOptionPane.showConfirmDialog(dialog, panel, "Add Ingredient", JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE) != JOptionPane.OK_OPTION) {
-                        return;
-                    }
-                    if (!quantityField.getText().trim().matches("\\d+")) {
-                        JOptionPane.showMessageDialog(dialog, "Quantity must be numeric.", "Validation", JOptionPane.WARNING_MESSAGE);
-                        return;
-                    }
-                    supabaseClient.addOrUpdateIngredient(session, productField.getText().trim(), itemField.getText().trim(), unitTypeField.getText().trim(), Integer.parseInt(quantityField.getText().trim()));
-                    }
-                    case STOCK_OUT_TEXT -> {
-                    JTextField itemField = new JTextField(18);
-                    JTextField quantityField = new JTextField(18);
-                    JTextField costField = new JTextField(18);
-                    JTextField reasonField = new JTextField(18);
-                    JPanel panel = new JPanel(new GridLayout(0, 2, 6, 6));
-                    panel.setBackground(SECONDARY_COLOR);
-                    panel.add(new JLabel("Item Name:")); panel.add(itemField);
-                    panel.add(new JLabel("Quantity:")); panel.add(quantityField);
-                    panel.add(new JLabel("Cost:")); panel.add(costField);
-                    panel.add(new JLabel("Reason:")); panel.add(reasonField);
-                    if (JOptionPane.showConfirmDialog(dialog, panel, "Record Stock Out", JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE) != JOptionPane.OK_OPTION) {
-                        return;
-                    }
-                    if (!quantityField.getText().trim().matches("\\d+")) {
-                        JOptionPane.showMessageDialog(dialog, "Quantity must be numeric.", "Validation", JOptionPane.WARNING_MESSAGE);
-                        return;
-                    }
-                    double costValue;
-                    try {
-                        costValue = costField.getText().trim().isEmpty() ? 0.0 : Double.parseDouble(costField.getText().trim());
-                    } catch (NumberFormatException ex) {
-                        JOptionPane.showMessageDialog(dialog, "Cost must be numeric.", "Validation", JOptionPane.WARNING_MESSAGE);
-                        return;
-                    }
-                    supabaseClient.recordItemStockOut(session, itemField.getText().trim(), Integer.parseInt(quantityField.getText().trim()), costValue, reasonField.getText().trim());
-                    loadInventory();
-                    updateTotalQuantity();
-                    }
-                    default -> {
-                        return;
-                    }
-                }
-                refreshData.run();
-            } catch (IOException | InterruptedException ex) {
-                JOptionPane.showMessageDialog(dialog, "Add failed: " + ex.getMessage(), "Inventory Error", JOptionPane.ERROR_MESSAGE);
-            }
-        });
-
-        editButton.addActionListener(event -> {
-            event.getSource();
-            int selectedRow = unifiedTable.getSelectedRow();
-            if (selectedRow < 0) {
-                JOptionPane.showMessageDialog(dialog, "Select a row to edit.", "No Selection", JOptionPane.WARNING_MESSAGE);
-                return;
-            }
-
-            String module = String.valueOf(unifiedModel.getValueAt(selectedRow, 0));
-            try {
-                switch (module) {
-                    case SUPPLIER_TEXT -> {
-                    long supplierId = Long.parseLong(String.valueOf(unifiedModel.getValueAt(selectedRow, 1)));
-                    JTextField nameField = new JTextField(String.valueOf(unifiedModel.getValueAt(selectedRow, 2)), 18);
-                    JTextField contactField = new JTextField(String.valueOf(unifiedModel.getValueAt(selectedRow, 3)), 18);
-                    JTextField phoneField = new JTextField(String.valueOf(unifiedModel.getValueAt(selectedRow, 6)), 18);
-                    String notes = String.valueOf(unifiedModel.getValueAt(selectedRow, 8));
-                    String[] parts = notes.split("\\|", 2);
-                    JTextField emailField = new JTextField(parts.length > 0 ? parts[0].trim() : "", 18);
-                    JTextField addressField = new JTextField(parts.length > 1 ? parts[1].trim() : "", 18);
-                    JTextField statusField = new JTextField(String.valueOf(unifiedModel.getValueAt(selectedRow, 5)), 18);
-                    JPanel panel = new JPanel(new GridLayout(0, 2, 6, 6));
-                    panel.setBackground(SECONDARY_COLOR);
-                    panel.add(new JLabel("Supplier Name:")); panel.add(nameField);
-                    panel.add(new JLabel("Contact Person:")); panel.add(contactField);
-                    panel.add(new JLabel("Phone:")); panel.add(phoneField);
-                    panel.add(new JLabel("Email:")); panel.add(emailField);
-                    panel.add(new JLabel("Address:")); panel.add(addressField);
-                    panel.add(new JLabel("Status:")); panel.add(statusField);
-                    if (JOptionPane.showConfirmDialog(dialog, panel, "Edit Supplier", JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE) != JOptionPane.OK_OPTION) {
-                        return;
-                    }
-                    supabaseClient.updateSupplierById(session, supplierId, nameField.getText().trim(), contactField.getText().trim(), phoneField.getText().trim(), emailField.getText().trim(), addressField.getText().trim(), statusField.getText().trim());
-                    }
-                    case EXPIRATION_TEXT -> {
-                    long expirationId = Long.parseLong(String.valueOf(unifiedModel.getValueAt(selectedRow, 1)));
-                    JTextField itemField = new JTextField(String.valueOf(unifiedModel.getValueAt(selectedRow, 2)), 18);
-                    JTextField quantityField = new JTextField(String.valueOf(unifiedModel.getValueAt(selectedRow, 4)), 18);
-                    JTextField unitTypeField = new JTextField(String.valueOf(unifiedModel.getValueAt(selectedRow, 5)), 18);
-                    JTextField dateField = new JTextField(String.valueOf(unifiedModel.getValueAt(selectedRow, 7)), 18);
-                    JPanel panel = new JPanel(new GridLayout(0, 2, 6, 6));
-                    panel.setBackground(SECONDARY_COLOR);
-                    panel.add(new JLabel("Item Name:")); panel.add(itemField);
-                    panel.add(new JLabel("Unit Type:")); panel.add(unitTypeField);
-                    panel.add(new JLabel("Unit Quantity:")); panel.add(quantityField);
-                    panel.add(new JLabel("Expiration Date:")); panel.add(dateField);
-                    if (JOptionPane.showConfirmDialog(dialog, panel, "Edit Expiration", JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE) != JOptionPane.OK_OPTION) {
-                        return;
-                    }
-                    if (!quantityField.getText().trim().matches("\\d+") || !dateField.getText().trim().matches("\\d{4}-\\d{2}-\\d{2}")) {
-                        JOptionPane.showMessageDialog(dialog, "Quantity must be numeric and date must be YYYY-MM-DD.", "Validation", JOptionPane.WARNING_MESSAGE);
-                        return;
-                    }
-                    supabaseClient.updateExpirationById(session, expirationId, itemField.getText().trim(), unitTypeField.getText().trim(), Integer.parseInt(quantityField.getText().trim()), dateField.getText().trim());
-                    }
-                    case INGREDIENTS_TEXT -> {
-                    String oldProduct = String.valueOf(unifiedModel.getValueAt(selectedRow, 2));
-                    String oldItem = String.valueOf(unifiedModel.getValueAt(selectedRow, 3));
-                    String oldUnitType = String.valueOf(unifiedModel.getValueAt(selectedRow, 5));
-
-                    JTextField productField = new JTextField(oldProduct, 18);
-                    JTextField itemField = new JTextField(oldItem, 18);
-                    JTextField unitTypeField = new JTextField(oldUnitType, 18);
-                    JTextField quantityField = new JTextField(String.valueOf(unifiedModel.getValueAt(selectedRow, 4)), 18);
-                    JPanel panel = new JPanel(new GridLayout(0, 2, 6, 6));
-                    panel.setBackground(SECONDARY_COLOR);
-                    panel.add(new JLabel("Product Name:")); panel.add(productField);
-                    panel.add(new JLabel("Item Name:")); panel.add(itemField);
-                    panel.add(new JLabel("Unit Type:")); panel.add(unitTypeField);
-                    panel.add(new JLabel("Quantity Needed:")); panel.add(quantityField);
-                    if (JOptionPane.showConfirmDialog(dialog, panel, "Edit Ingredient", JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE) != JOptionPane.OK_OPTION) {
-                        return;
-                    }
-                    if (!quantityField.getText().trim().matches("\\d+")) {
-                        JOptionPane.showMessageDialog(dialog, "Quantity must be numeric.", "Validation", JOptionPane.WARNING_MESSAGE);
-                        return;
-                    }
-                    supabaseClient.deleteIngredient(session, oldProduct, oldItem, oldUnitType);
-                    supabaseClient.addOrUpdateIngredient(session, productField.getText().trim(), itemField.getText().trim(), unitTypeField.getText().trim(), Integer.parseInt(quantityField.getText().trim()));
-                    }
-                    default -> {
-                        JOptionPane.showMessageDialog(dialog, "Stock Out rows are transaction history and are not editable.", "Edit Not Allowed", JOptionPane.INFORMATION_MESSAGE);
-                        return;
-                    }
-                }
-                refreshData.run();
-            } catch (IOException | InterruptedException ex) {
-                JOptionPane.showMessageDialog(dialog, "Edit failed: " + ex.getMessage(), "Inventory Error", JOptionPane.ERROR_MESSAGE);
-            }
-        });
-
-        deleteButton.addActionListener(event -> {
-            event.getSource();
-            int selectedRow = unifiedTable.getSelectedRow();
-            if (selectedRow < 0) {
-                JOptionPane.showMessageDialog(dialog, "Select a row to delete.", "No Selection", JOptionPane.WARNING_MESSAGE);
-                return;
-            }
-
-            String module = String.valueOf(unifiedModel.getValueAt(selectedRow, 0));
-            int confirm = JOptionPane.showConfirmDialog(dialog, "Delete selected " + module + " row?", "Confirm Delete", JOptionPane.YES_NO_OPTION);
-            if (confirm != JOptionPane.YES_OPTION) {
-                return;
-            }
-
-            try {
-                switch (module) {
-                    case SUPPLIER_TEXT -> {
-                    long supplierId = Long.parseLong(String.valueOf(unifiedModel.getValueAt(selectedRow, 1)));
-                    supabaseClient.deleteSupplierById(session, supplierId);
-                    }
-                    case EXPIRATION_TEXT -> {
-                    long expirationId = Long.parseLong(String.valueOf(unifiedModel.getValueAt(selectedRow, 1)));
-                    supabaseClient.deleteExpirationById(session, expirationId);
-                    }
-                    case INGREDIENTS_TEXT -> {
-                    String productName = String.valueOf(unifiedModel.getValueAt(selectedRow, 2));
-                    String itemName = String.valueOf(unifiedModel.getValueAt(selectedRow, 3));
-                    String unitType = String.valueOf(unifiedModel.getValueAt(selectedRow, 5));
-                    supabaseClient.deleteIngredient(session, productName, itemName, unitType);
-                    }
-                    default -> {
-                        JOptionPane.showMessageDialog(dialog, "Stock Out rows are transaction history and cannot be deleted from here.", "Delete Not Allowed", JOptionPane.INFORMATION_MESSAGE);
-                        return;
-                    }
-                }
-                refreshData.run();
-            } catch (IOException | InterruptedException ex) {
-                JOptionPane.showMessageDialog(dialog, "Delete failed: " + ex.getMessage(), "Inventory Error", JOptionPane.ERROR_MESSAGE);
-            }
-        });
-
-        refreshButton.addActionListener(event -> {
-            event.getSource();
-            refreshData.run();
-        });
-        closeButton.addActionListener(event -> {
-            event.getSource();
-            dialog.dispose();
-        });
-
-        actionsPanel.add(addButton);
-        actionsPanel.add(editButton);
-        actionsPanel.add(deleteButton);
-        actionsPanel.add(refreshButton);
-        actionsPanel.add(closeButton);
-        dialog.add(actionsPanel, BorderLayout.SOUTH);
-        dialog.setSize(1100, 500);
-        dialog.setLocationRelativeTo(this);
-        dialog.setVisible(true);
-    }
-
-    private boolean useTabbedInventoryWorkspace() {
-        return true;
+        showTabbedInventoryWorkspaceDialog();
     }
 
     private JTable createWorkspaceTable(DefaultTableModel model) {
@@ -3486,6 +3720,60 @@ public class DrickSysApp extends JFrame {
         return table;
     }
 
+    private JLabel createWorkspaceLoadingLabel() {
+        JLabel label = new JLabel(" ");
+        label.setFont(MAIN_FONT);
+        label.setForeground(TEXT_COLOR);
+        label.setBorder(BorderFactory.createEmptyBorder(2, 6, 0, 6));
+        return label;
+    }
+
+    /**
+     * Builds a refresh action that fetches off the EDT and fills the table when the data arrives.
+     * A refresh issued while one is still loading supersedes it.
+     */
+    private <T> Runnable createWorkspaceLoader(
+            Component dialog,
+            DefaultTableModel model,
+            JLabel loadingLabel,
+            String noun,
+            Supplier<CompletableFuture<List<T>>> fetch,
+            Function<T, Object[]> toRow
+    ) {
+        List<CompletableFuture<List<T>>> inFlight = new ArrayList<>(1);
+        return () -> {
+            if (!isCloudConfigured()) {
+                return;
+            }
+            for (CompletableFuture<List<T>> previous : inFlight) {
+                previous.cancel(true);
+            }
+            inFlight.clear();
+            loadingLabel.setText("Loading " + noun + "...");
+            CompletableFuture<List<T>> request = fetch.get();
+            inFlight.add(request);
+            request.whenComplete((records, error) -> SwingUtilities.invokeLater(() -> {
+                if (!inFlight.remove(request)) {
+                    return;
+                }
+                if (error != null) {
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                    if (cause instanceof CancellationException) {
+                        return;
+                    }
+                    loadingLabel.setText("Could not load " + noun + ".");
+                    JOptionPane.showMessageDialog(dialog, "Failed to load " + noun + ": " + cause.getMessage(), "Inventory Error", JOptionPane.ERROR_MESSAGE);
+                    return;
+                }
+                model.setRowCount(0);
+                for (T record : records) {
+                    model.addRow(toRow.apply(record));
+                }
+                loadingLabel.setText(records.size() + " " + noun + " loaded.");
+            }));
+        };
+    }
+
     private void showTabbedInventoryWorkspaceDialog() {
         JDialog dialog = new JDialog(this, INVENTORY_HUB_TEXT, true);
         dialog.setLayout(new BorderLayout(8, 8));
@@ -3513,18 +3801,18 @@ public class DrickSysApp extends JFrame {
             }
         };
         JTable table = createWorkspaceTable(model);
-        Runnable refresh = () -> {
-            model.setRowCount(0);
-            try {
-                for (SupabaseClient.SupplierRecord supplier : supabaseClient.fetchSuppliers(session)) {
-                    model.addRow(new Object[]{supplier.getSupplierId(), supplier.getSupplierName(), supplier.getContactPerson(), supplier.getPhone(), supplier.getEmail(), supplier.getAddress(), supplier.getStatus()});
-                }
-            } catch (IOException | InterruptedException ex) {
-                JOptionPane.showMessageDialog(dialog, "Failed to load suppliers: " + ex.getMessage(), "Inventory Error", JOptionPane.ERROR_MESSAGE);
-            }
-        };
+        JLabel loadingLabel = createWorkspaceLoadingLabel();
+        Runnable refresh = createWorkspaceLoader(
+                dialog,
+                model,
+                loadingLabel,
+                "suppliers",
+                () -> supabaseClient.fetchSuppliersAsync(session),
+                supplier -> new Object[]{supplier.getSupplierId(), supplier.getSupplierName(), supplier.getContactPerson(), supplier.getPhone(), supplier.getEmail(), supplier.getAddress(), supplier.getStatus()}
+        );
         JPanel panel = new JPanel(new BorderLayout(8, 8));
         panel.setBackground(SECONDARY_COLOR);
+        panel.add(loadingLabel, BorderLayout.NORTH);
         panel.add(new JScrollPane(table), BorderLayout.CENTER);
         JPanel actions = new JPanel(new FlowLayout(FlowLayout.RIGHT));
         actions.setBackground(SECONDARY_COLOR);
@@ -3623,9 +3911,7 @@ public class DrickSysApp extends JFrame {
         actions.add(delete);
         actions.add(refreshBtn);
         panel.add(actions, BorderLayout.SOUTH);
-        if (isCloudConfigured()) {
-            SwingUtilities.invokeLater(refresh);
-        }
+        refresh.run();
         return panel;
     }
 
@@ -3638,18 +3924,18 @@ public class DrickSysApp extends JFrame {
             }
         };
         JTable table = createWorkspaceTable(model);
-        Runnable refresh = () -> {
-            model.setRowCount(0);
-            try {
-                for (SupabaseClient.ExpirationRecord expiration : supabaseClient.fetchExpirations(session)) {
-                    model.addRow(new Object[]{expiration.getExpirationId(), expiration.getItemName(), expiration.getUnitType(), expiration.getUnitQuantity(), expiration.getExpirationDate()});
-                }
-            } catch (IOException | InterruptedException ex) {
-                JOptionPane.showMessageDialog(dialog, "Failed to load expirations: " + ex.getMessage(), "Inventory Error", JOptionPane.ERROR_MESSAGE);
-            }
-        };
+        JLabel loadingLabel = createWorkspaceLoadingLabel();
+        Runnable refresh = createWorkspaceLoader(
+                dialog,
+                model,
+                loadingLabel,
+                "expirations",
+                () -> supabaseClient.fetchExpirationsAsync(session),
+                expiration -> new Object[]{expiration.getExpirationId(), expiration.getItemName(), expiration.getUnitType(), expiration.getUnitQuantity(), expiration.getExpirationDate()}
+        );
         JPanel panel = new JPanel(new BorderLayout(8, 8));
         panel.setBackground(SECONDARY_COLOR);
+        panel.add(loadingLabel, BorderLayout.NORTH);
         panel.add(new JScrollPane(table), BorderLayout.CENTER);
         JPanel actions = new JPanel(new FlowLayout(FlowLayout.RIGHT));
         actions.setBackground(SECONDARY_COLOR);
@@ -3748,9 +4034,7 @@ public class DrickSysApp extends JFrame {
         actions.add(delete);
         actions.add(refreshBtn);
         panel.add(actions, BorderLayout.SOUTH);
-        if (isCloudConfigured()) {
-            SwingUtilities.invokeLater(refresh);
-        }
+        refresh.run();
         return panel;
     }
 
@@ -3763,18 +4047,18 @@ public class DrickSysApp extends JFrame {
             }
         };
         JTable table = createWorkspaceTable(model);
-        Runnable refresh = () -> {
-            model.setRowCount(0);
-            try {
-                for (SupabaseClient.IngredientRecord ingredient : supabaseClient.fetchIngredients(session)) {
-                    model.addRow(new Object[]{ingredient.getProductName(), ingredient.getItemName(), ingredient.getUnitType(), ingredient.getQuantityNeeded()});
-                }
-            } catch (IOException | InterruptedException ex) {
-                JOptionPane.showMessageDialog(dialog, "Failed to load ingredients: " + ex.getMessage(), "Inventory Error", JOptionPane.ERROR_MESSAGE);
-            }
-        };
+        JLabel loadingLabel = createWorkspaceLoadingLabel();
+        Runnable refresh = createWorkspaceLoader(
+                dialog,
+                model,
+                loadingLabel,
+                "ingredients",
+                () -> supabaseClient.fetchIngredientsAsync(session),
+                ingredient -> new Object[]{ingredient.getProductName(), ingredient.getItemName(), ingredient.getUnitType(), ingredient.getQuantityNeeded()}
+        );
         JPanel panel = new JPanel(new BorderLayout(8, 8));
         panel.setBackground(SECONDARY_COLOR);
+        panel.add(loadingLabel, BorderLayout.NORTH);
         panel.add(new JScrollPane(table), BorderLayout.CENTER);
         JPanel actions = new JPanel(new FlowLayout(FlowLayout.RIGHT));
         actions.setBackground(SECONDARY_COLOR);
@@ -3875,9 +4159,7 @@ public class DrickSysApp extends JFrame {
         actions.add(delete);
         actions.add(refreshBtn);
         panel.add(actions, BorderLayout.SOUTH);
-        if (isCloudConfigured()) {
-            SwingUtilities.invokeLater(refresh);
-        }
+        refresh.run();
         return panel;
     }
 
@@ -3890,18 +4172,18 @@ public class DrickSysApp extends JFrame {
             }
         };
         JTable table = createWorkspaceTable(model);
-        Runnable refresh = () -> {
-            model.setRowCount(0);
-            try {
-                for (SupabaseClient.StockOutItemRecord record : supabaseClient.fetchStockOutItems(session)) {
-                    model.addRow(new Object[]{record.getStockoutItemId(), record.getStockoutDate(), record.getReason(), record.getItemName(), record.getQuantity(), record.getCost()});
-                }
-            } catch (IOException | InterruptedException ex) {
-                JOptionPane.showMessageDialog(dialog, "Failed to load stock out records: " + ex.getMessage(), "Inventory Error", JOptionPane.ERROR_MESSAGE);
-            }
-        };
+        JLabel loadingLabel = createWorkspaceLoadingLabel();
+        Runnable refresh = createWorkspaceLoader(
+                dialog,
+                model,
+                loadingLabel,
+                "stock out records",
+                () -> supabaseClient.fetchStockOutItemsAsync(session),
+                record -> new Object[]{record.getStockoutItemId(), record.getStockoutDate(), record.getReason(), record.getItemName(), record.getQuantity(), record.getCost()}
+        );
         JPanel panel = new JPanel(new BorderLayout(8, 8));
         panel.setBackground(SECONDARY_COLOR);
+        panel.add(loadingLabel, BorderLayout.NORTH);
         panel.add(new JScrollPane(table), BorderLayout.CENTER);
         JPanel actions = new JPanel(new FlowLayout(FlowLayout.RIGHT));
         actions.setBackground(SECONDARY_COLOR);
@@ -3936,7 +4218,7 @@ public class DrickSysApp extends JFrame {
                 return;
             }
             try {
-                supabaseClient.recordItemStockOut(session, item.getText().trim(), Integer.parseInt(qty.getText().trim()), parsedCost, reason.getText().trim());
+                supabaseClient.recordItemStockOutAtomic(session, item.getText().trim(), Integer.parseInt(qty.getText().trim()), parsedCost, reason.getText().trim());
                 refresh.run();
                 loadInventory();
                 updateTotalQuantity();
@@ -3953,16 +4235,19 @@ public class DrickSysApp extends JFrame {
         actions.add(record);
         actions.add(refreshBtn);
         panel.add(actions, BorderLayout.SOUTH);
-        if (isCloudConfigured()) {
-            SwingUtilities.invokeLater(refresh);
-        }
+        refresh.run();
         return panel;
     }
 
 
     private void logout() {
         persistAllData();
+        shutdownTextBackups();
+        persistenceScheduler.shutdown();
+        localStore.shutdown();
+        cloudOutbox.shutdown();
         logActionSafe("logout", "User logged out.");
+        activityLogger.close();
         try {
             new SupabaseSessionStore().clear();
         } catch (IOException ignored) {
@@ -3984,7 +4269,7 @@ public class DrickSysApp extends JFrame {
     private void logActionSafe(String actionType, String details) {
         appendLocalActionLog(actionType, details);
         if (isCloudReady()) {
-            executorService.submit(() -> {
+            runInBackground(LANE_ACTIVITY_LOG, () -> {
                 try {
                     supabaseClient.logAction(session, actionType, details);
                 } catch (IOException | InterruptedException ignored) {
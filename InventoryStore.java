@@ -0,0 +1,415 @@
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * The live inventory, keyed by normalized item name. Quantities are atomic counters, so any thread
+ * can look up an item or adjust its stock; adding, editing and removing items must stay on the
+ * EDT. Items are edited in place, so a reference held by another thread never goes stale. Rows
+ * keep the order items were added in, for the table view.
+ */
+public class InventoryStore {
+    public static final class Item {
+        private final AtomicInteger quantity;
+        private volatile String name;
+        private volatile String category;
+        private volatile String dateAdded;
+        private volatile String dateUpdated;
+        private volatile int row = -1;
+
+        private Item(String name, String category, int quantity, String dateAdded, String dateUpdated) {
+            this.name = name;
+            this.category = category;
+            this.quantity = new AtomicInteger(quantity);
+            this.dateAdded = dateAdded;
+            this.dateUpdated = dateUpdated;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getCategory() {
+            return category;
+        }
+
+        public int getQuantity() {
+            return quantity.get();
+        }
+
+        public String getDateAdded() {
+            return dateAdded;
+        }
+
+        public String getDateUpdated() {
+            return dateUpdated;
+        }
+
+        /**
+         * Current row in the store, or -1 once removed.
+         */
+        public int getRow() {
+            return row;
+        }
+    }
+
+    /**
+     * Row events for views. Structural events arrive on the EDT; {@link #quantityChanged} may arrive
+     * on any thread.
+     */
+    public interface Listener {
+        void rowsInserted(int firstRow, int lastRow);
+
+        void rowsUpdated(int firstRow, int lastRow);
+
+        void rowsDeleted(int firstRow, int lastRow);
+
+        void allRowsChanged();
+
+        void quantityChanged(Item item);
+    }
+
+    public static final class MergeResult {
+        private final int inserted;
+        private final int updated;
+        private final int removed;
+
+        private MergeResult(int inserted, int updated, int removed) {
+            this.inserted = inserted;
+            this.updated = updated;
+            this.removed = removed;
+        }
+
+        public int getInserted() {
+            return inserted;
+        }
+
+        public int getUpdated() {
+            return updated;
+        }
+
+        public int getRemoved() {
+            return removed;
+        }
+
+        public boolean hasChanges() {
+            return inserted > 0 || updated > 0 || removed > 0;
+        }
+    }
+
+    private final Function<String, String> normalizeKey;
+    private final Map<String, Item> byKey = new ConcurrentHashMap<>();
+    private final List<Item> rows = new ArrayList<>();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    public InventoryStore(Function<String, String> normalizeKey) {
+        this.normalizeKey = normalizeKey;
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public Item get(String name) {
+        return byKey.get(normalizeKey.apply(name));
+    }
+
+    public boolean contains(String name) {
+        return byKey.containsKey(normalizeKey.apply(name));
+    }
+
+    /**
+     * @return the item's row, or -1 if there is no such item
+     */
+    public int rowOf(String name) {
+        Item item = get(name);
+        return item == null ? -1 : item.row;
+    }
+
+    public Item rowAt(int row) {
+        return rows.get(row);
+    }
+
+    public int size() {
+        return rows.size();
+    }
+
+    /**
+     * Appends a new item.
+     *
+     * @return the item, or null if one with the same normalized name already exists
+     */
+    public Item add(String name, String category, int quantity, String dateAdded, String dateUpdated) {
+        Item item = new Item(name, category, quantity, dateAdded, dateUpdated);
+        if (byKey.putIfAbsent(normalizeKey.apply(name), item) != null) {
+            return null;
+        }
+        item.row = rows.size();
+        rows.add(item);
+        for (Listener listener : listeners) {
+            listener.rowsInserted(item.row, item.row);
+        }
+        return item;
+    }
+
+    /**
+     * Edits the item at {@code row}, renaming it if {@code name} differs; the row stays put.
+     *
+     * @return the item, or null if the new name belongs to a different item
+     */
+    public Item update(int row, String name, String category, int quantity, String dateUpdated) {
+        Item item = rows.get(row);
+        String key = normalizeKey.apply(name);
+        Item clash = byKey.get(key);
+        if (clash != null && clash != item) {
+            return null;
+        }
+        byKey.remove(normalizeKey.apply(item.name), item);
+        item.name = name;
+        byKey.put(key, item);
+        item.category = category;
+        item.quantity.set(quantity);
+        item.dateUpdated = dateUpdated;
+        fireRowsUpdated(row, row);
+        return item;
+    }
+
+    public Item remove(int row) {
+        Item item = rows.remove(row);
+        byKey.remove(normalizeKey.apply(item.name), item);
+        item.row = -1;
+        renumberFrom(row);
+        for (Listener listener : listeners) {
+            listener.rowsDeleted(row, row);
+        }
+        return item;
+    }
+
+    /**
+     * Replaces every item with {@code loaded} ({name, category, quantity, dateAdded, dateUpdated}
+     * rows) and sends a single change event, not one per row. Later duplicates of a name are dropped.
+     */
+    public void load(Collection<Object[]> loaded) {
+        clearRows();
+        for (Object[] values : loaded) {
+            Item item = itemFrom(values);
+            if (byKey.putIfAbsent(normalizeKey.apply(item.name), item) == null) {
+                item.row = rows.size();
+                rows.add(item);
+            }
+        }
+        for (Listener listener : listeners) {
+            listener.allRowsChanged();
+        }
+    }
+
+    /**
+     * Adds {@code delta} to the item's quantity unless that would take it below zero.
+     *
+     * @return false if the item is missing or does not have enough stock
+     */
+    public boolean adjustQuantity(String name, int delta, String dateUpdated) {
+        Item item = get(name);
+        if (item == null || !tryAdd(item, delta)) {
+            return false;
+        }
+        item.dateUpdated = dateUpdated;
+        fireQuantityChanged(item);
+        return true;
+    }
+
+    /**
+     * Takes every amount in {@code usage} (item name to units) out of stock, or nothing if any
+     * item is missing or short. Safe to race with other adjustments: a decrement that fails rolls
+     * back the ones already applied.
+     *
+     * @return the names that could not be covered; empty when the stock was taken
+     */
+    public List<String> consumeAll(Map<String, Integer> usage, String dateUpdated) {
+        List<Item> taken = new ArrayList<>(usage.size());
+        List<Integer> amounts = new ArrayList<>(usage.size());
+        List<String> missing = new ArrayList<>();
+        for (Map.Entry<String, Integer> entry : usage.entrySet()) {
+            Item item = get(entry.getKey());
+            if (item == null || !tryAdd(item, -entry.getValue())) {
+                missing.add(entry.getKey());
+                continue;
+            }
+            taken.add(item);
+            amounts.add(entry.getValue());
+        }
+        if (!missing.isEmpty()) {
+            for (int i = 0; i < taken.size(); i++) {
+                taken.get(i).quantity.addAndGet(amounts.get(i));
+            }
+            return missing;
+        }
+        for (Item item : taken) {
+            item.dateUpdated = dateUpdated;
+            fireQuantityChanged(item);
+        }
+        return missing;
+    }
+
+    /**
+     * Brings the store in line with {@code records} by key, touching only items that differ.
+     * Existing items keep their rows, removed ones are deleted and new ones appended, each as
+     * contiguous range events so the table's selection and sorting survive a refresh.
+     *
+     * @param toRow builds {name, category, quantity, dateAdded, dateUpdated}; gets the current item or null
+     */
+    public <T> MergeResult merge(List<T> records, Function<T, String> recordName, BiFunction<T, Item, Object[]> toRow) {
+        Map<String, T> targets = new HashMap<>();
+        for (T record : records) {
+            targets.putIfAbsent(normalizeKey.apply(recordName.apply(record)), record);
+        }
+
+        int removed = 0;
+        int rangeEnd = -1;
+        for (int i = rows.size() - 1; i >= -1; i--) {
+            boolean removeRow = i >= 0 && !targets.containsKey(normalizeKey.apply(rows.get(i).name));
+            if (removeRow && rangeEnd < 0) {
+                rangeEnd = i;
+            } else if (!removeRow && rangeEnd >= 0) {
+                int rangeStart = i + 1;
+                for (Item item : rows.subList(rangeStart, rangeEnd + 1)) {
+                    byKey.remove(normalizeKey.apply(item.name), item);
+                    item.row = -1;
+                }
+                rows.subList(rangeStart, rangeEnd + 1).clear();
+                renumberFrom(rangeStart);
+                for (Listener listener : listeners) {
+                    listener.rowsDeleted(rangeStart, rangeEnd);
+                }
+                removed += rangeEnd - rangeStart + 1;
+                rangeEnd = -1;
+            }
+        }
+
+        Set<String> kept = new HashSet<>();
+        int updated = 0;
+        int updateStart = -1;
+        for (int i = 0; i <= rows.size(); i++) {
+            boolean changed = false;
+            if (i < rows.size()) {
+                Item current = rows.get(i);
+                String key = normalizeKey.apply(current.name);
+                kept.add(key);
+                changed = assign(current, itemFrom(toRow.apply(targets.get(key), current)));
+            }
+            if (changed && updateStart < 0) {
+                updateStart = i;
+            } else if (!changed && updateStart >= 0) {
+                fireRowsUpdated(updateStart, i - 1);
+                updated += i - updateStart;
+                updateStart = -1;
+            }
+        }
+
+        int firstInserted = rows.size();
+        for (T record : records) {
+            String key = normalizeKey.apply(recordName.apply(record));
+            if (kept.add(key)) {
+                Item item = itemFrom(toRow.apply(record, null));
+                item.row = rows.size();
+                rows.add(item);
+                byKey.put(key, item);
+            }
+        }
+        int inserted = rows.size() - firstInserted;
+        if (inserted > 0) {
+            for (Listener listener : listeners) {
+                listener.rowsInserted(firstInserted, rows.size() - 1);
+            }
+        }
+        return new MergeResult(inserted, updated, removed);
+    }
+
+    private static boolean tryAdd(Item item, int delta) {
+        while (true) {
+            int current = item.quantity.get();
+            int next = current + delta;
+            if (next < 0) {
+                return false;
+            }
+            if (item.quantity.compareAndSet(current, next)) {
+                return true;
+            }
+        }
+    }
+
+    private void clearRows() {
+        for (Item item : rows) {
+            item.row = -1;
+        }
+        rows.clear();
+        byKey.clear();
+    }
+
+    private void renumberFrom(int firstRow) {
+        for (int i = firstRow; i < rows.size(); i++) {
+            rows.get(i).row = i;
+        }
+    }
+
+    private void fireRowsUpdated(int firstRow, int lastRow) {
+        for (Listener listener : listeners) {
+            listener.rowsUpdated(firstRow, lastRow);
+        }
+    }
+
+    private void fireQuantityChanged(Item item) {
+        for (Listener listener : listeners) {
+            listener.quantityChanged(item);
+        }
+    }
+
+    private static Item itemFrom(Object[] values) {
+        return new Item(
+                String.valueOf(values[0]),
+                String.valueOf(values[1]),
+                ((Number) values[2]).intValue(),
+                String.valueOf(values[3]),
+                String.valueOf(values[4])
+        );
+    }
+
+    /**
+     * Copies {@code source}'s values into {@code target}; the normalized name must match.
+     *
+     * @return whether anything changed
+     */
+    private static boolean assign(Item target, Item source) {
+        boolean changed = false;
+        if (!target.name.equals(source.name)) {
+            target.name = source.name;
+            changed = true;
+        }
+        if (!Objects.equals(target.category, source.category)) {
+            target.category = source.category;
+            changed = true;
+        }
+        if (target.quantity.getAndSet(source.getQuantity()) != source.getQuantity()) {
+            changed = true;
+        }
+        if (!Objects.equals(target.dateAdded, source.dateAdded)) {
+            target.dateAdded = source.dateAdded;
+            changed = true;
+        }
+        if (!Objects.equals(target.dateUpdated, source.dateUpdated)) {
+            target.dateUpdated = source.dateUpdated;
+            changed = true;
+        }
+        return changed;
+    }
+}
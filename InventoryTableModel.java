@@ -0,0 +1,199 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.swing.SwingUtilities;
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * Read-only table view over an {@link InventoryStore}. The columns the table reads on every paint
+ * are kept in parallel arrays: names, interned category ids, primitive quantities and precomputed
+ * low-stock flags, along with a running quantity total. They are patched from the store's row
+ * events on the EDT, and a bulk load rebuilds them with a single table event.
+ */
+public final class InventoryTableModel extends AbstractTableModel implements InventoryStore.Listener {
+    public static final int COLUMN_NAME = 0;
+    public static final int COLUMN_CATEGORY = 1;
+    public static final int COLUMN_QUANTITY = 2;
+    public static final int COLUMN_DATE_ADDED = 3;
+    public static final int COLUMN_DATE_UPDATED = 4;
+
+    private static final long serialVersionUID = 1L;
+    private static final String[] COLUMN_NAMES = {"Item Name", "Category", "Quantity", "Date Added", "Date Updated"};
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final transient InventoryStore store;
+    private final int lowStockThreshold;
+    private final transient List<String> categories = new ArrayList<>();
+    private final transient Map<String, Integer> categoryIds = new HashMap<>();
+    private String[] names = new String[INITIAL_CAPACITY];
+    private int[] categoryOf = new int[INITIAL_CAPACITY];
+    private int[] quantities = new int[INITIAL_CAPACITY];
+    private boolean[] lowStock = new boolean[INITIAL_CAPACITY];
+    private int size;
+    private long totalQuantity;
+
+    /**
+     * @param lowStockThreshold quantities below this are flagged as low stock
+     */
+    public InventoryTableModel(InventoryStore store, int lowStockThreshold) {
+        this.store = store;
+        this.lowStockThreshold = lowStockThreshold;
+        store.addListener(this);
+        rebuild();
+    }
+
+    @Override
+    public int getRowCount() {
+        return size;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMN_NAMES.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMN_NAMES[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return column == COLUMN_QUANTITY ? Integer.class : String.class;
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        return switch (column) {
+            case COLUMN_NAME -> names[row];
+            case COLUMN_CATEGORY -> categories.get(categoryOf[row]);
+            case COLUMN_QUANTITY -> quantities[row];
+            case COLUMN_DATE_ADDED -> store.rowAt(row).getDateAdded();
+            case COLUMN_DATE_UPDATED -> store.rowAt(row).getDateUpdated();
+            default -> throw new IndexOutOfBoundsException("No inventory column " + column);
+        };
+    }
+
+    public int getQuantityAt(int row) {
+        return quantities[row];
+    }
+
+    public boolean isLowStock(int row) {
+        return lowStock[row];
+    }
+
+    public long getTotalQuantity() {
+        return totalQuantity;
+    }
+
+    @Override
+    public void rowsInserted(int firstRow, int lastRow) {
+        int count = lastRow - firstRow + 1;
+        ensureCapacity(size + count);
+        if (firstRow < size) {
+            shift(firstRow, firstRow + count, size - firstRow);
+        }
+        size += count;
+        for (int row = firstRow; row <= lastRow; row++) {
+            quantities[row] = 0;
+            copyRow(row);
+        }
+        fireTableRowsInserted(firstRow, lastRow);
+    }
+
+    @Override
+    public void rowsUpdated(int firstRow, int lastRow) {
+        for (int row = firstRow; row <= lastRow; row++) {
+            copyRow(row);
+        }
+        fireTableRowsUpdated(firstRow, lastRow);
+    }
+
+    @Override
+    public void rowsDeleted(int firstRow, int lastRow) {
+        int count = lastRow - firstRow + 1;
+        for (int row = firstRow; row <= lastRow; row++) {
+            totalQuantity -= quantities[row];
+        }
+        shift(lastRow + 1, firstRow, size - lastRow - 1);
+        size -= count;
+        Arrays.fill(names, size, size + count, null);
+        fireTableRowsDeleted(firstRow, lastRow);
+    }
+
+    @Override
+    public void allRowsChanged() {
+        rebuild();
+        fireTableDataChanged();
+    }
+
+    @Override
+    public void quantityChanged(InventoryStore.Item item) {
+        if (!SwingUtilities.isEventDispatchThread()) {
+            SwingUtilities.invokeLater(() -> quantityChanged(item));
+            return;
+        }
+        // Read the row now, on the EDT; the item may have moved or been removed since the change.
+        int row = item.getRow();
+        if (row >= 0 && row < size) {
+            setQuantity(row, item.getQuantity());
+            fireTableRowsUpdated(row, row);
+        }
+    }
+
+    private void rebuild() {
+        Arrays.fill(names, 0, size, null);
+        categories.clear();
+        categoryIds.clear();
+        size = store.size();
+        totalQuantity = 0;
+        ensureCapacity(size);
+        for (int row = 0; row < size; row++) {
+            quantities[row] = 0;
+            copyRow(row);
+        }
+    }
+
+    private void copyRow(int row) {
+        InventoryStore.Item item = store.rowAt(row);
+        names[row] = item.getName();
+        categoryOf[row] = categoryId(item.getCategory());
+        setQuantity(row, item.getQuantity());
+    }
+
+    private void setQuantity(int row, int quantity) {
+        totalQuantity += quantity - quantities[row];
+        quantities[row] = quantity;
+        lowStock[row] = quantity < lowStockThreshold;
+    }
+
+    private int categoryId(String category) {
+        Integer id = categoryIds.get(category);
+        if (id == null) {
+            id = categories.size();
+            categories.add(category);
+            categoryIds.put(category, id);
+        }
+        return id;
+    }
+
+    private void shift(int from, int to, int length) {
+        System.arraycopy(names, from, names, to, length);
+        System.arraycopy(categoryOf, from, categoryOf, to, length);
+        System.arraycopy(quantities, from, quantities, to, length);
+        System.arraycopy(lowStock, from, lowStock, to, length);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= names.length) {
+            return;
+        }
+        int grown = Math.max(capacity, names.length + (names.length >> 1));
+        names = Arrays.copyOf(names, grown);
+        categoryOf = Arrays.copyOf(categoryOf, grown);
+        quantities = Arrays.copyOf(quantities, grown);
+        lowStock = Arrays.copyOf(lowStock, grown);
+    }
+}
@@ -0,0 +1,258 @@
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.function.Consumer;
+
+public final class JsonBodyWriter implements AutoCloseable {
+    private static final int POOL_SIZE = 8;
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int MAX_POOLED_CAPACITY = 1 << 20;
+    private static final byte[] HEX = "0123456789abcdef".getBytes();
+    private static final ArrayBlockingQueue<JsonBodyWriter> POOL = new ArrayBlockingQueue<>(POOL_SIZE);
+
+    private byte[] buffer = new byte[INITIAL_CAPACITY];
+    private int count;
+    private boolean[] firstInScope = new boolean[16];
+    private int depth;
+    private boolean afterName;
+    private boolean released;
+
+    private JsonBodyWriter() {
+    }
+
+    public static JsonBodyWriter acquire() {
+        JsonBodyWriter writer = POOL.poll();
+        if (writer == null) {
+            writer = new JsonBodyWriter();
+        }
+        writer.reset();
+        return writer;
+    }
+
+    public static byte[] write(Consumer<JsonBodyWriter> body) {
+        try (JsonBodyWriter writer = acquire()) {
+            body.accept(writer);
+            return writer.toByteArray();
+        }
+    }
+
+    public JsonBodyWriter beginObject() {
+        beforeValue();
+        writeByte('{');
+        push();
+        return this;
+    }
+
+    public JsonBodyWriter endObject() {
+        depth--;
+        writeByte('}');
+        return this;
+    }
+
+    public JsonBodyWriter beginArray() {
+        beforeValue();
+        writeByte('[');
+        push();
+        return this;
+    }
+
+    public JsonBodyWriter endArray() {
+        depth--;
+        writeByte(']');
+        return this;
+    }
+
+    public JsonBodyWriter name(String name) {
+        if (!firstInScope[depth]) {
+            writeByte(',');
+        }
+        firstInScope[depth] = false;
+        writeString(name);
+        writeByte(':');
+        afterName = true;
+        return this;
+    }
+
+    public JsonBodyWriter value(String value) {
+        beforeValue();
+        if (value == null) {
+            writeAscii("null");
+        } else {
+            writeString(value);
+        }
+        return this;
+    }
+
+    public JsonBodyWriter value(long value) {
+        beforeValue();
+        writeLong(value);
+        return this;
+    }
+
+    public JsonBodyWriter value(boolean value) {
+        beforeValue();
+        writeAscii(value ? "true" : "false");
+        return this;
+    }
+
+    /**
+     * Writes a numeric(12,2) value: rounded half-up to exactly two decimal places.
+     */
+    public JsonBodyWriter decimal(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            throw new IllegalArgumentException("Not a finite decimal: " + value);
+        }
+        return decimal(BigDecimal.valueOf(value));
+    }
+
+    public JsonBodyWriter decimal(BigDecimal value) {
+        beforeValue();
+        long cents = value.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+        if (cents < 0) {
+            writeByte('-');
+            cents = -cents;
+        }
+        writeLong(cents / 100);
+        writeByte('.');
+        writeByte('0' + (int) (cents % 100 / 10));
+        writeByte('0' + (int) (cents % 10));
+        return this;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buffer, count);
+    }
+
+    @Override
+    public void close() {
+        if (released) {
+            return;
+        }
+        released = true;
+        if (buffer.length <= MAX_POOLED_CAPACITY) {
+            POOL.offer(this);
+        }
+    }
+
+    private void reset() {
+        released = false;
+        count = 0;
+        depth = 0;
+        afterName = false;
+        firstInScope[0] = true;
+    }
+
+    private void push() {
+        depth++;
+        if (depth == firstInScope.length) {
+            firstInScope = Arrays.copyOf(firstInScope, depth * 2);
+        }
+        firstInScope[depth] = true;
+    }
+
+    private void beforeValue() {
+        if (afterName) {
+            afterName = false;
+            return;
+        }
+        if (!firstInScope[depth]) {
+            writeByte(',');
+        }
+        firstInScope[depth] = false;
+    }
+
+    private void writeString(String value) {
+        int length = value.length();
+        ensureCapacity(length * 6 + 2);
+        byte[] out = buffer;
+        int n = count;
+        out[n++] = '"';
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                out[n++] = '\\';
+                out[n++] = (byte) c;
+            } else if (c < 0x20) {
+                out[n++] = '\\';
+                switch (c) {
+                    case '\n' -> out[n++] = 'n';
+                    case '\r' -> out[n++] = 'r';
+                    case '\t' -> out[n++] = 't';
+                    case '\b' -> out[n++] = 'b';
+                    case '\f' -> out[n++] = 'f';
+                    default -> {
+                        out[n++] = 'u';
+                        out[n++] = '0';
+                        out[n++] = '0';
+                        out[n++] = HEX[c >> 4];
+                        out[n++] = HEX[c & 0xF];
+                    }
+                }
+            } else if (c < 0x80) {
+                out[n++] = (byte) c;
+            } else if (c < 0x800) {
+                out[n++] = (byte) (0xC0 | (c >> 6));
+                out[n++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                out[n++] = (byte) (0xF0 | (codePoint >> 18));
+                out[n++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                out[n++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                out[n++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                out[n++] = '?';
+            } else {
+                out[n++] = (byte) (0xE0 | (c >> 12));
+                out[n++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                out[n++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        out[n++] = '"';
+        count = n;
+    }
+
+    private void writeLong(long value) {
+        if (value == Long.MIN_VALUE) {
+            writeAscii(Long.toString(value));
+            return;
+        }
+        ensureCapacity(20);
+        if (value < 0) {
+            buffer[count++] = '-';
+            value = -value;
+        }
+        int digits = 1;
+        for (long remaining = value / 10; remaining > 0; remaining /= 10) {
+            digits++;
+        }
+        int end = count + digits;
+        for (int i = end - 1; i >= count; i--) {
+            buffer[i] = (byte) ('0' + (value % 10));
+            value /= 10;
+        }
+        count = end;
+    }
+
+    private void writeAscii(String value) {
+        ensureCapacity(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            buffer[count++] = (byte) value.charAt(i);
+        }
+    }
+
+    private void writeByte(int b) {
+        ensureCapacity(1);
+        buffer[count++] = (byte) b;
+    }
+
+    private void ensureCapacity(int extra) {
+        if (count + extra > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, count + extra));
+        }
+    }
+}
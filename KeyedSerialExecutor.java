@@ -0,0 +1,109 @@
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Runs tasks on virtual threads, one lane per key: tasks sharing a key run in submission
+ * order, tasks with different keys run in parallel. Each lane holds at most
+ * {@code maxQueuedPerKey} waiting tasks; submissions beyond that are rejected rather than
+ * letting a stalled lane grow without bound.
+ */
+public class KeyedSerialExecutor {
+    private static final class Lane {
+        private final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+        private boolean running;
+    }
+
+    private final String threadNamePrefix;
+    private final int maxQueuedPerKey;
+    private final Map<String, Lane> lanes = new HashMap<>();
+
+    public KeyedSerialExecutor(String threadNamePrefix, int maxQueuedPerKey) {
+        this.threadNamePrefix = threadNamePrefix;
+        this.maxQueuedPerKey = Math.max(1, maxQueuedPerKey);
+    }
+
+    /**
+     * Queues the task behind earlier tasks for the same key.
+     *
+     * @throws RejectedExecutionException when the key already has {@code maxQueuedPerKey} tasks waiting
+     */
+    public CompletableFuture<Void> submit(String key, Runnable task) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        Runnable wrapped = () -> {
+            if (future.isDone()) {
+                return;
+            }
+            try {
+                task.run();
+                future.complete(null);
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        };
+
+        Lane lane;
+        boolean start = false;
+        synchronized (lanes) {
+            lane = lanes.computeIfAbsent(key, ignored -> new Lane());
+            if (lane.tasks.size() >= maxQueuedPerKey) {
+                throw new RejectedExecutionException("Background queue full for " + key + " (" + maxQueuedPerKey + " waiting)");
+            }
+            lane.tasks.add(wrapped);
+            if (!lane.running) {
+                lane.running = true;
+                start = true;
+            }
+        }
+        if (start) {
+            Lane startedLane = lane;
+            Thread.ofVirtual().name(threadNamePrefix + "-" + key).start(() -> runLane(key, startedLane));
+        }
+        return future;
+    }
+
+    /**
+     * An {@link Executor} view that routes every task to the given key's lane.
+     */
+    public Executor forKey(String key) {
+        return task -> submit(key, task);
+    }
+
+    /**
+     * Number of tasks waiting (not yet started) for the key.
+     */
+    public int queueDepth(String key) {
+        synchronized (lanes) {
+            Lane lane = lanes.get(key);
+            return lane == null ? 0 : lane.tasks.size();
+        }
+    }
+
+    public int queueDepth() {
+        synchronized (lanes) {
+            int depth = 0;
+            for (Lane lane : lanes.values()) {
+                depth += lane.tasks.size();
+            }
+            return depth;
+        }
+    }
+
+    private void runLane(String key, Lane lane) {
+        while (true) {
+            Runnable next;
+            synchronized (lanes) {
+                next = lane.tasks.poll();
+                if (next == null) {
+                    lane.running = false;
+                    lanes.remove(key);
+                    return;
+                }
+            }
+            next.run();
+        }
+    }
+}
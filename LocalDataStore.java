@@ -0,0 +1,224 @@
+import java.io.BufferedReader;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Replaces a set of local data files as one transaction: every file is written to a temp copy and
+ * fsync'd, a commit manifest naming them is fsync'd, and only then are the temps renamed over the
+ * originals. {@link #recover()} finishes a commit whose manifest made it to disk and discards one
+ * that did not, so a crash never leaves the files mixed between two saves.
+ * <p>
+ * Writes submitted within {@code groupCommitWindowMs} of each other are merged (latest content
+ * per file wins) into a single transaction on the "local-store" thread.
+ */
+public class LocalDataStore {
+    private static final Logger LOGGER = Logger.getLogger(LocalDataStore.class.getName());
+    private static final String MANIFEST_FILE = "local_store.commit";
+    private static final String TEMP_SUFFIX = ".commit-tmp";
+    private static final String MANIFEST_END = "END";
+
+    private final Path directory;
+    private final long groupCommitWindowMs;
+    private final ScheduledExecutorService committer;
+    private final Map<String, byte[]> staged = new LinkedHashMap<>();
+    private final List<CompletableFuture<Void>> waiting = new ArrayList<>();
+    private boolean commitScheduled;
+
+    public LocalDataStore(Path directory, long groupCommitWindowMs) {
+        this.directory = directory;
+        this.groupCommitWindowMs = Math.max(0, groupCommitWindowMs);
+        this.committer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "local-store");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Rolls an interrupted commit forward if its manifest is complete, otherwise back. Call before
+     * reading any of the store's files.
+     */
+    public synchronized void recover() throws IOException {
+        Path manifest = directory.resolve(MANIFEST_FILE);
+        if (Files.exists(manifest)) {
+            List<String> names = readManifest(manifest);
+            if (names != null) {
+                for (String name : names) {
+                    Path temp = tempPath(name);
+                    if (Files.exists(temp)) {
+                        Files.move(temp, directory.resolve(name), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                    }
+                }
+                LOGGER.info("Completed interrupted local data commit of " + names);
+            }
+            syncDirectory();
+            Files.delete(manifest);
+        }
+
+        try (DirectoryStream<Path> temps = Files.newDirectoryStream(directory, "*" + TEMP_SUFFIX)) {
+            for (Path temp : temps) {
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+
+    /**
+     * Queues the files for the next group commit.
+     *
+     * @return completes once the files are durable, or exceptionally if the commit failed
+     */
+    public CompletableFuture<Void> write(Map<String, byte[]> files) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        synchronized (this) {
+            if (committer.isShutdown()) {
+                done.completeExceptionally(new IOException("Local data store is closed"));
+                return done;
+            }
+            staged.putAll(files);
+            waiting.add(done);
+            if (!commitScheduled) {
+                commitScheduled = true;
+                committer.schedule(this::commitStaged, groupCommitWindowMs, TimeUnit.MILLISECONDS);
+            }
+        }
+        return done;
+    }
+
+    /**
+     * Queues the files and waits until they, and anything merged with them, are durable.
+     */
+    public void commit(Map<String, byte[]> files) throws IOException {
+        try {
+            write(files).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for local data commit");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException ioException) {
+                throw ioException;
+            }
+            throw new IOException("Local data commit failed", cause);
+        }
+    }
+
+    /**
+     * Commits anything still queued, then stops the commit thread.
+     */
+    public void shutdown() {
+        committer.shutdown();
+        try {
+            if (!committer.awaitTermination(10, TimeUnit.SECONDS)) {
+                LOGGER.warning("Timed out waiting for local data commit to finish");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void commitStaged() {
+        Map<String, byte[]> batch;
+        List<CompletableFuture<Void>> batchWaiting;
+        synchronized (this) {
+            batch = new LinkedHashMap<>(staged);
+            batchWaiting = new ArrayList<>(waiting);
+            staged.clear();
+            waiting.clear();
+            commitScheduled = false;
+        }
+
+        try {
+            commitTransaction(batch);
+            for (CompletableFuture<Void> done : batchWaiting) {
+                done.complete(null);
+            }
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Local data commit failed for " + batch.keySet(), e);
+            for (CompletableFuture<Void> done : batchWaiting) {
+                done.completeExceptionally(e);
+            }
+        }
+    }
+
+    private synchronized void commitTransaction(Map<String, byte[]> files) throws IOException {
+        if (files.isEmpty()) {
+            return;
+        }
+        for (Map.Entry<String, byte[]> file : files.entrySet()) {
+            writeDurably(tempPath(file.getKey()), file.getValue());
+        }
+
+        StringBuilder manifest = new StringBuilder();
+        for (String name : files.keySet()) {
+            manifest.append(name).append('\n');
+        }
+        manifest.append(MANIFEST_END).append('\n');
+        Path manifestPath = directory.resolve(MANIFEST_FILE);
+        writeDurably(manifestPath, manifest.toString().getBytes(StandardCharsets.UTF_8));
+        syncDirectory();
+
+        for (String name : files.keySet()) {
+            Files.move(tempPath(name), directory.resolve(name), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        syncDirectory();
+        Files.delete(manifestPath);
+    }
+
+    private Path tempPath(String name) {
+        return directory.resolve(name + TEMP_SUFFIX);
+    }
+
+    /**
+     * @return the file names, or null if the manifest was torn before its end marker
+     */
+    private static List<String> readManifest(Path manifest) throws IOException {
+        List<String> names = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(manifest, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.equals(MANIFEST_END)) {
+                    return names;
+                }
+                if (!line.isBlank()) {
+                    names.add(line);
+                }
+            }
+        }
+        return null;
+    }
+
+    private static void writeDurably(Path path, byte[] content) throws IOException {
+        try (FileOutputStream out = new FileOutputStream(path.toFile())) {
+            out.write(content);
+            out.getChannel().force(true);
+        }
+    }
+
+    private void syncDirectory() {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Windows cannot open a directory as a channel; its renames are already metadata-journaled.
+            LOGGER.log(Level.FINEST, "Directory sync unavailable", e);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+
+/**
+ * Debounces saves of whole local datasets. UI code marks a dataset dirty; once the window since
+ * the first unflushed mark elapses, every dirty dataset is captured on the EDT and rendered and
+ * committed on the "persistence" thread, so a burst of edits costs one write per file. All
+ * methods except the constructor must be called on the EDT.
+ */
+public final class PersistenceScheduler {
+    /**
+     * Called on the EDT; captures whatever state the dataset needs and returns the work that turns
+     * it into file contents off the EDT.
+     */
+    public interface Dataset {
+        Render capture();
+    }
+
+    public interface Render {
+        Map<String, byte[]> files() throws IOException;
+    }
+
+    public interface FailureListener {
+        void onFlushFailed(Set<String> datasets, Exception error);
+    }
+
+    private static final Logger LOGGER = Logger.getLogger(PersistenceScheduler.class.getName());
+
+    private final LocalDataStore store;
+    private final FailureListener failureListener;
+    private final Map<String, Dataset> datasets = new LinkedHashMap<>();
+    private final Set<String> dirty = new LinkedHashSet<>();
+    private final Timer timer;
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "persistence");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public PersistenceScheduler(LocalDataStore store, int windowMs, FailureListener failureListener) {
+        this.store = store;
+        this.failureListener = failureListener;
+        this.timer = new Timer(Math.max(0, windowMs), event -> flushInBackground());
+        this.timer.setRepeats(false);
+    }
+
+    public void register(String name, Dataset dataset) {
+        datasets.put(name, dataset);
+    }
+
+    /**
+     * Changes the merge window; a flush that is already pending keeps its original deadline.
+     */
+    public void setWindowMs(int windowMs) {
+        timer.setInitialDelay(Math.max(0, windowMs));
+    }
+
+    public void markDirty(String name) {
+        if (!datasets.containsKey(name)) {
+            throw new IllegalArgumentException("Unknown dataset: " + name);
+        }
+        if (writer.isShutdown()) {
+            return;
+        }
+        dirty.add(name);
+        // Not restarted on every mark, so steady activity still flushes once per window.
+        if (!timer.isRunning()) {
+            timer.start();
+        }
+    }
+
+    /**
+     * Writes every dirty dataset now and waits for it, after any background flush already running.
+     */
+    public void flushNow() throws IOException {
+        timer.stop();
+        Future<?> flush = submit(captureDirty(), false);
+        try {
+            flush.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for local data flush");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException ioException) {
+                throw ioException;
+            }
+            throw new IOException("Local data flush failed", cause);
+        }
+    }
+
+    /**
+     * Stops the timer and the background thread once queued flushes finish; call {@link #flushNow()} first.
+     */
+    public void shutdown() {
+        timer.stop();
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(10, TimeUnit.SECONDS)) {
+                LOGGER.warning("Timed out waiting for local data flush to finish");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void flushInBackground() {
+        Map<String, Render> renders = captureDirty();
+        submit(renders, true);
+    }
+
+    private Map<String, Render> captureDirty() {
+        Map<String, Render> renders = new LinkedHashMap<>();
+        for (String name : dirty) {
+            renders.put(name, datasets.get(name).capture());
+        }
+        dirty.clear();
+        return renders;
+    }
+
+    private Future<?> submit(Map<String, Render> renders, boolean retryOnFailure) {
+        return writer.submit(() -> {
+            if (renders.isEmpty()) {
+                return null;
+            }
+            try {
+                Map<String, byte[]> files = new LinkedHashMap<>();
+                for (Render render : renders.values()) {
+                    files.putAll(render.files());
+                }
+                store.commit(files);
+            } catch (IOException | RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Failed to flush " + renders.keySet(), e);
+                if (failureListener != null) {
+                    failureListener.onFlushFailed(renders.keySet(), e);
+                }
+                if (retryOnFailure) {
+                    SwingUtilities.invokeLater(() -> renders.keySet().forEach(this::markDirty));
+                }
+                throw e;
+            }
+            return null;
+        });
+    }
+}
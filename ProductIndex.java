@@ -0,0 +1,98 @@
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/**
+ * Products indexed by case-insensitive name. {@link #get} is a hash lookup, and the same keys are
+ * kept sorted so {@link #withPrefix} can answer type-ahead queries from the POS picker without a
+ * scan. Both indexes are updated on each add and remove instead of being rebuilt. Iteration keeps
+ * the order products were added in. Not thread-safe; used on the EDT.
+ */
+public class ProductIndex<T> {
+    private final Function<T, String> nameOf;
+    private final Map<String, T> byKey = new LinkedHashMap<>();
+    private final NavigableMap<String, T> sorted = new TreeMap<>();
+
+    public ProductIndex(Function<T, String> nameOf) {
+        this.nameOf = nameOf;
+    }
+
+    public T get(String name) {
+        return name == null ? null : byKey.get(key(name));
+    }
+
+    public boolean contains(String name) {
+        return get(name) != null;
+    }
+
+    /**
+     * @return false, leaving the index unchanged, if a product with the same name already exists
+     */
+    public boolean add(T product) {
+        String key = key(nameOf.apply(product));
+        if (byKey.putIfAbsent(key, product) != null) {
+            return false;
+        }
+        sorted.put(key, product);
+        return true;
+    }
+
+    /**
+     * @return the removed product, or null if there was none with that name
+     */
+    public T remove(String name) {
+        if (name == null) {
+            return null;
+        }
+        String key = key(name);
+        T removed = byKey.remove(key);
+        if (removed != null) {
+            sorted.remove(key);
+        }
+        return removed;
+    }
+
+    public void clear() {
+        byKey.clear();
+        sorted.clear();
+    }
+
+    /**
+     * Unmodifiable view of every product, in the order they were added.
+     */
+    public Collection<T> values() {
+        return Collections.unmodifiableCollection(byKey.values());
+    }
+
+    public int size() {
+        return byKey.size();
+    }
+
+    /**
+     * Products whose name starts with {@code prefix}, ignoring case, in name order.
+     *
+     * @param limit the most products to return
+     */
+    public List<T> withPrefix(String prefix, int limit) {
+        String from = key(prefix);
+        List<T> matches = new ArrayList<>(Math.min(limit, 16));
+        for (Map.Entry<String, T> entry : sorted.tailMap(from, true).entrySet()) {
+            if (matches.size() >= limit || !entry.getKey().startsWith(from)) {
+                break;
+            }
+            matches.add(entry.getValue());
+        }
+        return matches;
+    }
+
+    private static String key(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+}
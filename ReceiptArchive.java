@@ -0,0 +1,375 @@
+import java.io.BufferedReader;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * Receipts appended back to back into segment files, with an append-only index of where each one
+ * starts. The index is held in memory by sale ID and by time, so fetching a receipt is one seek
+ * and a date-range export reads only the receipts in range. Segment bytes are synced before their
+ * index line is written, so an index entry never points at data lost in a crash.
+ */
+public class ReceiptArchive {
+    public static final class Entry {
+        private final String saleId;
+        private final long createdAtMillis;
+        private final long segment;
+        private final long offset;
+        private final int length;
+        private final String checksum;
+
+        private Entry(String saleId, long createdAtMillis, long segment, long offset, int length, String checksum) {
+            this.saleId = saleId;
+            this.createdAtMillis = createdAtMillis;
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+            this.checksum = checksum;
+        }
+
+        public String getSaleId() {
+            return saleId;
+        }
+
+        public long getCreatedAtMillis() {
+            return createdAtMillis;
+        }
+    }
+
+    private static final Logger LOGGER = Logger.getLogger(ReceiptArchive.class.getName());
+    private static final String INDEX_FILE = "receipts.idx";
+    private static final String SEGMENT_PREFIX = "receipts-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String LEGACY_PREFIX = "receipt_";
+    private static final String LEGACY_SUFFIX = ".txt";
+    private static final DateTimeFormatter LEGACY_STAMP = DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss");
+    private static final int LEGACY_STAMP_LENGTH = 15;
+
+    private final Path directory;
+    private final long maxSegmentBytes;
+    private final Map<String, Entry> bySaleId = new HashMap<>();
+    private final TreeMap<Long, List<Entry>> byTime = new TreeMap<>();
+    private final StringBuilder pendingIndexLines = new StringBuilder();
+    private FileOutputStream segment;
+    private FileOutputStream index;
+    private long activeSegment = 1;
+    private long activeSegmentBytes;
+
+    public ReceiptArchive(Path directory, long maxSegmentBytes) {
+        this.directory = directory;
+        this.maxSegmentBytes = Math.max(4096, maxSegmentBytes);
+    }
+
+    /**
+     * Loads the index. Lines torn by a crash are skipped, as are entries whose segment bytes are gone.
+     */
+    public synchronized void open() throws IOException {
+        close();
+        Files.createDirectories(directory);
+        bySaleId.clear();
+        byTime.clear();
+        Map<Long, Long> segmentSizes = new HashMap<>();
+        Path indexPath = directory.resolve(INDEX_FILE);
+        if (Files.exists(indexPath)) {
+            try (BufferedReader reader = Files.newBufferedReader(indexPath, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    Entry entry = parseIndexLine(line);
+                    if (entry == null) {
+                        LOGGER.warning("Skipping corrupt receipt index line in " + indexPath);
+                        continue;
+                    }
+                    long size = segmentSizes.computeIfAbsent(entry.segment, this::segmentSize);
+                    if (entry.offset + entry.length > size) {
+                        LOGGER.warning("Skipping receipt " + entry.saleId + " past the end of its segment");
+                        continue;
+                    }
+                    indexEntry(entry);
+                }
+            }
+            endWithNewline(indexPath);
+        }
+
+        long lastSegment = 0;
+        try (DirectoryStream<Path> segments = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path path : segments) {
+                String name = path.getFileName().toString();
+                try {
+                    lastSegment = Math.max(lastSegment, Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())));
+                } catch (NumberFormatException ignored) {
+                }
+            }
+        }
+        activeSegment = Math.max(1, lastSegment);
+        activeSegmentBytes = segmentSize(activeSegment);
+    }
+
+    /**
+     * Appends the receipt and syncs it and its index entry before returning.
+     *
+     * @return the segment file now holding the receipt
+     */
+    public synchronized Path append(String saleId, long createdAtMillis, String content) throws IOException {
+        Entry entry = write(saleId, createdAtMillis, content);
+        sync();
+        return segmentPath(entry.segment);
+    }
+
+    public synchronized boolean contains(String saleId) {
+        return saleId != null && bySaleId.containsKey(saleId);
+    }
+
+    /**
+     * @return the receipt text, or null if no receipt was archived for the sale
+     */
+    public synchronized String find(String saleId) throws IOException {
+        Entry entry = saleId == null ? null : bySaleId.get(saleId);
+        return entry == null ? null : read(entry);
+    }
+
+    /**
+     * Receipts created from the start of {@code from} to the end of {@code to}, oldest first.
+     */
+    public synchronized List<Entry> between(LocalDate from, LocalDate to) {
+        ZoneId zone = ZoneId.systemDefault();
+        long start = from.atStartOfDay(zone).toInstant().toEpochMilli();
+        long end = to.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+        List<Entry> entries = new ArrayList<>();
+        for (List<Entry> sameTime : byTime.subMap(start, true, end, false).values()) {
+            entries.addAll(sameTime);
+        }
+        return entries;
+    }
+
+    /**
+     * Writes every receipt between the two dates, oldest first, to one text file.
+     *
+     * @return the number of receipts exported
+     */
+    public synchronized int exportRange(LocalDate from, LocalDate to, Path target) throws IOException {
+        List<Entry> entries = between(from, to);
+        try (FileOutputStream out = new FileOutputStream(target.toFile())) {
+            for (Entry entry : entries) {
+                out.write(read(entry).getBytes(StandardCharsets.UTF_8));
+                out.write('\n');
+            }
+        }
+        return entries.size();
+    }
+
+    /**
+     * Moves old one-file-per-receipt {@code receipt_<saleId>_<yyyyMMdd_HHmmss>.txt} files from
+     * {@code legacyDirectory} into the archive, deleting each file once its copy is synced.
+     *
+     * @return the number of receipts imported
+     */
+    public synchronized int importLegacyReceipts(Path legacyDirectory) throws IOException {
+        if (!Files.isDirectory(legacyDirectory)) {
+            return 0;
+        }
+        List<Path> imported = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(legacyDirectory, LEGACY_PREFIX + "*" + LEGACY_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                String stem = name.substring(LEGACY_PREFIX.length(), name.length() - LEGACY_SUFFIX.length());
+                // The sale ID may itself contain underscores; the stamp is always the last 15 characters.
+                if (stem.length() <= LEGACY_STAMP_LENGTH + 1 || stem.charAt(stem.length() - LEGACY_STAMP_LENGTH - 1) != '_') {
+                    continue;
+                }
+                String saleId = stem.substring(0, stem.length() - LEGACY_STAMP_LENGTH - 1);
+                if (!bySaleId.containsKey(saleId)) {
+                    long createdAt = legacyTimestamp(stem.substring(stem.length() - LEGACY_STAMP_LENGTH), file);
+                    write(saleId, createdAt, Files.readString(file, StandardCharsets.UTF_8));
+                }
+                imported.add(file);
+            }
+        }
+        sync();
+        for (Path file : imported) {
+            Files.deleteIfExists(file);
+        }
+        return imported.size();
+    }
+
+    public synchronized void close() {
+        try {
+            sync();
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to sync receipt archive " + directory, e);
+        }
+        closeQuietly(segment);
+        closeQuietly(index);
+        segment = null;
+        index = null;
+    }
+
+    private Entry write(String saleId, long createdAtMillis, String content) throws IOException {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        if (activeSegmentBytes > 0 && activeSegmentBytes + bytes.length > maxSegmentBytes) {
+            sync();
+            closeQuietly(segment);
+            segment = null;
+            activeSegment++;
+            activeSegmentBytes = 0;
+        }
+        if (segment == null) {
+            segment = new FileOutputStream(segmentPath(activeSegment).toFile(), true);
+        }
+        Entry entry = new Entry(saleId, createdAtMillis, activeSegment, activeSegmentBytes, bytes.length, checksum(bytes));
+        segment.write(bytes);
+        activeSegmentBytes += bytes.length;
+        pendingIndexLines.append(indexLine(entry));
+        indexEntry(entry);
+        return entry;
+    }
+
+    /**
+     * Syncs the segment first, then appends and syncs the index lines pointing into it.
+     */
+    private void sync() throws IOException {
+        if (pendingIndexLines.length() == 0) {
+            return;
+        }
+        segment.getChannel().force(false);
+        if (index == null) {
+            index = new FileOutputStream(directory.resolve(INDEX_FILE).toFile(), true);
+        }
+        index.write(pendingIndexLines.toString().getBytes(StandardCharsets.UTF_8));
+        index.getChannel().force(false);
+        pendingIndexLines.setLength(0);
+    }
+
+    private String read(Entry entry) throws IOException {
+        byte[] bytes = new byte[entry.length];
+        try (RandomAccessFile raf = new RandomAccessFile(segmentPath(entry.segment).toFile(), "r")) {
+            raf.seek(entry.offset);
+            raf.readFully(bytes);
+        }
+        if (!checksum(bytes).equals(entry.checksum)) {
+            throw new IOException("Receipt for sale " + entry.saleId + " is corrupt");
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void indexEntry(Entry entry) {
+        Entry previous = bySaleId.put(entry.saleId, entry);
+        if (previous != null) {
+            List<Entry> sameTime = byTime.get(previous.createdAtMillis);
+            if (sameTime != null) {
+                sameTime.remove(previous);
+                if (sameTime.isEmpty()) {
+                    byTime.remove(previous.createdAtMillis);
+                }
+            }
+        }
+        byTime.computeIfAbsent(entry.createdAtMillis, ignored -> new ArrayList<>(1)).add(entry);
+    }
+
+    private static String indexLine(Entry entry) {
+        String record = encode(entry.saleId) + '\t' + entry.createdAtMillis + '\t' + entry.segment + '\t'
+                + entry.offset + '\t' + entry.length + '\t' + entry.checksum;
+        return record + '\t' + checksum(record.getBytes(StandardCharsets.UTF_8)) + '\n';
+    }
+
+    private static Entry parseIndexLine(String line) {
+        int checksumStart = line.lastIndexOf('\t');
+        if (checksumStart <= 0) {
+            return null;
+        }
+        String record = line.substring(0, checksumStart);
+        if (!line.substring(checksumStart + 1).equals(checksum(record.getBytes(StandardCharsets.UTF_8)))) {
+            return null;
+        }
+        String[] parts = record.split("\t", -1);
+        if (parts.length != 6) {
+            return null;
+        }
+        try {
+            return new Entry(decode(parts[0]), Long.parseLong(parts[1]), Long.parseLong(parts[2]),
+                    Long.parseLong(parts[3]), Integer.parseInt(parts[4]), parts[5]);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Restores the newline a crash may have cut off the last index line, so new lines start clean.
+     */
+    private static void endWithNewline(Path file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            long length = raf.length();
+            if (length == 0) {
+                return;
+            }
+            raf.seek(length - 1);
+            if (raf.read() != '\n') {
+                raf.write('\n');
+                raf.getFD().sync();
+            }
+        }
+    }
+
+    private static long legacyTimestamp(String stamp, Path file) throws IOException {
+        try {
+            return LocalDateTime.parse(stamp, LEGACY_STAMP).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return Files.getLastModifiedTime(file).toMillis();
+        }
+    }
+
+    private long segmentSize(long number) {
+        try {
+            Path path = segmentPath(number);
+            return Files.exists(path) ? Files.size(path) : 0;
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private Path segmentPath(long number) {
+        return directory.resolve(String.format("%s%06d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX));
+    }
+
+    private static void closeQuietly(FileOutputStream stream) {
+        if (stream == null) {
+            return;
+        }
+        try {
+            stream.close();
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Failed to close receipt archive file", e);
+        }
+    }
+
+    private static String checksum(byte[] bytes) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        return Long.toHexString(crc.getValue());
+    }
+
+    private static String encode(String value) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString((value == null ? "" : value).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decode(String value) {
+        return new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,317 @@
+import java.io.BufferedReader;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * Segmented, append-only store of records, each a list of string fields keyed by its first
+ * field. Every change is appended once to the active segment; segments rotate at a size limit and
+ * are folded into a snapshot once enough of them pile up. Each line carries a CRC so a write torn
+ * by a crash is detected and cut off the tail on the next {@link #load()}.
+ */
+public class RecordJournal {
+    private static final Logger LOGGER = Logger.getLogger(RecordJournal.class.getName());
+    private static final String RECORD_PUT = "P";
+    private static final String RECORD_REMOVE = "R";
+    private static final String RECORD_COVERS = "C";
+    private static final String SNAPSHOT_FILE = "snapshot.dat";
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private final Path directory;
+    private final long maxSegmentBytes;
+    private final int compactAfterSegments;
+    private FileOutputStream segment;
+    private long activeSegment = 1;
+    private long activeSegmentBytes;
+    private long firstUncompactedSegment = 1;
+    private boolean dirty;
+
+    public RecordJournal(Path directory, long maxSegmentBytes, int compactAfterSegments) {
+        this.directory = directory;
+        this.maxSegmentBytes = Math.max(4096, maxSegmentBytes);
+        this.compactAfterSegments = Math.max(1, compactAfterSegments);
+    }
+
+    /**
+     * True once anything has been written, i.e. the journal (not a legacy export) holds the history.
+     */
+    public synchronized boolean exists() {
+        return Files.exists(directory.resolve(SNAPSHOT_FILE)) || !listSegments().isEmpty();
+    }
+
+    /**
+     * Replays the snapshot and every later segment, oldest first, and returns the live records in
+     * the order they were first written. A torn record at the end of the newest segment is truncated.
+     */
+    public synchronized Map<String, List<String>> load() throws IOException {
+        closeSegment();
+        Files.createDirectories(directory);
+        Map<String, List<String>> records = new LinkedHashMap<>();
+
+        long covered = 0;
+        Path snapshot = directory.resolve(SNAPSHOT_FILE);
+        if (Files.exists(snapshot)) {
+            covered = replay(snapshot, records, false);
+        }
+
+        TreeMap<Long, Path> segments = listSegments();
+        for (Map.Entry<Long, Path> entry : segments.entrySet()) {
+            if (entry.getKey() <= covered) {
+                // A compaction finished its snapshot but crashed before deleting the segments it folded in.
+                Files.deleteIfExists(entry.getValue());
+                continue;
+            }
+            replay(entry.getValue(), records, entry.getKey().equals(segments.lastKey()));
+        }
+
+        firstUncompactedSegment = covered + 1;
+        activeSegment = segments.isEmpty() ? covered + 1 : Math.max(covered + 1, segments.lastKey());
+        activeSegmentBytes = Files.exists(segmentPath(activeSegment)) ? Files.size(segmentPath(activeSegment)) : 0;
+        return records;
+    }
+
+    public synchronized void put(List<String> fields) throws IOException {
+        StringBuilder record = new StringBuilder(256).append(RECORD_PUT);
+        for (String field : fields) {
+            record.append('\t').append(encode(field));
+        }
+        append(checksummed(record.toString()));
+    }
+
+    public synchronized void remove(String key) throws IOException {
+        append(checksummed(RECORD_REMOVE + '\t' + encode(key)));
+    }
+
+    /**
+     * Forces appended records to disk; call once per batch of puts and removes.
+     */
+    public synchronized void sync() throws IOException {
+        if (segment != null && dirty) {
+            segment.getChannel().force(false);
+        }
+        dirty = false;
+    }
+
+    public synchronized boolean needsCompaction() {
+        return activeSegment - firstUncompactedSegment >= compactAfterSegments;
+    }
+
+    /**
+     * Closes the active segment so that everything written so far can be folded into a snapshot.
+     * The caller must capture the live records at the same point, before any further writes.
+     *
+     * @return the last segment the snapshot will cover, to pass to {@link #writeSnapshot}
+     */
+    public synchronized long sealForCompaction() throws IOException {
+        sync();
+        closeSegment();
+        long sealed = activeSegment;
+        activeSegment++;
+        activeSegmentBytes = 0;
+        // Counted as compacted from here on; if the snapshot then fails, load() still replays these segments.
+        firstUncompactedSegment = sealed + 1;
+        return sealed;
+    }
+
+    /**
+     * Writes the snapshot for everything up to {@code coveredSegment} and deletes those segments.
+     * Safe to run off the writing thread while new records are appended; only the rename and the
+     * deletes take the journal's lock.
+     */
+    public void writeSnapshot(long coveredSegment, Collection<List<String>> records) throws IOException {
+        Path tempPath = directory.resolve(SNAPSHOT_FILE + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tempPath.toFile())) {
+            StringBuilder chunk = new StringBuilder(64 * 1024);
+            chunk.append(checksummed(RECORD_COVERS + '\t' + coveredSegment));
+            for (List<String> fields : records) {
+                StringBuilder record = new StringBuilder(256).append(RECORD_PUT);
+                for (String field : fields) {
+                    record.append('\t').append(encode(field));
+                }
+                chunk.append(checksummed(record.toString()));
+                if (chunk.length() >= 60 * 1024) {
+                    out.write(chunk.toString().getBytes(StandardCharsets.UTF_8));
+                    chunk.setLength(0);
+                }
+            }
+            out.write(chunk.toString().getBytes(StandardCharsets.UTF_8));
+            out.getChannel().force(true);
+        }
+
+        synchronized (this) {
+            Files.move(tempPath, directory.resolve(SNAPSHOT_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            for (Map.Entry<Long, Path> entry : listSegments().headMap(coveredSegment, true).entrySet()) {
+                Files.deleteIfExists(entry.getValue());
+            }
+        }
+    }
+
+    public synchronized void close() {
+        try {
+            sync();
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to sync record journal " + directory, e);
+        }
+        closeSegment();
+    }
+
+    private void append(String record) throws IOException {
+        byte[] bytes = record.getBytes(StandardCharsets.UTF_8);
+        if (activeSegmentBytes > 0 && activeSegmentBytes + bytes.length > maxSegmentBytes) {
+            sync();
+            closeSegment();
+            activeSegment++;
+            activeSegmentBytes = 0;
+        }
+        if (segment == null) {
+            Files.createDirectories(directory);
+            segment = new FileOutputStream(segmentPath(activeSegment).toFile(), true);
+        }
+        segment.write(bytes);
+        activeSegmentBytes += bytes.length;
+        dirty = true;
+    }
+
+    private void closeSegment() {
+        if (segment == null) {
+            return;
+        }
+        try {
+            segment.close();
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Failed to close record journal segment in " + directory, e);
+        }
+        segment = null;
+    }
+
+    /**
+     * @return the segment a snapshot covers, or 0 for a segment file
+     */
+    private long replay(Path file, Map<String, List<String>> records, boolean truncateTornTail) throws IOException {
+        long covered = 0;
+        long validBytes = 0;
+        long readBytes = 0;
+        boolean torn = false;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                readBytes += line.getBytes(StandardCharsets.UTF_8).length + 1;
+                String[] parts = verifiedParts(line);
+                if (parts == null) {
+                    torn = true;
+                    continue;
+                }
+                if (torn) {
+                    LOGGER.warning("Skipping corrupt record in journal " + file);
+                    torn = false;
+                }
+                validBytes = readBytes;
+                try {
+                    if (RECORD_COVERS.equals(parts[0]) && parts.length == 2) {
+                        covered = Long.parseLong(parts[1]);
+                    } else if (RECORD_PUT.equals(parts[0]) && parts.length >= 2) {
+                        List<String> fields = new ArrayList<>(parts.length - 1);
+                        for (int i = 1; i < parts.length; i++) {
+                            fields.add(decode(parts[i]));
+                        }
+                        records.put(fields.get(0), fields);
+                    } else if (RECORD_REMOVE.equals(parts[0]) && parts.length == 2) {
+                        records.remove(decode(parts[1]));
+                    }
+                } catch (IllegalArgumentException e) {
+                    LOGGER.log(Level.WARNING, "Skipping unreadable record journal entry", e);
+                }
+            }
+        }
+
+        if (truncateTornTail) {
+            repairTail(file, validBytes);
+        }
+        return covered;
+    }
+
+    /**
+     * Cuts a crash-torn tail after the last intact record, or restores its newline if only that was
+     * lost, so the next append starts on a clean line.
+     */
+    private static void repairTail(Path file, long validBytes) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            long length = raf.length();
+            if (validBytes > length) {
+                raf.seek(length);
+                raf.write('\n');
+            } else if (validBytes < length) {
+                LOGGER.warning("Truncating torn tail of journal " + file + " at byte " + validBytes);
+                raf.setLength(validBytes);
+            } else {
+                return;
+            }
+            raf.getFD().sync();
+        }
+    }
+
+    private TreeMap<Long, Path> listSegments() {
+        TreeMap<Long, Path> segments = new TreeMap<>();
+        if (!Files.isDirectory(directory)) {
+            return segments;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path path : stream) {
+                String name = path.getFileName().toString();
+                try {
+                    segments.put(Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())), path);
+                } catch (NumberFormatException ignored) {
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to list record journal segments in " + directory, e);
+        }
+        return segments;
+    }
+
+    private Path segmentPath(long number) {
+        return directory.resolve(String.format("%s%06d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX));
+    }
+
+    private static String[] verifiedParts(String line) {
+        int checksumStart = line.lastIndexOf('\t');
+        if (checksumStart <= 0 || !line.substring(checksumStart + 1).equals(checksum(line.substring(0, checksumStart)))) {
+            return null;
+        }
+        return line.substring(0, checksumStart).split("\t", -1);
+    }
+
+    private static String checksummed(String record) {
+        return record + '\t' + checksum(record) + '\n';
+    }
+
+    private static String checksum(String record) {
+        CRC32 crc = new CRC32();
+        crc.update(record.getBytes(StandardCharsets.UTF_8));
+        return Long.toHexString(crc.getValue());
+    }
+
+    private static String encode(String value) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString((value == null ? "" : value).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decode(String value) {
+        return new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+    }
+}
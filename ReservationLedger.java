@@ -0,0 +1,63 @@
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Running count of the inventory units held back by the current cart, keyed by normalized item
+ * name. Cart edits add and release units as they happen, so checking what is still available is a
+ * lookup instead of a walk over every cart line and recipe. Not thread-safe; used on the EDT.
+ */
+public class ReservationLedger {
+    private static final class Entry {
+        private final String itemName;
+        private int units;
+
+        private Entry(String itemName) {
+            this.itemName = itemName;
+        }
+    }
+
+    private final Function<String, String> normalizeKey;
+    private final Map<String, Entry> entries = new LinkedHashMap<>();
+
+    public ReservationLedger(Function<String, String> normalizeKey) {
+        this.normalizeKey = normalizeKey;
+    }
+
+    /**
+     * Adds {@code units} for the item; a negative amount releases them. An item whose count
+     * reaches zero is dropped.
+     */
+    public void reserve(String itemName, int units) {
+        String key = normalizeKey.apply(itemName);
+        Entry entry = entries.computeIfAbsent(key, ignored -> new Entry(itemName));
+        entry.units += units;
+        if (entry.units <= 0) {
+            entries.remove(key);
+        }
+    }
+
+    public int reserved(String itemName) {
+        Entry entry = entries.get(normalizeKey.apply(itemName));
+        return entry == null ? 0 : entry.units;
+    }
+
+    public boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    /**
+     * @return item name to reserved units, in the order items were first reserved; a copy
+     */
+    public Map<String, Integer> snapshot() {
+        Map<String, Integer> usage = new LinkedHashMap<>();
+        for (Entry entry : entries.values()) {
+            usage.put(entry.itemName, entry.units);
+        }
+        return usage;
+    }
+}
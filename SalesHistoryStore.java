@@ -0,0 +1,204 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/**
+ * Sales kept newest-first by timestamp, with hash indexes on the local sale ID and the cloud sale
+ * ID. Inserts land in timestamp order directly, so merging a batch never re-sorts the history.
+ * Sales with equal timestamps keep the order they were added in, except {@link #addNewest} which
+ * puts the sale ahead of its ties. Not thread-safe; the app only touches it on the EDT.
+ */
+public class SalesHistoryStore<T> implements Iterable<T> {
+    private static final class OrderKey {
+        private final String timestamp;
+        private final long sequence;
+
+        private OrderKey(String timestamp, long sequence) {
+            this.timestamp = timestamp;
+            this.sequence = sequence;
+        }
+    }
+
+    private static final Comparator<OrderKey> NEWEST_FIRST = Comparator
+            .comparing((OrderKey key) -> key.timestamp, Comparator.reverseOrder())
+            .thenComparingLong(key -> key.sequence);
+
+    private final Function<T, String> saleId;
+    private final Function<T, String> cloudSaleId;
+    private final Function<T, String> timestamp;
+    private final TreeMap<OrderKey, T> ordered = new TreeMap<>(NEWEST_FIRST);
+    private final Map<String, OrderKey> bySaleId = new HashMap<>();
+    private final Map<String, OrderKey> byCloudSaleId = new HashMap<>();
+    private long firstSequence;
+    private long lastSequence;
+
+    public SalesHistoryStore(Function<T, String> saleId, Function<T, String> cloudSaleId, Function<T, String> timestamp) {
+        this.saleId = saleId;
+        this.cloudSaleId = cloudSaleId;
+        this.timestamp = timestamp;
+    }
+
+    /**
+     * Adds the sale behind any existing sales with the same timestamp.
+     */
+    public void add(T sale) {
+        insert(sale, ++lastSequence);
+    }
+
+    /**
+     * Adds the sale ahead of any existing sales with the same timestamp.
+     */
+    public void addNewest(T sale) {
+        insert(sale, --firstSequence);
+    }
+
+    public T getBySaleId(String id) {
+        return valueAt(id == null ? null : bySaleId.get(id));
+    }
+
+    public T getByCloudSaleId(String id) {
+        return valueAt(isBlank(id) ? null : byCloudSaleId.get(id));
+    }
+
+    public boolean containsCloudSaleId(String id) {
+        return !isBlank(id) && byCloudSaleId.containsKey(id);
+    }
+
+    /**
+     * Swaps in a new version of the sale with the same local sale ID, keeping its position.
+     *
+     * @return false when no sale has that ID
+     */
+    public boolean replace(T updated) {
+        OrderKey key = bySaleId.get(saleId.apply(updated));
+        if (key == null) {
+            return false;
+        }
+        if (!key.timestamp.equals(normalize(timestamp.apply(updated)))) {
+            remove(ordered.get(key));
+            add(updated);
+            return true;
+        }
+        T previous = ordered.put(key, updated);
+        unindexCloudSaleId(previous, key);
+        indexCloudSaleId(updated, key);
+        return true;
+    }
+
+    public boolean remove(T sale) {
+        if (sale == null) {
+            return false;
+        }
+        OrderKey key = bySaleId.get(saleId.apply(sale));
+        if (key == null || ordered.get(key) != sale) {
+            key = findKey(sale);
+        }
+        if (key == null) {
+            return false;
+        }
+        ordered.remove(key);
+        if (bySaleId.get(saleId.apply(sale)) == key) {
+            bySaleId.remove(saleId.apply(sale));
+        }
+        unindexCloudSaleId(sale, key);
+        return true;
+    }
+
+    /**
+     * Up to {@code limit} sales, newest first.
+     */
+    public List<T> newest(int limit) {
+        List<T> sales = new ArrayList<>(Math.max(0, Math.min(limit, ordered.size())));
+        for (T sale : ordered.values()) {
+            if (sales.size() >= limit) {
+                break;
+            }
+            sales.add(sale);
+        }
+        return sales;
+    }
+
+    /**
+     * Sales whose timestamp starts with {@code prefix} (for example one {@code yyyy-MM-dd} day), newest first.
+     */
+    public Iterable<T> withTimestampPrefix(String prefix) {
+        // Newest-first order puts the largest timestamps at the head, so the range runs from the prefix's upper bound down to the prefix.
+        OrderKey from = new OrderKey(prefix + Character.MAX_VALUE, Long.MIN_VALUE);
+        OrderKey to = new OrderKey(prefix, Long.MAX_VALUE);
+        return Collections.unmodifiableCollection(ordered.subMap(from, true, to, true).values());
+    }
+
+    public int size() {
+        return ordered.size();
+    }
+
+    public boolean isEmpty() {
+        return ordered.isEmpty();
+    }
+
+    public void clear() {
+        ordered.clear();
+        bySaleId.clear();
+        byCloudSaleId.clear();
+        firstSequence = 0;
+        lastSequence = 0;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return Collections.unmodifiableCollection(ordered.values()).iterator();
+    }
+
+    private void insert(T sale, long sequence) {
+        OrderKey key = new OrderKey(normalize(timestamp.apply(sale)), sequence);
+        ordered.put(key, sale);
+        bySaleId.put(saleId.apply(sale), key);
+        indexCloudSaleId(sale, key);
+    }
+
+    private void indexCloudSaleId(T sale, OrderKey key) {
+        String id = cloudSaleId.apply(sale);
+        if (!isBlank(id)) {
+            byCloudSaleId.put(id, key);
+        }
+    }
+
+    private void unindexCloudSaleId(T sale, OrderKey key) {
+        String id = sale == null ? null : cloudSaleId.apply(sale);
+        if (!isBlank(id) && byCloudSaleId.get(id) == key) {
+            byCloudSaleId.remove(id);
+        }
+    }
+
+    private OrderKey findKey(T sale) {
+        String id = cloudSaleId.apply(sale);
+        OrderKey key = isBlank(id) ? null : byCloudSaleId.get(id);
+        if (key != null && ordered.get(key) == sale) {
+            return key;
+        }
+        for (Map.Entry<OrderKey, T> entry : ordered.entrySet()) {
+            if (entry.getValue() == sale) {
+                return entry.getKey();
+            }
+        }
+        return null;
+    }
+
+    private T valueAt(OrderKey key) {
+        return key == null ? null : ordered.get(key);
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+}
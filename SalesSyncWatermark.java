@@ -0,0 +1,71 @@
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+
+/**
+ * Highest cloud {@code sale_detail_id} already merged into the local sales history, scoped to one
+ * Supabase project and user. A mark that is missing, unparsable or recorded for another source
+ * reads as -1 so the caller falls back to a full resync.
+ */
+public class SalesSyncWatermark {
+    private static final String KEY_SOURCE_URL = "source_url";
+    private static final String KEY_USER_ID = "user_id";
+    private static final String KEY_LAST_SALE_DETAIL_ID = "last_sale_detail_id";
+
+    private final Path path;
+    private final String sourceUrl;
+    private final String userId;
+
+    public SalesSyncWatermark(Path path, String sourceUrl, String userId) {
+        this.path = path;
+        this.sourceUrl = sourceUrl == null ? "" : sourceUrl;
+        this.userId = userId == null ? "" : userId;
+    }
+
+    public long load() {
+        if (!Files.exists(path)) {
+            return -1;
+        }
+
+        Properties properties = new Properties();
+        try (FileInputStream inputStream = new FileInputStream(path.toFile())) {
+            properties.load(inputStream);
+        } catch (IOException e) {
+            return -1;
+        }
+
+        if (!sourceUrl.equals(properties.getProperty(KEY_SOURCE_URL, ""))
+                || !userId.equals(properties.getProperty(KEY_USER_ID, ""))) {
+            return -1;
+        }
+        try {
+            long mark = Long.parseLong(properties.getProperty(KEY_LAST_SALE_DETAIL_ID, "").trim());
+            return mark >= 0 ? mark : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    public void save(long lastSaleDetailId) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty(KEY_SOURCE_URL, sourceUrl);
+        properties.setProperty(KEY_USER_ID, userId);
+        properties.setProperty(KEY_LAST_SALE_DETAIL_ID, String.valueOf(lastSaleDetailId));
+
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        // Replaced atomically so a crash mid-write leaves the previous mark, not a truncated file.
+        Path tempPath = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileOutputStream outputStream = new FileOutputStream(tempPath.toFile())) {
+            properties.store(outputStream, "Sales Sync Watermark");
+            outputStream.getChannel().force(true);
+        }
+        Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
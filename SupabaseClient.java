@@ -1,4 +1,5 @@
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.net.URLEncoder;
 import java.net.http.HttpClient;
@@ -7,9 +8,21 @@ import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class SupabaseClient {
     public static class ActionLogRecord {
@@ -43,8 +56,14 @@ public class SupabaseClient {
         private final double price;
         private final String dateAdded;
         private final String dateUpdated;
+        private final long itemId;
 
         public InventoryRecord(String itemName, String category, int quantity, double price, String dateAdded, String dateUpdated) {
+            this(-1, itemName, category, quantity, price, dateAdded, dateUpdated);
+        }
+
+        public InventoryRecord(long itemId, String itemName, String category, int quantity, double price, String dateAdded, String dateUpdated) {
+            this.itemId = itemId;
             this.itemName = itemName;
             this.category = category;
             this.quantity = quantity;
@@ -76,6 +95,10 @@ public class SupabaseClient {
         public String getDateUpdated() {
             return dateUpdated;
         }
+
+        public long getItemId() {
+            return itemId;
+        }
     }
 
     public static class SaleItem {
@@ -163,13 +186,15 @@ public class SupabaseClient {
     }
 
     public static class SaleHistoryLineRecord {
+        private final long saleDetailId;
         private final long saleId;
         private final String saleDate;
         private final String productName;
         private final int quantity;
         private final double price;
 
-        public SaleHistoryLineRecord(long saleId, String saleDate, String productName, int quantity, double price) {
+        public SaleHistoryLineRecord(long saleDetailId, long saleId, String saleDate, String productName, int quantity, double price) {
+            this.saleDetailId = saleDetailId;
             this.saleId = saleId;
             this.saleDate = saleDate;
             this.productName = productName;
@@ -177,6 +202,10 @@ public class SupabaseClient {
             this.price = price;
         }
 
+        public long getSaleDetailId() {
+            return saleDetailId;
+        }
+
         public long getSaleId() {
             return saleId;
         }
@@ -198,6 +227,27 @@ public class SupabaseClient {
         }
     }
 
+    public static class SaleHistoryDelta {
+        private final List<SaleHistoryLineRecord> lines;
+        private final long latestSaleDetailId;
+
+        public SaleHistoryDelta(List<SaleHistoryLineRecord> lines, long latestSaleDetailId) {
+            this.lines = lines;
+            this.latestSaleDetailId = latestSaleDetailId;
+        }
+
+        public List<SaleHistoryLineRecord> getLines() {
+            return lines;
+        }
+
+        /**
+         * Highest {@code sale_detail_id} in the cloud when the delta was read, or 0 when there are none.
+         */
+        public long getLatestSaleDetailId() {
+            return latestSaleDetailId;
+        }
+    }
+
     public static class ExpirationRecord {
         private final long expirationId;
         private final String itemName;
@@ -306,9 +356,52 @@ public class SupabaseClient {
         }
     }
 
+    public static class RequestFailedException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        private final int statusCode;
+
+        public RequestFailedException(int statusCode, String message) {
+            super(message);
+            this.statusCode = statusCode;
+        }
+
+        public int getStatusCode() {
+            return statusCode;
+        }
+
+        /**
+         * True when the server refused the request itself; retrying the same body will not help.
+         */
+        public boolean isRejected() {
+            return statusCode >= 400 && statusCode < 500
+                    && statusCode != 401 && statusCode != 403 && statusCode != 408 && statusCode != 429;
+        }
+    }
+
+    @FunctionalInterface
+    public interface RowWriter {
+        void writeRow(JsonBodyWriter json, int index);
+    }
+
+    @FunctionalInterface
+    private interface AsyncStep<T, U> {
+        U apply(T value) throws IOException;
+    }
+
+    // Streamed bodies are parsed off the HttpClient threads since reading them blocks.
+    private static final Executor JSON_PARSE_EXECUTOR = Executors.newVirtualThreadPerTaskExecutor();
+    private static final byte[] INACTIVE_PRODUCT_BODY = "{\"is_active\":false}".getBytes(StandardCharsets.UTF_8);
+    private static final int BULK_ROW_CHUNK = 500;
+    private static final int BULK_FILTER_CHUNK = 150;
+    private static final int DEFAULT_MAX_PARALLEL_REQUESTS = 4;
+    private static final String SALE_HISTORY_COLUMNS = "sale_detail_id,quantity,price,sales(sale_id,sale_date),product(product_name)";
+
     private final String supabaseUrl;
     private final String publishableKey;
     private final HttpClient httpClient;
+    private final SupabaseIdCache idCache;
+    private volatile int maxParallelRequests = DEFAULT_MAX_PARALLEL_REQUESTS;
 
     public SupabaseClient(String supabaseUrl, String publishableKey) {
         this.supabaseUrl = trimTrailingSlash(supabaseUrl);
@@ -316,16 +409,37 @@ public class SupabaseClient {
         this.httpClient = HttpClient.newBuilder()
                 .connectTimeout(Duration.ofSeconds(20))
                 .build();
+        this.idCache = new SupabaseIdCache(this.supabaseUrl);
+        this.idCache.load();
+    }
+
+    /**
+     * Caps how many independent requests one bulk call keeps in flight at a time.
+     */
+    public void setMaxParallelRequests(int maxParallelRequests) {
+        this.maxParallelRequests = Math.max(1, maxParallelRequests);
+    }
+
+    public String getSupabaseUrl() {
+        return supabaseUrl;
+    }
+
+    public void saveIdCache() throws IOException {
+        idCache.save();
+    }
+
+    public void clearIdCache() {
+        idCache.clear();
     }
 
     public SupabaseSession signUp(String email, String password) throws IOException, InterruptedException {
-        String body = "{\"email\":\"" + jsonEscape(email) + "\",\"password\":\"" + jsonEscape(password) + "\"}";
+        byte[] body = credentialsBody(email, password);
         HttpResponse<String> response = sendJsonRequest("POST", "/auth/v1/signup", body, null, false);
         return parseSession(response.body(), false);
     }
 
     public SupabaseSession signIn(String email, String password) throws IOException, InterruptedException {
-        String body = "{\"email\":\"" + jsonEscape(email) + "\",\"password\":\"" + jsonEscape(password) + "\"}";
+        byte[] body = credentialsBody(email, password);
         HttpResponse<String> response = sendJsonRequest(
                 "POST",
                 "/auth/v1/token?grant_type=password",
@@ -337,7 +451,9 @@ public class SupabaseClient {
     }
 
     public SupabaseSession refreshSession(String refreshToken) throws IOException, InterruptedException {
-        String body = "{\"refresh_token\":\"" + jsonEscape(refreshToken) + "\"}";
+        byte[] body = JsonBodyWriter.write(json -> json.beginObject()
+                .name("refresh_token").value(refreshToken)
+                .endObject());
         HttpResponse<String> response = sendJsonRequest(
                 "POST",
                 "/auth/v1/token?grant_type=refresh_token",
@@ -351,43 +467,26 @@ public class SupabaseClient {
     public void upsertProfile(SupabaseSession session, UserData userData) throws IOException, InterruptedException {
         long existingUserId = findUserIdByUsername(session, userData.getUsername());
         if (existingUserId > 0) {
-            String patchBody = "{"
-                    + "\"full_name\":\"" + jsonEscape(userData.getName()) + "\","
-                    + "\"role\":\"staff\","
-                    + "\"password\":\"" + jsonEscape(userData.getPassword()) + "\","
-                    + "\"is_active\":true"
-                    + "}";
+            byte[] patchBody = JsonBodyWriter.write(json -> json.beginObject()
+                    .name("full_name").value(userData.getName())
+                    .name("role").value("staff")
+                    .name("password").value(userData.getPassword())
+                    .name("is_active").value(true)
+                    .endObject());
             sendJsonRequest("PATCH", "/rest/v1/user?user_id=eq." + existingUserId, patchBody, session.getAccessToken(), false);
             return;
         }
 
-        String insertBody = "[{\"full_name\":\"" + jsonEscape(userData.getName()) + "\","
-                + "\"role\":\"staff\","
-                + "\"username\":\"" + jsonEscape(userData.getUsername()) + "\","
-                + "\"password\":\"" + jsonEscape(userData.getPassword()) + "\","
-                + "\"is_active\":true}]";
+        byte[] insertBody = JsonBodyWriter.write(json -> json.beginArray().beginObject()
+                .name("full_name").value(userData.getName())
+                .name("role").value("staff")
+                .name("username").value(userData.getUsername())
+                .name("password").value(userData.getPassword())
+                .name("is_active").value(true)
+                .endObject().endArray());
         sendJsonRequest("POST", "/rest/v1/user", insertBody, session.getAccessToken(), false);
     }
 
-    public void insertInventoryItem(
-            SupabaseSession session,
-            String itemName,
-            String category,
-            int quantity,
-            double price,
-            String dateAdded,
-            String dateUpdated,
-            boolean linkToProduct
-    ) throws IOException, InterruptedException {
-        long categoryId = ensureCategory(session, category);
-        long itemId = insertItem(session, itemName, category, quantity, price);
-        if (linkToProduct) {
-            ensureProductAndIngredient(session, itemName, category, categoryId, itemId);
-        } else {
-            deactivateProductByName(session, itemName, itemId);
-        }
-    }
-
     public void updateInventoryItemByName(
             SupabaseSession session,
             String originalItemName,
@@ -399,24 +498,21 @@ public class SupabaseClient {
             boolean linkToProduct
     ) throws IOException, InterruptedException {
         long categoryId = ensureCategory(session, category);
-        long itemId = findItemIdByName(session, originalItemName);
+        byte[] body = JsonBodyWriter.write(json -> json.beginObject()
+                .name("item_name").value(itemName)
+                .name("unit_type").value(category)
+                .name("quantity_on_hand").value(quantity)
+                .name("unit_cost").decimal(price)
+                .endObject());
+        long itemId = await(writeByNameAsync(session, SupabaseIdCache.Kind.ITEM, "item", "item_id", "item_name", originalItemName, id ->
+                sendJsonRequestAsync("PATCH", "/rest/v1/item?item_id=eq." + id, body, session.getAccessToken(), false)));
         if (itemId <= 0) {
             throw new IOException("Item not found: " + originalItemName);
         }
+        idCache.invalidate(SupabaseIdCache.Kind.ITEM, originalItemName);
+        idCache.put(SupabaseIdCache.Kind.ITEM, itemName, itemId);
 
-        String path = "/rest/v1/item?item_id=eq." + itemId;
-        String body = "{"
-                + "\"item_name\":\"" + jsonEscape(itemName) + "\","
-                + "\"unit_type\":\"" + jsonEscape(category) + "\","
-                + "\"quantity_on_hand\":" + quantity + ","
-                + "\"unit_cost\":" + price
-                + "}";
-        sendJsonRequest("PATCH", path, body, session.getAccessToken(), false);
-
-        long refreshedItemId = findItemIdByName(session, itemName);
-        if (refreshedItemId <= 0) {
-            refreshedItemId = itemId;
-        }
+        long refreshedItemId = itemId;
         if (linkToProduct) {
             ensureProductAndIngredient(session, itemName, category, categoryId, refreshedItemId);
         } else {
@@ -428,130 +524,270 @@ public class SupabaseClient {
     }
 
     public void deleteInventoryItemByName(SupabaseSession session, String itemName) throws IOException, InterruptedException {
-        long itemId = findItemIdByName(session, itemName);
-        long productId = findProductIdByName(session, itemName);
+        deleteInventoryItemsByName(session, List.of(itemName));
+    }
 
-        if (productId > 0) {
-            sendJsonRequest(
-                    "DELETE",
-                    "/rest/v1/ingredients?product_id=eq." + productId,
-                    null,
-                    session.getAccessToken(),
-                    false
-            );
-            sendJsonRequest(
-                    "PATCH",
-                    "/rest/v1/product?product_id=eq." + productId,
-                    "{\"is_active\":false}",
-                    session.getAccessToken(),
-                    false
-            );
+    public void deleteInventoryItemsByName(SupabaseSession session, Collection<String> itemNames) throws IOException, InterruptedException {
+        if (itemNames == null || itemNames.isEmpty()) {
+            return;
         }
-
-        if (itemId > 0) {
-            sendJsonRequest("DELETE", "/rest/v1/item?item_id=eq." + itemId, null, session.getAccessToken(), false);
+        writeRowsByNames(session, SupabaseIdCache.Kind.PRODUCT, "product", "product_id", "product_name", itemNames, null, productIds ->
+                compose(deleteRowsByIdsAsync(session, "ingredients", "product_id", productIds.values()), deleted ->
+                        patchRowsByIdsAsync(session, "product", "product_id", productIds.values(), INACTIVE_PRODUCT_BODY)));
+        writeRowsByNames(session, SupabaseIdCache.Kind.ITEM, "item", "item_id", "item_name", itemNames, null, itemIds ->
+                deleteRowsByIdsAsync(session, "item", "item_id", itemIds.values()));
+        for (String itemName : itemNames) {
+            idCache.invalidate(SupabaseIdCache.Kind.ITEM, itemName);
         }
     }
 
     public List<InventoryRecord> fetchInventory(SupabaseSession session) throws IOException, InterruptedException {
-        String path = "/rest/v1/item?select=item_name,unit_type,quantity_on_hand,unit_cost&order=item_id.desc";
-        HttpResponse<String> response = sendJsonRequest("GET", path, null, session.getAccessToken(), false);
-        return parseInventoryRecords(response.body());
+        return await(fetchInventoryAsync(session));
+    }
+
+    public CompletableFuture<List<InventoryRecord>> fetchInventoryAsync(SupabaseSession session) {
+        String path = "/rest/v1/item?select=item_id,item_name,unit_type,quantity_on_hand,unit_cost&order=item_id.desc";
+        return fetchRowsAsync(session, path, json -> {
+            List<InventoryRecord> records = parseInventoryRecords(json);
+            for (InventoryRecord record : records) {
+                idCache.put(SupabaseIdCache.Kind.ITEM, record.getItemName(), record.getItemId());
+            }
+            return records;
+        });
     }
 
-    public void updateInventoryQuantityByName(
+    public void updateInventoryQuantitiesByName(
             SupabaseSession session,
-            String itemName,
-            int quantity
+            Map<String, Integer> quantitiesByName
     ) throws IOException, InterruptedException {
-        long itemId = findItemIdByName(session, itemName);
-        if (itemId <= 0) {
-            throw new IOException("Item not found: " + itemName);
+        if (quantitiesByName == null || quantitiesByName.isEmpty()) {
+            return;
         }
-        sendJsonRequest(
-                "PATCH",
-                "/rest/v1/item?item_id=eq." + itemId,
-                "{\"quantity_on_hand\":" + quantity + "}",
-                session.getAccessToken(),
-                false
-        );
+        writeRowsByNames(session, SupabaseIdCache.Kind.ITEM, "item", "item_id", "item_name", quantitiesByName.keySet(), "Item not found: ",
+                itemIds -> patchQuantitiesAsync(session, itemIds, quantitiesByName));
     }
 
-    public void placeSaleForInventoryItem(
+    public long placeCheckoutSale(
             SupabaseSession session,
-            String itemName,
-            String category,
-            int soldQuantity,
-            double unitPrice,
-            int remainingQuantity
+            List<SaleItem> saleItems,
+            Map<String, Integer> ingredientUsage
     ) throws IOException, InterruptedException {
-        long userId = ensureOperationalUser(session);
-        long itemId = findItemIdByName(session, itemName);
-        if (itemId <= 0) {
-            throw new IOException("Item not found for sale: " + itemName);
-        }
-
-        long categoryId = ensureCategory(session, category);
-        long productId = ensureProductAndIngredient(session, itemName, category, categoryId, itemId);
-
-        long saleId = insertSale(session, userId);
-        insertSalesDetail(session, saleId, productId, soldQuantity, unitPrice);
-
-        String updateStockBody = "{\"quantity_on_hand\":" + remainingQuantity + "}";
-        sendJsonRequest(
-                "PATCH",
-                "/rest/v1/item?item_id=eq." + itemId,
-                updateStockBody,
-                session.getAccessToken(),
-                false
-        );
+        return placeCheckoutSale(session, null, saleItems, ingredientUsage);
     }
 
-    public long placeSale(SupabaseSession session, List<SaleItem> saleItems) throws IOException, InterruptedException {
+    /**
+     * Places the sale at most once per operation id; replaying the same id returns the original sale id.
+     */
+    public long placeCheckoutSale(
+            SupabaseSession session,
+            String operationId,
+            List<SaleItem> saleItems,
+            Map<String, Integer> ingredientUsage
+    ) throws IOException, InterruptedException {
         if (saleItems == null || saleItems.isEmpty()) {
             return -1;
         }
+        return await(placeCheckoutSaleAsync(session, operationId, saleItems, ingredientUsage));
+    }
 
-        long userId = ensureOperationalUser(session);
-        long saleId = insertSale(session, userId);
+    public CompletableFuture<Long> placeCheckoutSaleAsync(
+            SupabaseSession session,
+            List<SaleItem> saleItems,
+            Map<String, Integer> ingredientUsage
+    ) {
+        return placeCheckoutSaleAsync(session, null, saleItems, ingredientUsage);
+    }
 
-        for (SaleItem saleItem : saleItems) {
-            long itemId = findItemIdByName(session, saleItem.getItemName());
-            if (itemId <= 0) {
-                throw new IOException("Item not found for sale: " + saleItem.getItemName());
+    public CompletableFuture<Long> placeCheckoutSaleAsync(
+            SupabaseSession session,
+            String operationId,
+            List<SaleItem> saleItems,
+            Map<String, Integer> ingredientUsage
+    ) {
+        byte[] body;
+        try (JsonBodyWriter json = JsonBodyWriter.acquire()) {
+            json.beginObject();
+            if (operationId != null) {
+                json.name("p_op_id").value(operationId);
+            }
+            json.name("p_username").value(resolveOperationalUsername(session));
+            json.name("p_lines").beginArray();
+            for (SaleItem saleItem : saleItems) {
+                json.beginObject()
+                        .name("product_name").value(saleItem.getItemName())
+                        .name("category").value(saleItem.getCategory())
+                        .name("quantity").value(saleItem.getSoldQuantity())
+                        .name("price").decimal(saleItem.getUnitPrice())
+                        .endObject();
             }
+            json.endArray();
+            json.name("p_usage").beginArray();
+            if (ingredientUsage != null) {
+                for (Map.Entry<String, Integer> entry : ingredientUsage.entrySet()) {
+                    json.beginObject()
+                            .name("item_name").value(entry.getKey())
+                            .name("quantity").value(entry.getValue())
+                            .endObject();
+                }
+            }
+            json.endArray().endObject();
+            body = json.toByteArray();
+        }
+        String function = operationId == null ? "app_checkout_sale" : "app_checkout_sale_once";
+        return map(callRpcForIdAsync(session, function, body), saleId -> {
+            if (saleId <= 0) {
+                throw new IOException("Unable to resolve created sale id.");
+            }
+            return saleId;
+        });
+    }
+
+    public long recordItemStockOutAtomic(
+            SupabaseSession session,
+            String itemName,
+            int quantity,
+            double cost,
+            String reason
+    ) throws IOException, InterruptedException {
+        return await(recordItemStockOutAtomicAsync(session, itemName, quantity, cost, reason));
+    }
 
-            long categoryId = ensureCategory(session, saleItem.getCategory());
-            long productId = ensureProductAndIngredient(session, saleItem.getItemName(), saleItem.getCategory(), categoryId, itemId);
+    public CompletableFuture<Long> recordItemStockOutAtomicAsync(
+            SupabaseSession session,
+            String itemName,
+            int quantity,
+            double cost,
+            String reason
+    ) {
+        byte[] body = JsonBodyWriter.write(json -> json.beginObject()
+                .name("p_username").value(resolveOperationalUsername(session))
+                .name("p_item_name").value(itemName)
+                .name("p_quantity").value(quantity)
+                .name("p_cost").decimal(cost)
+                .name("p_reason").value(reason == null ? "" : reason)
+                .endObject());
+        return map(callRpcForIdAsync(session, "app_record_item_stock_out", body), stockoutId -> {
+            if (stockoutId <= 0) {
+                throw new IOException("Unable to resolve created stock_out id.");
+            }
+            return stockoutId;
+        });
+    }
 
-            insertSalesDetail(session, saleId, productId, saleItem.getSoldQuantity(), saleItem.getUnitPrice());
+    public long upsertInventoryItem(
+            SupabaseSession session,
+            String itemName,
+            String category,
+            int quantity,
+            double price,
+            boolean linkToProduct
+    ) throws IOException, InterruptedException {
+        return upsertInventoryItem(session, null, itemName, category, quantity, price, linkToProduct);
+    }
 
-            String updateStockBody = "{\"quantity_on_hand\":" + saleItem.getRemainingQuantity() + "}";
-            sendJsonRequest(
-                    "PATCH",
-                    "/rest/v1/item?item_id=eq." + itemId,
-                    updateStockBody,
-                    session.getAccessToken(),
-                    false
-            );
-        }
-        return saleId;
+    /**
+     * Applies the upsert at most once per operation id, so a replay cannot write its quantity back
+     * over later changes.
+     */
+    public long upsertInventoryItem(
+            SupabaseSession session,
+            String operationId,
+            String itemName,
+            String category,
+            int quantity,
+            double price,
+            boolean linkToProduct
+    ) throws IOException, InterruptedException {
+        return await(upsertInventoryItemAsync(session, operationId, itemName, category, quantity, price, linkToProduct));
     }
 
-    public long placeProductSale(SupabaseSession session, List<SaleItem> saleItems) throws IOException, InterruptedException {
-        if (saleItems == null || saleItems.isEmpty()) {
-            return -1;
-        }
+    public CompletableFuture<Long> upsertInventoryItemAsync(
+            SupabaseSession session,
+            String itemName,
+            String category,
+            int quantity,
+            double price,
+            boolean linkToProduct
+    ) {
+        return upsertInventoryItemAsync(session, null, itemName, category, quantity, price, linkToProduct);
+    }
+
+    public CompletableFuture<Long> upsertInventoryItemAsync(
+            SupabaseSession session,
+            String operationId,
+            String itemName,
+            String category,
+            int quantity,
+            double price,
+            boolean linkToProduct
+    ) {
+        byte[] body = JsonBodyWriter.write(json -> {
+            json.beginObject()
+                    .name("p_item_name").value(itemName)
+                    .name("p_unit_type").value(category)
+                    .name("p_quantity").value(quantity)
+                    .name("p_unit_cost").decimal(price)
+                    .name("p_link_product").value(linkToProduct);
+            if (operationId != null) {
+                json.name("p_op_id").value(operationId);
+            }
+            json.endObject();
+        });
+        return map(callRpcForIdAsync(session, "app_upsert_inventory_item", body), itemId -> {
+            if (itemId <= 0) {
+                throw new IOException("Unable to resolve upserted item id for: " + itemName);
+            }
+            idCache.put(SupabaseIdCache.Kind.ITEM, itemName, itemId);
+            return itemId;
+        });
+    }
 
-        long userId = ensureOperationalUser(session);
-        long saleId = insertSale(session, userId);
+    public long updateInventoryItem(
+            SupabaseSession session,
+            String originalItemName,
+            String itemName,
+            String category,
+            int quantity,
+            double price,
+            boolean linkToProduct
+    ) throws IOException, InterruptedException {
+        return updateInventoryItem(session, null, originalItemName, itemName, category, quantity, price, linkToProduct);
+    }
 
-        for (SaleItem saleItem : saleItems) {
-            long categoryId = ensureCategory(session, saleItem.getCategory());
-            long productId = ensureStandaloneProduct(session, saleItem.getItemName(), saleItem.getCategory(), categoryId);
-            insertSalesDetail(session, saleId, productId, saleItem.getSoldQuantity(), saleItem.getUnitPrice());
+    /**
+     * Single-call rename/update. Replaying the same operation id returns the first result without
+     * touching the row again; without one, a replay after the rename degrades to an upsert of the new name.
+     */
+    public long updateInventoryItem(
+            SupabaseSession session,
+            String operationId,
+            String originalItemName,
+            String itemName,
+            String category,
+            int quantity,
+            double price,
+            boolean linkToProduct
+    ) throws IOException, InterruptedException {
+        byte[] body = JsonBodyWriter.write(json -> {
+            json.beginObject()
+                    .name("p_original_name").value(originalItemName)
+                    .name("p_item_name").value(itemName)
+                    .name("p_unit_type").value(category)
+                    .name("p_quantity").value(quantity)
+                    .name("p_unit_cost").decimal(price)
+                    .name("p_link_product").value(linkToProduct);
+            if (operationId != null) {
+                json.name("p_op_id").value(operationId);
+            }
+            json.endObject();
+        });
+        long itemId = await(callRpcForIdAsync(session, "app_update_inventory_item", body));
+        if (itemId <= 0) {
+            throw new IOException("Unable to resolve updated item id for: " + itemName);
         }
-        return saleId;
+        idCache.invalidate(SupabaseIdCache.Kind.ITEM, originalItemName);
+        idCache.put(SupabaseIdCache.Kind.ITEM, itemName, itemId);
+        return itemId;
     }
 
     public void logAction(SupabaseSession session, String actionType, String details) throws IOException, InterruptedException {
@@ -563,15 +799,56 @@ public class SupabaseClient {
     }
 
     public List<SupplierRecord> fetchSuppliers(SupabaseSession session) throws IOException, InterruptedException {
+        return await(fetchSuppliersAsync(session));
+    }
+
+    public CompletableFuture<List<SupplierRecord>> fetchSuppliersAsync(SupabaseSession session) {
         String path = "/rest/v1/supplier?select=supplier_id,supplier_name,contact_person,phone,email,address,status&order=supplier_id.desc";
-        HttpResponse<String> response = sendJsonRequest("GET", path, null, session.getAccessToken(), false);
-        return parseSupplierRecords(response.body());
+        return fetchRowsAsync(session, path, SupabaseClient::parseSupplierRecords);
     }
 
     public List<SaleHistoryLineRecord> fetchSalesHistory(SupabaseSession session) throws IOException, InterruptedException {
-        String path = "/rest/v1/sales_details?select=quantity,price,sales(sale_id,sale_date),product(product_name)&order=sale_detail_id.desc";
-        HttpResponse<String> response = sendJsonRequest("GET", path, null, session.getAccessToken(), false);
-        return parseSaleHistoryLineRecords(response.body());
+        return await(fetchSalesHistoryAsync(session));
+    }
+
+    public CompletableFuture<List<SaleHistoryLineRecord>> fetchSalesHistoryAsync(SupabaseSession session) {
+        String path = "/rest/v1/sales_details?select=" + SALE_HISTORY_COLUMNS + "&order=sale_detail_id.desc";
+        return fetchRowsAsync(session, path, SupabaseClient::parseSaleHistoryLineRecords);
+    }
+
+    /**
+     * Sale lines with {@code sale_detail_id} strictly above {@code afterSaleDetailId}, oldest first,
+     * together with the highest id the cloud currently holds.
+     */
+    public SaleHistoryDelta fetchSalesHistorySince(SupabaseSession session, long afterSaleDetailId) throws IOException, InterruptedException {
+        String path = "/rest/v1/sales_details?select=" + SALE_HISTORY_COLUMNS
+                + "&sale_detail_id=gt." + Math.max(0, afterSaleDetailId)
+                + "&order=sale_detail_id.asc";
+        CompletableFuture<List<SaleHistoryLineRecord>> linesStage = fetchRowsAsync(session, path, SupabaseClient::parseSaleHistoryLineRecords);
+        CompletableFuture<Long> latestStage = fetchLatestSaleDetailIdAsync(session);
+        await(allOrNothing(linesStage, latestStage));
+        return new SaleHistoryDelta(linesStage.join(), latestStage.join());
+    }
+
+    private CompletableFuture<Long> fetchLatestSaleDetailIdAsync(SupabaseSession session) {
+        String path = "/rest/v1/sales_details?select=sale_detail_id&order=sale_detail_id.desc&limit=1";
+        return fetchRowsAsync(session, path, json -> {
+            long latest = 0;
+            json.beginArray();
+            while (json.hasNext()) {
+                json.beginObject();
+                while (json.hasNext()) {
+                    if ("sale_detail_id".equals(json.nextName())) {
+                        latest = Math.max(latest, json.nextLong(0));
+                    } else {
+                        json.skipValue();
+                    }
+                }
+                json.endObject();
+            }
+            json.endArray();
+            return latest;
+        });
     }
 
     public void addSupplier(
@@ -583,12 +860,14 @@ public class SupabaseClient {
             String address,
             String status
     ) throws IOException, InterruptedException {
-        String body = "[{\"supplier_name\":\"" + jsonEscape(supplierName) + "\","
-                + "\"contact_person\":\"" + jsonEscape(contactPerson) + "\","
-                + "\"phone\":\"" + jsonEscape(phone) + "\","
-                + "\"email\":\"" + jsonEscape(email) + "\","
-                + "\"address\":\"" + jsonEscape(address) + "\","
-                + "\"status\":\"" + jsonEscape(status) + "\"}]";
+        byte[] body = JsonBodyWriter.write(json -> json.beginArray().beginObject()
+                .name("supplier_name").value(defaultString(supplierName))
+                .name("contact_person").value(defaultString(contactPerson))
+                .name("phone").value(defaultString(phone))
+                .name("email").value(defaultString(email))
+                .name("address").value(defaultString(address))
+                .name("status").value(defaultString(status))
+                .endObject().endArray());
         sendJsonRequest("POST", "/rest/v1/supplier", body, session.getAccessToken(), false);
     }
 
@@ -606,21 +885,24 @@ public class SupabaseClient {
             String address,
             String status
     ) throws IOException, InterruptedException {
-        String body = "{"
-                + "\"supplier_name\":\"" + jsonEscape(supplierName) + "\","
-                + "\"contact_person\":\"" + jsonEscape(contactPerson) + "\","
-                + "\"phone\":\"" + jsonEscape(phone) + "\","
-                + "\"email\":\"" + jsonEscape(email) + "\","
-                + "\"address\":\"" + jsonEscape(address) + "\","
-                + "\"status\":\"" + jsonEscape(status) + "\""
-                + "}";
+        byte[] body = JsonBodyWriter.write(json -> json.beginObject()
+                .name("supplier_name").value(defaultString(supplierName))
+                .name("contact_person").value(defaultString(contactPerson))
+                .name("phone").value(defaultString(phone))
+                .name("email").value(defaultString(email))
+                .name("address").value(defaultString(address))
+                .name("status").value(defaultString(status))
+                .endObject());
         sendJsonRequest("PATCH", "/rest/v1/supplier?supplier_id=eq." + supplierId, body, session.getAccessToken(), false);
     }
 
     public List<ExpirationRecord> fetchExpirations(SupabaseSession session) throws IOException, InterruptedException {
+        return await(fetchExpirationsAsync(session));
+    }
+
+    public CompletableFuture<List<ExpirationRecord>> fetchExpirationsAsync(SupabaseSession session) {
         String path = "/rest/v1/expiration?select=expiration_id,unit_type,unit_quantity,expiration_date,item(item_name)&order=expiration_id.desc";
-        HttpResponse<String> response = sendJsonRequest("GET", path, null, session.getAccessToken(), false);
-        return parseExpirationRecords(response.body());
+        return fetchRowsAsync(session, path, SupabaseClient::parseExpirationRecords);
     }
 
     public void addExpiration(
@@ -634,10 +916,12 @@ public class SupabaseClient {
         if (itemId <= 0) {
             throw new IOException("Item not found: " + itemName);
         }
-        String body = "[{\"item_id\":" + itemId + ","
-                + "\"unit_type\":\"" + jsonEscape(unitType) + "\","
-                + "\"unit_quantity\":" + unitQuantity + ","
-                + "\"expiration_date\":\"" + jsonEscape(expirationDate) + "\"}]";
+        byte[] body = JsonBodyWriter.write(json -> json.beginArray().beginObject()
+                .name("item_id").value(itemId)
+                .name("unit_type").value(defaultString(unitType))
+                .name("unit_quantity").value(unitQuantity)
+                .name("expiration_date").value(defaultString(expirationDate))
+                .endObject().endArray());
         sendJsonRequest("POST", "/rest/v1/expiration", body, session.getAccessToken(), false);
     }
 
@@ -657,19 +941,22 @@ public class SupabaseClient {
         if (itemId <= 0) {
             throw new IOException("Item not found: " + itemName);
         }
-        String body = "{"
-                + "\"item_id\":" + itemId + ","
-                + "\"unit_type\":\"" + jsonEscape(unitType) + "\","
-                + "\"unit_quantity\":" + unitQuantity + ","
-                + "\"expiration_date\":\"" + jsonEscape(expirationDate) + "\""
-                + "}";
+        byte[] body = JsonBodyWriter.write(json -> json.beginObject()
+                .name("item_id").value(itemId)
+                .name("unit_type").value(defaultString(unitType))
+                .name("unit_quantity").value(unitQuantity)
+                .name("expiration_date").value(defaultString(expirationDate))
+                .endObject());
         sendJsonRequest("PATCH", "/rest/v1/expiration?expiration_id=eq." + expirationId, body, session.getAccessToken(), false);
     }
 
     public List<IngredientRecord> fetchIngredients(SupabaseSession session) throws IOException, InterruptedException {
+        return await(fetchIngredientsAsync(session));
+    }
+
+    public CompletableFuture<List<IngredientRecord>> fetchIngredientsAsync(SupabaseSession session) {
         String path = "/rest/v1/ingredients?select=unit_type,quantity_needed,product(product_name),item(item_name)&order=product_id.asc";
-        HttpResponse<String> response = sendJsonRequest("GET", path, null, session.getAccessToken(), false);
-        return parseIngredientRecords(response.body());
+        return fetchRowsAsync(session, path, SupabaseClient::parseIngredientRecords);
     }
 
     public void addOrUpdateIngredient(
@@ -679,27 +966,120 @@ public class SupabaseClient {
             String unitType,
             int quantityNeeded
     ) throws IOException, InterruptedException {
-        long productId = findProductIdByName(session, productName);
-        long itemId = findItemIdByName(session, itemName);
-        if (productId <= 0) {
-            throw new IOException("Product not found: " + productName);
+        addOrUpdateIngredients(session, List.of(new IngredientRecord(productName, itemName, unitType, quantityNeeded)));
+    }
+
+    public void addOrUpdateIngredients(SupabaseSession session, List<IngredientRecord> ingredients) throws IOException, InterruptedException {
+        if (ingredients == null || ingredients.isEmpty()) {
+            return;
         }
-        if (itemId <= 0) {
-            throw new IOException("Item not found: " + itemName);
+        Set<String> productNames = new LinkedHashSet<>();
+        Set<String> itemNames = new LinkedHashSet<>();
+        for (IngredientRecord ingredient : ingredients) {
+            productNames.add(ingredient.getProductName());
+            itemNames.add(ingredient.getItemName());
         }
+        Map<String, Long> productIds = findProductIdsByNames(session, productNames);
+        Map<String, Long> itemIds = findItemIdsByNames(session, itemNames);
 
-        sendJsonRequest(
-                "DELETE",
-                "/rest/v1/ingredients?product_id=eq." + productId + "&item_id=eq." + itemId + "&unit_type=eq." + urlEncode(unitType),
-                null,
-                session.getAccessToken(),
-                false
-        );
-        String body = "[{\"product_id\":" + productId + ","
-                + "\"item_id\":" + itemId + ","
-                + "\"unit_type\":\"" + jsonEscape(unitType) + "\","
-                + "\"quantity_needed\":" + quantityNeeded + "}]";
-        sendJsonRequest("POST", "/rest/v1/ingredients", body, session.getAccessToken(), false);
+        for (IngredientRecord ingredient : ingredients) {
+            if (!productIds.containsKey(ingredient.getProductName())) {
+                throw new IOException("Product not found: " + ingredient.getProductName());
+            }
+            if (!itemIds.containsKey(ingredient.getItemName())) {
+                throw new IOException("Item not found: " + ingredient.getItemName());
+            }
+        }
+        upsertRows(session, "ingredients", "product_id,item_id,unit_type", ingredients.size(), (json, i) -> {
+            IngredientRecord ingredient = ingredients.get(i);
+            json.beginObject()
+                    .name("product_id").value(productIds.get(ingredient.getProductName()))
+                    .name("item_id").value(itemIds.get(ingredient.getItemName()))
+                    .name("unit_type").value(defaultString(ingredient.getUnitType()))
+                    .name("quantity_needed").value(ingredient.getQuantityNeeded())
+                    .endObject();
+        });
+    }
+
+    public String insertRows(
+            SupabaseSession session,
+            String table,
+            int rowCount,
+            RowWriter rowWriter
+    ) throws IOException, InterruptedException {
+        return writeRows(session, "/rest/v1/" + table, rowCount, rowWriter, false);
+    }
+
+    public String upsertRows(
+            SupabaseSession session,
+            String table,
+            String onConflict,
+            int rowCount,
+            RowWriter rowWriter
+    ) throws IOException, InterruptedException {
+        return writeRows(session, "/rest/v1/" + table + "?on_conflict=" + urlEncode(onConflict), rowCount, rowWriter, true);
+    }
+
+    public void deleteRowsByIds(
+            SupabaseSession session,
+            String table,
+            String idColumn,
+            Collection<Long> ids
+    ) throws IOException, InterruptedException {
+        await(deleteRowsByIdsAsync(session, table, idColumn, ids));
+    }
+
+    private CompletableFuture<List<HttpResponse<String>>> deleteRowsByIdsAsync(
+            SupabaseSession session,
+            String table,
+            String idColumn,
+            Collection<Long> ids
+    ) {
+        return fanOut(inFilters(ids), filter ->
+                sendJsonRequestAsync("DELETE", "/rest/v1/" + table + "?" + idColumn + "=in." + filter, null, session.getAccessToken(), false));
+    }
+
+    public void patchRowsByIds(
+            SupabaseSession session,
+            String table,
+            String idColumn,
+            Collection<Long> ids,
+            byte[] patchBody
+    ) throws IOException, InterruptedException {
+        await(patchRowsByIdsAsync(session, table, idColumn, ids, patchBody));
+    }
+
+    private CompletableFuture<List<HttpResponse<String>>> patchRowsByIdsAsync(
+            SupabaseSession session,
+            String table,
+            String idColumn,
+            Collection<Long> ids,
+            byte[] patchBody
+    ) {
+        return fanOut(inFilters(ids), filter ->
+                sendJsonRequestAsync("PATCH", "/rest/v1/" + table + "?" + idColumn + "=in." + filter, patchBody, session.getAccessToken(), false));
+    }
+
+    /**
+     * Sets each item's quantity_on_hand, one PATCH per distinct quantity.
+     */
+    private CompletableFuture<List<HttpResponse<String>>> patchQuantitiesAsync(
+            SupabaseSession session,
+            Map<String, Long> itemIds,
+            Map<String, Integer> quantitiesByName
+    ) {
+        Map<Integer, List<Long>> idsByQuantity = new LinkedHashMap<>();
+        for (Map.Entry<String, Long> entry : itemIds.entrySet()) {
+            idsByQuantity.computeIfAbsent(quantitiesByName.get(entry.getKey()), quantity -> new ArrayList<>()).add(entry.getValue());
+        }
+        return map(fanOut(new ArrayList<>(idsByQuantity.entrySet()), entry ->
+                patchRowsByIdsAsync(session, "item", "item_id", entry.getValue(), quantityOnHandBody(entry.getKey()))), groups -> {
+            List<HttpResponse<String>> responses = new ArrayList<>();
+            for (List<HttpResponse<String>> group : groups) {
+                responses.addAll(group);
+            }
+            return responses;
+        });
     }
 
     public void deleteIngredient(
@@ -707,309 +1087,580 @@ public class SupabaseClient {
             String productName,
             String itemName,
             String unitType
+    ) throws IOException, InterruptedException {
+        boolean cached = idCache.get(SupabaseIdCache.Kind.PRODUCT, productName) > 0
+                || idCache.get(SupabaseIdCache.Kind.ITEM, itemName) > 0;
+        if (deleteIngredientRows(session, productName, itemName, unitType) || !cached) {
+            return;
+        }
+        // Nothing matched: either there was no such ingredient or a cached id is stale; a fresh lookup tells.
+        idCache.invalidate(SupabaseIdCache.Kind.PRODUCT, productName);
+        idCache.invalidate(SupabaseIdCache.Kind.ITEM, itemName);
+        deleteIngredientRows(session, productName, itemName, unitType);
+    }
+
+    private boolean deleteIngredientRows(
+            SupabaseSession session,
+            String productName,
+            String itemName,
+            String unitType
     ) throws IOException, InterruptedException {
         long productId = findProductIdByName(session, productName);
         long itemId = findItemIdByName(session, itemName);
         if (productId <= 0 || itemId <= 0) {
-            return;
+            return false;
         }
-        sendJsonRequest(
+        HttpResponse<String> response = sendJsonRequest(
                 "DELETE",
                 "/rest/v1/ingredients?product_id=eq." + productId + "&item_id=eq." + itemId + "&unit_type=eq." + urlEncode(unitType),
                 null,
                 session.getAccessToken(),
                 false
         );
+        return !isEmptyRepresentation(response.body());
     }
 
     public List<StockOutItemRecord> fetchStockOutItems(SupabaseSession session) throws IOException, InterruptedException {
-        String path = "/rest/v1/stock_out_item?select=stockout_item_id,quantity,cost,stock_out(stockout_date,reason),item(item_name)&order=stockout_item_id.desc";
-        HttpResponse<String> response = sendJsonRequest("GET", path, null, session.getAccessToken(), false);
-        return parseStockOutItemRecords(response.body());
+        return await(fetchStockOutItemsAsync(session));
     }
 
-    public void recordItemStockOut(
-            SupabaseSession session,
-            String itemName,
-            int quantity,
-            double cost,
-            String reason
-    ) throws IOException, InterruptedException {
-        long userId = ensureOperationalUser(session);
-        long itemId = findItemIdByName(session, itemName);
-        if (itemId <= 0) {
-            throw new IOException("Item not found: " + itemName);
-        }
-
-        int onHand = fetchItemQuantityOnHand(session, itemId);
-        if (quantity > onHand) {
-            throw new IOException("Stock out exceeds quantity on hand. Available: " + onHand);
-        }
-
-        long stockoutId = insertStockOut(session, userId, reason);
-        String detailBody = "[{\"stockout_id\":" + stockoutId + ","
-                + "\"item_id\":" + itemId + ","
-                + "\"quantity\":" + quantity + ","
-                + "\"cost\":" + cost + "}]";
-        sendJsonRequest("POST", "/rest/v1/stock_out_item", detailBody, session.getAccessToken(), false);
-
-        int newQuantity = onHand - quantity;
-        sendJsonRequest(
-                "PATCH",
-                "/rest/v1/item?item_id=eq." + itemId,
-                "{\"quantity_on_hand\":" + newQuantity + "}",
-                session.getAccessToken(),
-                false
-        );
+    public CompletableFuture<List<StockOutItemRecord>> fetchStockOutItemsAsync(SupabaseSession session) {
+        String path = "/rest/v1/stock_out_item?select=stockout_item_id,quantity,cost,stock_out(stockout_date,reason),item(item_name)&order=stockout_item_id.desc";
+        return fetchRowsAsync(session, path, SupabaseClient::parseStockOutItemRecords);
     }
 
-    private long ensureOperationalUser(SupabaseSession session) throws IOException, InterruptedException {
+    private String resolveOperationalUsername(SupabaseSession session) {
         String username = session.getEmail();
         if (username == null || username.isBlank()) {
             String userIdToken = session.getUserId() == null ? "unknown" : session.getUserId().replace("-", "");
             username = "user_" + userIdToken.substring(0, Math.min(12, userIdToken.length()));
         }
+        return username;
+    }
 
-        long existing = findUserIdByUsername(session, username);
-        if (existing > 0) {
-            return existing;
-        }
+    private long ensureCategory(SupabaseSession session, String categoryName) throws IOException, InterruptedException {
+        return await(ensureCategoryAsync(session, categoryName));
+    }
 
-        String body = "[{\"full_name\":\"" + jsonEscape(username) + "\","
-                + "\"role\":\"staff\","
-                + "\"username\":\"" + jsonEscape(username) + "\","
-                + "\"password\":\"__supabase_auth__\","
-                + "\"is_active\":true}]";
-        sendJsonRequest("POST", "/rest/v1/user", body, session.getAccessToken(), false);
+    private CompletableFuture<Long> ensureCategoryAsync(SupabaseSession session, String categoryName) {
+        String normalized = normalizeCategory(categoryName);
+        return compose(findCategoryIdByNameAsync(session, normalized), existingId -> {
+            if (existingId > 0) {
+                return CompletableFuture.completedFuture(existingId);
+            }
 
-        long created = findUserIdByUsername(session, username);
-        if (created <= 0) {
-            throw new IOException("Unable to create/resolve ERD user.");
-        }
-        return created;
+            byte[] body = JsonBodyWriter.write(json -> json.beginArray().beginObject()
+                    .name("category_name").value(normalized)
+                    .name("description").value("Auto-generated from app")
+                    .endObject().endArray());
+            return compose(sendJsonRequestAsync("POST", "/rest/v1/category", body, session.getAccessToken(), false), response -> {
+                long createdId = extractJsonLong(response.body(), "category_id");
+                CompletableFuture<Long> resolved = createdId > 0
+                        ? CompletableFuture.completedFuture(createdId)
+                        : findCategoryIdByNameAsync(session, normalized);
+                return map(resolved, id -> {
+                    if (id <= 0) {
+                        throw new IOException("Unable to create/resolve category: " + normalized);
+                    }
+                    idCache.put(SupabaseIdCache.Kind.CATEGORY, normalized, id);
+                    return id;
+                });
+            });
+        });
     }
 
-    private long ensureCategory(SupabaseSession session, String categoryName) throws IOException, InterruptedException {
-        String normalized = (categoryName == null || categoryName.isBlank()) ? "Other" : categoryName.trim();
-        long existingId = findCategoryIdByName(session, normalized);
-        if (existingId > 0) {
-            return existingId;
-        }
-
-        String body = "[{\"category_name\":\"" + jsonEscape(normalized) + "\","
-                + "\"description\":\"Auto-generated from app\"}]";
-        sendJsonRequest("POST", "/rest/v1/category", body, session.getAccessToken(), false);
-
-        long createdId = findCategoryIdByName(session, normalized);
-        if (createdId <= 0) {
-            throw new IOException("Unable to create/resolve category: " + normalized);
-        }
-        return createdId;
-    }
-
-    private long insertItem(
+    private long ensureProductAndIngredient(
             SupabaseSession session,
-            String itemName,
-            String unitType,
-            int quantity,
-            double unitCost
+            String productName,
+            String unit,
+            long categoryId,
+            long itemId
     ) throws IOException, InterruptedException {
-        String body = "[{\"item_name\":\"" + jsonEscape(itemName) + "\","
-                + "\"unit_type\":\"" + jsonEscape(unitType) + "\","
-                + "\"quantity_on_hand\":" + quantity + ","
-                + "\"unit_cost\":" + unitCost + "}]";
-        HttpResponse<String> response = sendJsonRequest("POST", "/rest/v1/item", body, session.getAccessToken(), false);
-        long id = extractJsonLong(response.body(), "item_id");
-        if (id > 0) {
-            return id;
-        }
-        long lookup = findItemIdByName(session, itemName);
-        if (lookup > 0) {
-            return lookup;
-        }
-        throw new IOException("Unable to resolve inserted item id for: " + itemName);
+        return await(ensureProductAndIngredientAsync(session, productName, unit, categoryId, itemId));
     }
 
-    private long ensureProductAndIngredient(
+    private CompletableFuture<Long> ensureProductAndIngredientAsync(
             SupabaseSession session,
             String productName,
             String unit,
             long categoryId,
             long itemId
-    ) throws IOException, InterruptedException {
-        long productId = findProductIdByName(session, productName);
-        if (productId <= 0) {
-            String productBody = "[{\"product_name\":\"" + jsonEscape(productName) + "\","
-                    + "\"category_id\":" + categoryId + ","
-                    + "\"unit\":\"" + jsonEscape(unit) + "\","
-                    + "\"reorder_level\":10,"
-                    + "\"is_active\":true}]";
-            sendJsonRequest("POST", "/rest/v1/product", productBody, session.getAccessToken(), false);
-            productId = findProductIdByName(session, productName);
-        } else {
-            String patchProductBody = "{"
-                    + "\"product_name\":\"" + jsonEscape(productName) + "\","
-                    + "\"category_id\":" + categoryId + ","
-                    + "\"unit\":\"" + jsonEscape(unit) + "\","
-                    + "\"is_active\":true"
-                    + "}";
-            sendJsonRequest(
-                    "PATCH",
-                    "/rest/v1/product?product_id=eq." + productId,
-                    patchProductBody,
-                    session.getAccessToken(),
-                    false
-            );
-        }
-
-        if (productId <= 0) {
-            throw new IOException("Unable to create/resolve product: " + productName);
-        }
-
-        sendJsonRequest(
-                "DELETE",
-                "/rest/v1/ingredients?product_id=eq." + productId + "&item_id=eq." + itemId,
-                null,
-                session.getAccessToken(),
-                false
-        );
-        String ingredientBody = "[{\"product_id\":" + productId + ","
-                + "\"item_id\":" + itemId + ","
-                + "\"unit_type\":\"" + jsonEscape(unit) + "\","
-                + "\"quantity_needed\":1}]";
-        sendJsonRequest("POST", "/rest/v1/ingredients", ingredientBody, session.getAccessToken(), false);
-        return productId;
+    ) {
+        byte[] patchProductBody = JsonBodyWriter.write(json -> json.beginObject()
+                .name("product_name").value(productName)
+                .name("category_id").value(categoryId)
+                .name("unit").value(defaultString(unit))
+                .name("is_active").value(true)
+                .endObject());
+        CompletableFuture<Long> patched = writeByNameAsync(session, SupabaseIdCache.Kind.PRODUCT, "product", "product_id", "product_name", productName, id ->
+                sendJsonRequestAsync("PATCH", "/rest/v1/product?product_id=eq." + id, patchProductBody, session.getAccessToken(), false));
+        CompletableFuture<Long> product = compose(patched, existingId -> {
+            if (existingId > 0) {
+                return CompletableFuture.completedFuture(existingId);
+            }
+            byte[] productBody = JsonBodyWriter.write(json -> json.beginArray().beginObject()
+                    .name("product_name").value(productName)
+                    .name("category_id").value(categoryId)
+                    .name("unit").value(defaultString(unit))
+                    .name("reorder_level").value(10)
+                    .name("is_active").value(true)
+                    .endObject().endArray());
+            return insertProductAsync(session, productName, productBody);
+        });
+
+        return compose(product, productId -> {
+            if (productId <= 0) {
+                throw new IOException("Unable to create/resolve product: " + productName);
+            }
+            String ingredientPath = "/rest/v1/ingredients?product_id=eq." + productId + "&item_id=eq." + itemId;
+            byte[] ingredientBody = JsonBodyWriter.write(json -> json.beginArray().beginObject()
+                    .name("product_id").value(productId)
+                    .name("item_id").value(itemId)
+                    .name("unit_type").value(defaultString(unit))
+                    .name("quantity_needed").value(1)
+                    .endObject().endArray());
+            return compose(sendJsonRequestAsync("DELETE", ingredientPath, null, session.getAccessToken(), false), deleted ->
+                    map(sendJsonRequestAsync("POST", "/rest/v1/ingredients", ingredientBody, session.getAccessToken(), false), response -> productId));
+        });
+    }
+
+    private CompletableFuture<Long> insertProductAsync(SupabaseSession session, String productName, byte[] productBody) {
+        return compose(sendJsonRequestAsync("POST", "/rest/v1/product", productBody, session.getAccessToken(), false), response -> {
+            long productId = extractJsonLong(response.body(), "product_id");
+            if (productId <= 0) {
+                return findProductIdByNameAsync(session, productName);
+            }
+            idCache.put(SupabaseIdCache.Kind.PRODUCT, productName, productId);
+            return CompletableFuture.completedFuture(productId);
+        });
     }
 
-    private long ensureStandaloneProduct(
+    private void deactivateProductByName(
             SupabaseSession session,
             String productName,
-            String unit,
-            long categoryId
+            long itemId
     ) throws IOException, InterruptedException {
-        long productId = findProductIdByName(session, productName);
-        if (productId <= 0) {
-            String productBody = "[{\"product_name\":\"" + jsonEscape(productName) + "\","
-                    + "\"category_id\":" + categoryId + ","
-                    + "\"unit\":\"" + jsonEscape(unit) + "\","
-                    + "\"reorder_level\":10,"
-                    + "\"is_active\":true}]";
-            sendJsonRequest("POST", "/rest/v1/product", productBody, session.getAccessToken(), false);
-            productId = findProductIdByName(session, productName);
-        } else {
-            String patchProductBody = "{"
-                    + "\"product_name\":\"" + jsonEscape(productName) + "\","
-                    + "\"category_id\":" + categoryId + ","
-                    + "\"unit\":\"" + jsonEscape(unit) + "\","
-                    + "\"is_active\":true"
-                    + "}";
-            sendJsonRequest("PATCH", "/rest/v1/product?product_id=eq." + productId, patchProductBody, session.getAccessToken(), false);
-        }
-
-        if (productId <= 0) {
-            throw new IOException("Unable to create/resolve product: " + productName);
-        }
-        return productId;
+        await(deactivateProductByNameAsync(session, productName, itemId));
     }
 
-    private void deactivateProductByName(
+    private CompletableFuture<Void> deactivateProductByNameAsync(
             SupabaseSession session,
             String productName,
             long itemId
+    ) {
+        CompletableFuture<Long> deactivated = writeByNameAsync(session, SupabaseIdCache.Kind.PRODUCT, "product", "product_id", "product_name", productName, productId -> {
+            String ingredientPath = itemId > 0
+                    ? "/rest/v1/ingredients?product_id=eq." + productId + "&item_id=eq." + itemId
+                    : "/rest/v1/ingredients?product_id=eq." + productId;
+            return compose(sendJsonRequestAsync("DELETE", ingredientPath, null, session.getAccessToken(), false), deleted ->
+                    sendJsonRequestAsync("PATCH", "/rest/v1/product?product_id=eq." + productId, INACTIVE_PRODUCT_BODY, session.getAccessToken(), false));
+        });
+        return map(deactivated, productId -> null);
+    }
+
+    private Map<String, Long> findItemIdsByNames(SupabaseSession session, Collection<String> itemNames) throws IOException, InterruptedException {
+        return findIdsByNames(session, SupabaseIdCache.Kind.ITEM, "item", "item_id", "item_name", itemNames);
+    }
+
+    private Map<String, Long> findProductIdsByNames(SupabaseSession session, Collection<String> productNames) throws IOException, InterruptedException {
+        return findIdsByNames(session, SupabaseIdCache.Kind.PRODUCT, "product", "product_id", "product_name", productNames);
+    }
+
+    private Map<String, Long> findIdsByNames(
+            SupabaseSession session,
+            SupabaseIdCache.Kind kind,
+            String table,
+            String idColumn,
+            String nameColumn,
+            Collection<String> names
     ) throws IOException, InterruptedException {
-        long productId = findProductIdByName(session, productName);
-        if (productId <= 0) {
-            return;
+        Map<String, Long> ids = new LinkedHashMap<>();
+        Set<String> missed = new LinkedHashSet<>();
+        for (String name : names) {
+            long cached = idCache.get(kind, name);
+            if (cached > 0) {
+                ids.put(name, cached);
+            } else if (name != null) {
+                missed.add(name);
+            }
         }
-
-        String ingredientPath = itemId > 0
-                ? "/rest/v1/ingredients?product_id=eq." + productId + "&item_id=eq." + itemId
-                : "/rest/v1/ingredients?product_id=eq." + productId;
-        sendJsonRequest("DELETE", ingredientPath, null, session.getAccessToken(), false);
-        sendJsonRequest(
-                "PATCH",
-                "/rest/v1/product?product_id=eq." + productId,
-                "{\"is_active\":false}",
+        List<String> misses = new ArrayList<>(missed);
+        List<List<String>> chunks = new ArrayList<>();
+        for (int start = 0; start < misses.size(); start += BULK_FILTER_CHUNK) {
+            chunks.add(misses.subList(start, Math.min(misses.size(), start + BULK_FILTER_CHUNK)));
+        }
+        List<HttpResponse<String>> responses = await(fanOut(chunks, chunk -> sendJsonRequestAsync(
+                "GET",
+                "/rest/v1/" + table + "?select=" + idColumn + "," + nameColumn + "&" + nameColumn + "=in." + urlEncode(inList(chunk)),
+                null,
                 session.getAccessToken(),
                 false
-        );
-    }
-
-    private long insertSale(SupabaseSession session, long userId) throws IOException, InterruptedException {
-        String body = "[{\"user_id\":" + userId + "}]";
-        HttpResponse<String> response = sendJsonRequest("POST", "/rest/v1/sales", body, session.getAccessToken(), false);
-        long saleId = extractJsonLong(response.body(), "sale_id");
-        if (saleId <= 0) {
-            throw new IOException("Unable to resolve created sale id.");
+        )));
+        for (HttpResponse<String> response : responses) {
+            collectIds(response.body(), kind, idColumn, nameColumn, ids);
         }
-        return saleId;
+        return ids;
     }
 
-    private long insertStockOut(SupabaseSession session, long userId, String reason) throws IOException, InterruptedException {
-        String body = "[{\"user_id\":" + userId + ",\"reason\":\"" + jsonEscape(reason == null ? "" : reason) + "\"}]";
-        HttpResponse<String> response = sendJsonRequest("POST", "/rest/v1/stock_out", body, session.getAccessToken(), false);
-        long stockoutId = extractJsonLong(response.body(), "stockout_id");
-        if (stockoutId <= 0) {
-            throw new IOException("Unable to resolve created stock_out id.");
+    private void collectIds(String json, SupabaseIdCache.Kind kind, String idColumn, String nameColumn, Map<String, Long> ids) throws IOException {
+        if (json == null || json.isBlank()) {
+            return;
+        }
+        try (JsonStreamReader reader = new JsonStreamReader(json)) {
+            reader.beginArray();
+            while (reader.hasNext()) {
+                long id = -1;
+                String name = null;
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    String field = reader.nextName();
+                    if (field.equals(idColumn)) {
+                        id = reader.nextLong(-1);
+                    } else if (field.equals(nameColumn)) {
+                        name = reader.nextString();
+                    } else {
+                        reader.skipValue();
+                    }
+                }
+                reader.endObject();
+                if (id > 0 && name != null) {
+                    ids.put(name, id);
+                    idCache.put(kind, name, id);
+                }
+            }
+            reader.endArray();
         }
-        return stockoutId;
     }
 
-    private void insertSalesDetail(
+    private String writeRows(
             SupabaseSession session,
-            long saleId,
-            long productId,
-            int quantity,
-            double price
+            String path,
+            int rowCount,
+            RowWriter rowWriter,
+            boolean upsert
     ) throws IOException, InterruptedException {
-        String body = "[{\"sale_id\":" + saleId + ","
-                + "\"product_id\":" + productId + ","
-                + "\"quantity\":" + quantity + ","
-                + "\"price\":" + price + "}]";
-        sendJsonRequest("POST", "/rest/v1/sales_details", body, session.getAccessToken(), false);
+        if (rowCount <= 0) {
+            return "[]";
+        }
+        // Bodies are built up front so the row writer is only ever called from this thread.
+        List<byte[]> bodies = new ArrayList<>();
+        for (int start = 0; start < rowCount; start += BULK_ROW_CHUNK) {
+            int end = Math.min(rowCount, start + BULK_ROW_CHUNK);
+            try (JsonBodyWriter json = JsonBodyWriter.acquire()) {
+                json.beginArray();
+                for (int i = start; i < end; i++) {
+                    rowWriter.writeRow(json, i);
+                }
+                bodies.add(json.endArray().toByteArray());
+            }
+        }
+        List<HttpResponse<String>> responses = await(fanOut(bodies, body ->
+                sendJsonRequestAsync("POST", path, body, session.getAccessToken(), upsert)));
+
+        StringBuilder merged = new StringBuilder("[");
+        for (HttpResponse<String> response : responses) {
+            String responseBody = response.body();
+            String trimmed = responseBody == null ? "" : responseBody.trim();
+            if (trimmed.length() > 2) {
+                if (merged.length() > 1) {
+                    merged.append(",");
+                }
+                merged.append(trimmed, 1, trimmed.length() - 1);
+            }
+        }
+        return merged.append("]").toString();
+    }
+
+    private static List<String> inFilters(Collection<Long> ids) {
+        List<String> distinct = new ArrayList<>();
+        for (Long id : new LinkedHashSet<>(ids)) {
+            if (id != null && id > 0) {
+                distinct.add(String.valueOf(id));
+            }
+        }
+        List<String> filters = new ArrayList<>();
+        for (int start = 0; start < distinct.size(); start += BULK_FILTER_CHUNK) {
+            filters.add("(" + String.join(",", distinct.subList(start, Math.min(distinct.size(), start + BULK_FILTER_CHUNK))) + ")");
+        }
+        return filters;
+    }
+
+    private static String inList(List<String> values) {
+        StringBuilder list = new StringBuilder("(");
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                list.append(",");
+            }
+            list.append('"').append(values.get(i).replace("\\", "\\\\").replace("\"", "\\\"")).append('"');
+        }
+        return list.append(")").toString();
     }
 
     private long findUserIdByUsername(SupabaseSession session, String username) throws IOException, InterruptedException {
         if (username == null || username.isBlank()) {
             return -1;
         }
+        long cached = idCache.get(SupabaseIdCache.Kind.USER, username);
+        if (cached > 0) {
+            return cached;
+        }
         String path = "/rest/v1/user?select=user_id&username=eq." + urlEncode(username) + "&limit=1";
         HttpResponse<String> response = sendJsonRequest("GET", path, null, session.getAccessToken(), false);
-        return extractJsonLong(response.body(), "user_id");
+        long id = extractJsonLong(response.body(), "user_id");
+        idCache.put(SupabaseIdCache.Kind.USER, username, id);
+        return id;
     }
 
     private long findCategoryIdByName(SupabaseSession session, String categoryName) throws IOException, InterruptedException {
-        String path = "/rest/v1/category?select=category_id&category_name=eq." + urlEncode(categoryName) + "&limit=1";
-        HttpResponse<String> response = sendJsonRequest("GET", path, null, session.getAccessToken(), false);
-        return extractJsonLong(response.body(), "category_id");
+        return await(findCategoryIdByNameAsync(session, categoryName));
+    }
+
+    private CompletableFuture<Long> findCategoryIdByNameAsync(SupabaseSession session, String categoryName) {
+        return findIdByNameAsync(session, SupabaseIdCache.Kind.CATEGORY, "category", "category_id", "category_name", categoryName);
     }
 
     private long findItemIdByName(SupabaseSession session, String itemName) throws IOException, InterruptedException {
-        String path = "/rest/v1/item?select=item_id&item_name=eq." + urlEncode(itemName) + "&limit=1";
-        HttpResponse<String> response = sendJsonRequest("GET", path, null, session.getAccessToken(), false);
-        return extractJsonLong(response.body(), "item_id");
+        return await(findItemIdByNameAsync(session, itemName));
+    }
+
+    private CompletableFuture<Long> findItemIdByNameAsync(SupabaseSession session, String itemName) {
+        return findIdByNameAsync(session, SupabaseIdCache.Kind.ITEM, "item", "item_id", "item_name", itemName);
     }
 
     private long findProductIdByName(SupabaseSession session, String productName) throws IOException, InterruptedException {
-        String path = "/rest/v1/product?select=product_id&product_name=eq." + urlEncode(productName) + "&limit=1";
-        HttpResponse<String> response = sendJsonRequest("GET", path, null, session.getAccessToken(), false);
-        return extractJsonLong(response.body(), "product_id");
+        return await(findProductIdByNameAsync(session, productName));
     }
 
-    private int fetchItemQuantityOnHand(SupabaseSession session, long itemId) throws IOException, InterruptedException {
-        String path = "/rest/v1/item?select=quantity_on_hand&item_id=eq." + itemId + "&limit=1";
-        HttpResponse<String> response = sendJsonRequest("GET", path, null, session.getAccessToken(), false);
-        int quantity = extractJsonInt(response.body(), "quantity_on_hand");
-        return Math.max(quantity, 0);
+    private CompletableFuture<Long> findProductIdByNameAsync(SupabaseSession session, String productName) {
+        return findIdByNameAsync(session, SupabaseIdCache.Kind.PRODUCT, "product", "product_id", "product_name", productName);
+    }
+
+    private CompletableFuture<Long> findIdByNameAsync(
+            SupabaseSession session,
+            SupabaseIdCache.Kind kind,
+            String table,
+            String idColumn,
+            String nameColumn,
+            String name
+    ) {
+        long cached = idCache.get(kind, name);
+        if (cached > 0) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        String path = "/rest/v1/" + table + "?select=" + idColumn + "&" + nameColumn + "=eq." + urlEncode(name) + "&limit=1";
+        return map(sendJsonRequestAsync("GET", path, null, session.getAccessToken(), false), response -> {
+            long id = extractJsonLong(response.body(), idColumn);
+            idCache.put(kind, name, id);
+            return id;
+        });
+    }
+
+    /**
+     * Resolves the id for {@code name} and runs {@code write} with it. A cached id can outlive its
+     * row, and PostgREST answers a PATCH or DELETE that matches nothing with 2xx and an empty
+     * representation, so an empty response for a cached id invalidates that name, re-resolves it
+     * from the server and writes once more.
+     *
+     * @param write returns the response whose representation shows the row was hit
+     * @return the id written, or -1 if no row has that name
+     */
+    private CompletableFuture<Long> writeByNameAsync(
+            SupabaseSession session,
+            SupabaseIdCache.Kind kind,
+            String table,
+            String idColumn,
+            String nameColumn,
+            String name,
+            AsyncStep<Long, CompletableFuture<HttpResponse<String>>> write
+    ) {
+        boolean cached = idCache.get(kind, name) > 0;
+        return compose(findIdByNameAsync(session, kind, table, idColumn, nameColumn, name), id -> {
+            if (id <= 0) {
+                return CompletableFuture.completedFuture(-1L);
+            }
+            return compose(invalidateOnRejection(write.apply(id), kind, List.of(name)), response -> {
+                if (!isEmptyRepresentation(response.body())) {
+                    return CompletableFuture.completedFuture(id);
+                }
+                idCache.invalidate(kind, name);
+                return cached
+                        ? writeByNameAsync(session, kind, table, idColumn, nameColumn, name, write)
+                        : CompletableFuture.completedFuture(-1L);
+            });
+        });
+    }
+
+    /**
+     * Bulk form of {@link #writeByNameAsync}: runs {@code write} for the ids resolved from
+     * {@code names}, then re-resolves and retries once for the cached names whose rows were not in
+     * the returned representation.
+     *
+     * @param missingMessage if not null, a name with no row fails the call with this message and the name
+     * @return name to id of every row written
+     */
+    private Map<String, Long> writeRowsByNames(
+            SupabaseSession session,
+            SupabaseIdCache.Kind kind,
+            String table,
+            String idColumn,
+            String nameColumn,
+            Collection<String> names,
+            String missingMessage,
+            AsyncStep<Map<String, Long>, CompletableFuture<List<HttpResponse<String>>>> write
+    ) throws IOException, InterruptedException {
+        Set<String> cachedNames = new LinkedHashSet<>();
+        for (String name : names) {
+            if (idCache.get(kind, name) > 0) {
+                cachedNames.add(name);
+            }
+        }
+        Map<String, Long> ids = findIdsByNames(session, kind, table, idColumn, nameColumn, names);
+        requireResolved(names, ids, missingMessage);
+        Map<String, Long> written = writeResolvedRows(kind, idColumn, ids, write);
+
+        List<String> stale = new ArrayList<>();
+        for (String name : ids.keySet()) {
+            if (!written.containsKey(name)) {
+                idCache.invalidate(kind, name);
+                if (cachedNames.contains(name)) {
+                    stale.add(name);
+                }
+            }
+        }
+        if (!stale.isEmpty()) {
+            written.putAll(writeResolvedRows(kind, idColumn, findIdsByNames(session, kind, table, idColumn, nameColumn, stale), write));
+        }
+        requireResolved(names, written, missingMessage);
+        return written;
+    }
+
+    private Map<String, Long> writeResolvedRows(
+            SupabaseIdCache.Kind kind,
+            String idColumn,
+            Map<String, Long> ids,
+            AsyncStep<Map<String, Long>, CompletableFuture<List<HttpResponse<String>>>> write
+    ) throws IOException, InterruptedException {
+        Map<String, Long> written = new LinkedHashMap<>();
+        if (ids.isEmpty()) {
+            return written;
+        }
+        Set<Long> returned = new LinkedHashSet<>();
+        for (HttpResponse<String> response : await(invalidateOnRejection(write.apply(ids), kind, ids.keySet()))) {
+            collectReturnedIds(response.body(), idColumn, returned);
+        }
+        for (Map.Entry<String, Long> entry : ids.entrySet()) {
+            if (returned.contains(entry.getValue())) {
+                written.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return written;
+    }
+
+    private static void requireResolved(Collection<String> names, Map<String, Long> ids, String missingMessage) throws IOException {
+        if (missingMessage == null) {
+            return;
+        }
+        for (String name : names) {
+            if (!ids.containsKey(name)) {
+                throw new IOException(missingMessage + name);
+            }
+        }
+    }
+
+    /**
+     * Drops the cached ids for {@code names} when the server rejects a write made with them,
+     * since a stale id is the likely cause.
+     */
+    private <T> CompletableFuture<T> invalidateOnRejection(CompletableFuture<T> write, SupabaseIdCache.Kind kind, Collection<String> names) {
+        List<String> involved = List.copyOf(names);
+        write.whenComplete((value, error) -> {
+            if (unwrap(error) instanceof RequestFailedException failed
+                    && (failed.getStatusCode() == 400 || failed.getStatusCode() == 404 || failed.getStatusCode() == 409)) {
+                for (String name : involved) {
+                    idCache.invalidate(kind, name);
+                }
+            }
+        });
+        return write;
+    }
+
+    private static boolean isEmptyRepresentation(String body) {
+        return body == null || body.isBlank() || body.trim().equals("[]");
+    }
+
+    private static void collectReturnedIds(String json, String idColumn, Set<Long> ids) throws IOException {
+        if (json == null || json.isBlank()) {
+            return;
+        }
+        try (JsonStreamReader reader = new JsonStreamReader(json)) {
+            reader.beginArray();
+            while (reader.hasNext()) {
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    if (reader.nextName().equals(idColumn)) {
+                        ids.add(reader.nextLong(-1));
+                    } else {
+                        reader.skipValue();
+                    }
+                }
+                reader.endObject();
+            }
+            reader.endArray();
+        }
+    }
+
+    private CompletableFuture<Long> callRpcForIdAsync(SupabaseSession session, String functionName, byte[] body) {
+        return map(sendJsonRequestAsync("POST", "/rest/v1/rpc/" + functionName, body, session.getAccessToken(), false), response -> {
+            String value = response.body() == null ? "" : response.body().trim();
+            try {
+                return Long.parseLong(value);
+            } catch (NumberFormatException e) {
+                throw new IOException("Unexpected " + functionName + " response: " + value);
+            }
+        });
     }
 
     private HttpResponse<String> sendJsonRequest(
             String method,
             String path,
-            String body,
+            byte[] body,
             String bearerToken,
             boolean upsert
     ) throws IOException, InterruptedException {
+        return await(sendJsonRequestAsync(method, path, body, bearerToken, upsert));
+    }
+
+    private CompletableFuture<HttpResponse<String>> sendJsonRequestAsync(
+            String method,
+            String path,
+            byte[] body,
+            String bearerToken,
+            boolean upsert
+    ) {
+        HttpRequest request = buildRequest(method, path, body, bearerToken, upsert);
+        return map(httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString()), response -> {
+            if (response.statusCode() < 200 || response.statusCode() >= 300) {
+                throw requestFailed(response.statusCode(), response.body());
+            }
+            return response;
+        });
+    }
+
+    private <T> CompletableFuture<T> fetchRowsAsync(SupabaseSession session, String path, AsyncStep<JsonStreamReader, T> parser) {
+        HttpRequest request = buildRequest("GET", path, null, session.getAccessToken(), false);
+        return map(httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofInputStream()), JSON_PARSE_EXECUTOR, response -> {
+            try (InputStream body = response.body()) {
+                if (response.statusCode() < 200 || response.statusCode() >= 300) {
+                    throw requestFailed(response.statusCode(), new String(body.readAllBytes(), StandardCharsets.UTF_8));
+                }
+                try (JsonStreamReader json = new JsonStreamReader(body)) {
+                    return parser.apply(json);
+                }
+            }
+        });
+    }
+
+    private HttpRequest buildRequest(String method, String path, byte[] body, String bearerToken, boolean upsert) {
         HttpRequest.Builder builder = HttpRequest.newBuilder()
                 .uri(URI.create(supabaseUrl + path))
                 .timeout(Duration.ofSeconds(30))
@@ -1028,24 +1679,264 @@ public class SupabaseClient {
 
         switch (method) {
             case "GET" -> builder.GET();
-            case "POST" -> builder.POST(HttpRequest.BodyPublishers.ofString(body == null ? "" : body));
-            case "PATCH" -> builder.method("PATCH", HttpRequest.BodyPublishers.ofString(body == null ? "" : body));
+            case "POST" -> builder.POST(body == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofByteArray(body));
+            case "PATCH" -> builder.method("PATCH", body == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofByteArray(body));
             case "DELETE" -> builder.DELETE();
             default -> throw new IllegalArgumentException("Unsupported method: " + method);
         }
+        return builder.build();
+    }
+
+    private RequestFailedException requestFailed(int statusCode, String body) {
+        return new RequestFailedException(statusCode, "Supabase request failed (" + statusCode + "): " + body);
+    }
+
+    private static <T> T await(CompletableFuture<T> future) throws IOException, InterruptedException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            throw e;
+        } catch (CancellationException e) {
+            throw new IOException("Supabase request cancelled.", e);
+        } catch (ExecutionException e) {
+            Throwable cause = unwrap(e.getCause());
+            if (cause instanceof IOException ioException) {
+                throw ioException;
+            }
+            if (cause instanceof InterruptedException interruptedException) {
+                throw interruptedException;
+            }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    private static <T, U> CompletableFuture<U> map(CompletableFuture<T> source, AsyncStep<T, U> step) {
+        return cancelUpstream(source.thenApply(value -> applyStep(step, value)), source);
+    }
 
-        HttpResponse<String> response = httpClient.send(builder.build(), HttpResponse.BodyHandlers.ofString());
-        if (response.statusCode() < 200 || response.statusCode() >= 300) {
-            throw new IOException("Supabase request failed (" + response.statusCode() + "): " + response.body());
+    private static <T, U> CompletableFuture<U> map(CompletableFuture<T> source, Executor executor, AsyncStep<T, U> step) {
+        return cancelUpstream(source.thenApplyAsync(value -> applyStep(step, value), executor), source);
+    }
+
+    private static <T, U> U applyStep(AsyncStep<T, U> step, T value) {
+        try {
+            return step.apply(value);
+        } catch (IOException e) {
+            throw new CompletionException(e);
         }
-        return response;
+    }
+
+    private static <U> CompletableFuture<U> cancelUpstream(CompletableFuture<U> result, CompletableFuture<?> source) {
+        result.whenComplete((value, error) -> {
+            if (result.isCancelled()) {
+                source.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    private static <T, U> CompletableFuture<U> compose(CompletableFuture<T> source, AsyncStep<T, CompletableFuture<U>> next) {
+        CompletableFuture<U> result = new CompletableFuture<>();
+        AtomicReference<CompletableFuture<U>> inFlight = new AtomicReference<>();
+        source.whenComplete((value, error) -> {
+            if (error != null) {
+                result.completeExceptionally(unwrap(error));
+                return;
+            }
+            if (result.isDone()) {
+                return;
+            }
+            CompletableFuture<U> stage;
+            try {
+                stage = next.apply(value);
+            } catch (IOException | RuntimeException e) {
+                result.completeExceptionally(e);
+                return;
+            }
+            inFlight.set(stage);
+            if (result.isCancelled()) {
+                stage.cancel(true);
+                return;
+            }
+            stage.whenComplete((stageValue, stageError) -> {
+                if (stageError != null) {
+                    result.completeExceptionally(unwrap(stageError));
+                } else {
+                    result.complete(stageValue);
+                }
+            });
+        });
+        // Cancelling the composed future aborts whichever request is still running.
+        result.whenComplete((value, error) -> {
+            if (result.isCancelled()) {
+                source.cancel(true);
+                CompletableFuture<U> stage = inFlight.get();
+                if (stage != null) {
+                    stage.cancel(true);
+                }
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Starts one stage per input with at most {@link #maxParallelRequests} in flight and collects
+     * the results in input order. The first failure fails the result and cancels every sibling
+     * still running; cancelling the result does the same.
+     */
+    private <T, R> CompletableFuture<List<R>> fanOut(List<T> inputs, AsyncStep<T, CompletableFuture<R>> task) {
+        int count = inputs.size();
+        CompletableFuture<List<R>> result = new CompletableFuture<>();
+        if (count == 0) {
+            result.complete(new ArrayList<>());
+            return result;
+        }
+        Object[] values = new Object[count];
+        AtomicInteger nextIndex = new AtomicInteger();
+        AtomicInteger remaining = new AtomicInteger(count);
+        Set<CompletableFuture<R>> inFlight = ConcurrentHashMap.newKeySet();
+        result.whenComplete((value, error) -> {
+            if (error != null) {
+                for (CompletableFuture<R> stage : inFlight) {
+                    stage.cancel(true);
+                }
+            }
+        });
+
+        // Launches happen only in the loop in run(). A completion that arrives while the loop is
+        // running, including an inline one from an already-done stage, just makes it go round again,
+        // so a batch of completed stages does not nest one call per stage on the stack.
+        AtomicInteger completed = new AtomicInteger();
+        Runnable pump = new Runnable() {
+            private final AtomicInteger pumping = new AtomicInteger();
+
+            @Override
+            public void run() {
+                if (pumping.getAndIncrement() != 0) {
+                    return;
+                }
+                do {
+                    while (!result.isDone() && nextIndex.get() < count
+                            && nextIndex.get() - completed.get() < maxParallelRequests) {
+                        launch(nextIndex.getAndIncrement());
+                    }
+                } while (pumping.decrementAndGet() != 0);
+            }
+
+            private void launch(int index) {
+                CompletableFuture<R> stage;
+                try {
+                    stage = task.apply(inputs.get(index));
+                } catch (IOException | RuntimeException e) {
+                    result.completeExceptionally(e);
+                    return;
+                }
+                inFlight.add(stage);
+                if (result.isDone()) {
+                    stage.cancel(true);
+                    return;
+                }
+                stage.whenComplete((value, error) -> {
+                    inFlight.remove(stage);
+                    if (error != null) {
+                        result.completeExceptionally(unwrap(error));
+                        return;
+                    }
+                    values[index] = value;
+                    completed.incrementAndGet();
+                    if (remaining.decrementAndGet() == 0) {
+                        List<R> ordered = new ArrayList<>(count);
+                        for (Object element : values) {
+                            @SuppressWarnings("unchecked")
+                            R typed = (R) element;
+                            ordered.add(typed);
+                        }
+                        result.complete(ordered);
+                    } else {
+                        run();
+                    }
+                });
+            }
+        };
+        pump.run();
+        return result;
+    }
+
+    /**
+     * Completes when every stage has, or fails with the first error and cancels the rest.
+     */
+    private static CompletableFuture<Void> allOrNothing(CompletableFuture<?>... stages) {
+        CompletableFuture<Void> all = CompletableFuture.allOf(stages);
+        for (CompletableFuture<?> stage : stages) {
+            stage.whenComplete((value, error) -> {
+                if (error != null) {
+                    all.completeExceptionally(unwrap(error));
+                }
+            });
+        }
+        all.whenComplete((value, error) -> {
+            if (error != null) {
+                for (CompletableFuture<?> stage : stages) {
+                    stage.cancel(true);
+                }
+            }
+        });
+        return all;
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        if (error instanceof CompletionException && error.getCause() != null) {
+            return error.getCause();
+        }
+        return error;
     }
 
     private SupabaseSession parseSession(String jsonBody, boolean requireTokens) throws IOException {
-        String accessToken = extractJsonString(jsonBody, "access_token");
-        String refreshToken = extractJsonString(jsonBody, "refresh_token");
-        String userId = extractNestedUserId(jsonBody);
-        String email = extractJsonString(jsonBody, "email");
+        String accessToken = null;
+        String refreshToken = null;
+        String userId = null;
+        String email = null;
+        String fallbackUserId = null;
+        String fallbackEmail = null;
+
+        try (JsonStreamReader json = new JsonStreamReader(jsonBody)) {
+            json.beginObject();
+            while (json.hasNext()) {
+                switch (json.nextName()) {
+                    case "access_token" -> accessToken = json.nextString();
+                    case "refresh_token" -> refreshToken = json.nextString();
+                    case "user_id" -> fallbackUserId = json.nextString();
+                    case "email" -> fallbackEmail = json.nextString();
+                    case "user" -> {
+                        if (json.beginObjectOrNull()) {
+                            while (json.hasNext()) {
+                                switch (json.nextName()) {
+                                    case "id" -> userId = json.nextString();
+                                    case "email" -> email = json.nextString();
+                                    default -> json.skipValue();
+                                }
+                            }
+                            json.endObject();
+                        }
+                    }
+                    default -> json.skipValue();
+                }
+            }
+            json.endObject();
+        }
+        if (userId == null) {
+            userId = fallbackUserId;
+        }
+        if (email == null) {
+            email = fallbackEmail;
+        }
 
         if (userId == null) {
             throw new IOException("Missing required session fields in response: " + jsonBody);
@@ -1062,237 +1953,338 @@ public class SupabaseClient {
         );
     }
 
-    private static String extractJsonString(String jsonBody, String fieldName) {
-        Pattern pattern = Pattern.compile("\"" + Pattern.quote(fieldName) + "\"\\s*:\\s*\"([^\"]*)\"");
-        Matcher matcher = pattern.matcher(jsonBody);
-        if (matcher.find()) {
-            return matcher.group(1);
-        }
-        return null;
-    }
-
-    private static String extractNestedJsonString(String jsonBody, String objectName, String fieldName) {
-        Pattern pattern = Pattern.compile("\"" + Pattern.quote(objectName) + "\"\\s*:\\s*\\{(.*?)\\}", Pattern.DOTALL);
-        Matcher matcher = pattern.matcher(jsonBody);
-        if (!matcher.find()) {
-            return null;
-        }
-        return extractJsonString(matcher.group(1), fieldName);
-    }
-
-    private static String extractNestedUserId(String jsonBody) {
-        Pattern pattern = Pattern.compile("\"user\"\\s*:\\s*\\{[^}]*\"id\"\\s*:\\s*\"([^\"]+)\"", Pattern.DOTALL);
-        Matcher matcher = pattern.matcher(jsonBody);
-        if (matcher.find()) {
-            return matcher.group(1);
-        }
-        return extractJsonString(jsonBody, "user_id");
-    }
-
-    private static List<InventoryRecord> parseInventoryRecords(String json) throws IOException {
+    private static List<InventoryRecord> parseInventoryRecords(JsonStreamReader json) throws IOException {
         List<InventoryRecord> records = new ArrayList<>();
-        for (String objectJson : splitTopLevelObjects(json)) {
-            String itemName = extractJsonString(objectJson, "item_name");
-            String category = extractJsonString(objectJson, "unit_type");
-            if (category == null || category.isBlank()) {
-                category = "Other";
+        json.beginArray();
+        while (json.hasNext()) {
+            long itemId = -1;
+            String itemName = null;
+            String category = null;
+            int quantity = 0;
+            double price = 0.0;
+
+            json.beginObject();
+            while (json.hasNext()) {
+                switch (json.nextName()) {
+                    case "item_id" -> itemId = json.nextLong(-1);
+                    case "item_name" -> itemName = json.nextString();
+                    case "unit_type" -> category = json.nextString();
+                    case "quantity_on_hand" -> quantity = json.nextInt(0);
+                    case "unit_cost" -> price = json.nextDouble(0.0);
+                    default -> json.skipValue();
+                }
             }
-            int quantity = extractJsonInt(objectJson, "quantity_on_hand");
-            double price = extractJsonDouble(objectJson, "unit_cost");
-            String dateAdded = "";
-            String dateUpdated = "";
+            json.endObject();
 
             if (itemName == null) {
-                throw new IOException("Malformed inventory row: " + objectJson);
+                throw new IOException("Malformed inventory row for item_id " + itemId);
             }
-            records.add(new InventoryRecord(
-                    itemName,
-                    category,
-                    quantity,
-                    price,
-                    dateAdded == null ? "" : dateAdded,
-                    dateUpdated == null ? "" : dateUpdated
-            ));
+            if (category == null || category.isBlank()) {
+                category = "Other";
+            }
+            records.add(new InventoryRecord(itemId, itemName, category, quantity, price, "", ""));
         }
+        json.endArray();
         return records;
     }
 
-    private static List<SupplierRecord> parseSupplierRecords(String json) {
+    private static List<SupplierRecord> parseSupplierRecords(JsonStreamReader json) throws IOException {
         List<SupplierRecord> records = new ArrayList<>();
-        for (String objectJson : splitTopLevelObjects(json)) {
+        json.beginArray();
+        while (json.hasNext()) {
+            long supplierId = -1;
+            String supplierName = null;
+            String contactPerson = null;
+            String phone = null;
+            String email = null;
+            String address = null;
+            String status = null;
+
+            json.beginObject();
+            while (json.hasNext()) {
+                switch (json.nextName()) {
+                    case "supplier_id" -> supplierId = json.nextLong(-1);
+                    case "supplier_name" -> supplierName = json.nextString();
+                    case "contact_person" -> contactPerson = json.nextString();
+                    case "phone" -> phone = json.nextString();
+                    case "email" -> email = json.nextString();
+                    case "address" -> address = json.nextString();
+                    case "status" -> status = json.nextString();
+                    default -> json.skipValue();
+                }
+            }
+            json.endObject();
+
             records.add(new SupplierRecord(
-                    extractJsonLong(objectJson, "supplier_id"),
-                    defaultString(extractJsonString(objectJson, "supplier_name")),
-                    defaultString(extractJsonString(objectJson, "contact_person")),
-                    defaultString(extractJsonString(objectJson, "phone")),
-                    defaultString(extractJsonString(objectJson, "email")),
-                    defaultString(extractJsonString(objectJson, "address")),
-                    defaultString(extractJsonString(objectJson, "status"))
+                    supplierId,
+                    defaultString(supplierName),
+                    defaultString(contactPerson),
+                    defaultString(phone),
+                    defaultString(email),
+                    defaultString(address),
+                    defaultString(status)
             ));
         }
+        json.endArray();
         return records;
     }
 
-    private static List<ExpirationRecord> parseExpirationRecords(String json) {
+    private static List<ExpirationRecord> parseExpirationRecords(JsonStreamReader json) throws IOException {
         List<ExpirationRecord> records = new ArrayList<>();
-        for (String objectJson : splitTopLevelObjects(json)) {
-            String itemName = extractNestedItemName(objectJson);
+        json.beginArray();
+        while (json.hasNext()) {
+            long expirationId = -1;
+            String itemName = null;
+            String unitType = null;
+            int unitQuantity = 0;
+            String expirationDate = null;
+
+            json.beginObject();
+            while (json.hasNext()) {
+                switch (json.nextName()) {
+                    case "expiration_id" -> expirationId = json.nextLong(-1);
+                    case "unit_type" -> unitType = json.nextString();
+                    case "unit_quantity" -> unitQuantity = json.nextInt(0);
+                    case "expiration_date" -> expirationDate = json.nextString();
+                    case "item" -> itemName = readNestedString(json, "item_name");
+                    default -> json.skipValue();
+                }
+            }
+            json.endObject();
+
             records.add(new ExpirationRecord(
-                    extractJsonLong(objectJson, "expiration_id"),
-                    itemName == null ? "" : itemName,
-                    defaultString(extractJsonString(objectJson, "unit_type")),
-                    extractJsonInt(objectJson, "unit_quantity"),
-                    defaultString(extractJsonString(objectJson, "expiration_date"))
+                    expirationId,
+                    defaultString(itemName),
+                    defaultString(unitType),
+                    unitQuantity,
+                    defaultString(expirationDate)
             ));
         }
+        json.endArray();
         return records;
     }
 
-    private static List<IngredientRecord> parseIngredientRecords(String json) {
+    private static List<IngredientRecord> parseIngredientRecords(JsonStreamReader json) throws IOException {
         List<IngredientRecord> records = new ArrayList<>();
-        for (String objectJson : splitTopLevelObjects(json)) {
+        json.beginArray();
+        while (json.hasNext()) {
+            String productName = null;
+            String itemName = null;
+            String unitType = null;
+            int quantityNeeded = 0;
+
+            json.beginObject();
+            while (json.hasNext()) {
+                switch (json.nextName()) {
+                    case "unit_type" -> unitType = json.nextString();
+                    case "quantity_needed" -> quantityNeeded = json.nextInt(0);
+                    case "product" -> productName = readNestedString(json, "product_name");
+                    case "item" -> itemName = readNestedString(json, "item_name");
+                    default -> json.skipValue();
+                }
+            }
+            json.endObject();
+
             records.add(new IngredientRecord(
-                    defaultString(extractNestedProductName(objectJson)),
-                    defaultString(extractNestedItemName(objectJson)),
-                    defaultString(extractJsonString(objectJson, "unit_type")),
-                    extractJsonInt(objectJson, "quantity_needed")
+                    defaultString(productName),
+                    defaultString(itemName),
+                    defaultString(unitType),
+                    quantityNeeded
             ));
         }
+        json.endArray();
         return records;
     }
 
-    private static List<StockOutItemRecord> parseStockOutItemRecords(String json) {
+    private static List<StockOutItemRecord> parseStockOutItemRecords(JsonStreamReader json) throws IOException {
         List<StockOutItemRecord> records = new ArrayList<>();
-        for (String objectJson : splitTopLevelObjects(json)) {
+        json.beginArray();
+        while (json.hasNext()) {
+            long stockoutItemId = -1;
+            String stockoutDate = null;
+            String reason = null;
+            String itemName = null;
+            int quantity = 0;
+            double cost = 0.0;
+
+            json.beginObject();
+            while (json.hasNext()) {
+                switch (json.nextName()) {
+                    case "stockout_item_id" -> stockoutItemId = json.nextLong(-1);
+                    case "quantity" -> quantity = json.nextInt(0);
+                    case "cost" -> cost = json.nextDouble(0.0);
+                    case "item" -> itemName = readNestedString(json, "item_name");
+                    case "stock_out" -> {
+                        if (json.beginObjectOrNull()) {
+                            while (json.hasNext()) {
+                                switch (json.nextName()) {
+                                    case "stockout_date" -> stockoutDate = json.nextString();
+                                    case "reason" -> reason = json.nextString();
+                                    default -> json.skipValue();
+                                }
+                            }
+                            json.endObject();
+                        }
+                    }
+                    default -> json.skipValue();
+                }
+            }
+            json.endObject();
+
             records.add(new StockOutItemRecord(
-                    extractJsonLong(objectJson, "stockout_item_id"),
-                    defaultString(extractNestedStockOutField(objectJson, "stockout_date")),
-                    defaultString(extractNestedStockOutField(objectJson, "reason")),
-                    defaultString(extractNestedItemName(objectJson)),
-                    extractJsonInt(objectJson, "quantity"),
-                    extractJsonDouble(objectJson, "cost")
+                    stockoutItemId,
+                    defaultString(stockoutDate),
+                    defaultString(reason),
+                    defaultString(itemName),
+                    quantity,
+                    cost
             ));
         }
+        json.endArray();
         return records;
     }
 
-    private static List<SaleHistoryLineRecord> parseSaleHistoryLineRecords(String json) {
+    private static List<SaleHistoryLineRecord> parseSaleHistoryLineRecords(JsonStreamReader json) throws IOException {
         List<SaleHistoryLineRecord> records = new ArrayList<>();
-        for (String objectJson : splitTopLevelObjects(json)) {
+        json.beginArray();
+        while (json.hasNext()) {
+            long saleDetailId = -1;
+            long saleId = -1;
+            String saleDate = null;
+            String productName = null;
+            int quantity = 0;
+            double price = 0.0;
+
+            json.beginObject();
+            while (json.hasNext()) {
+                switch (json.nextName()) {
+                    case "sale_detail_id" -> saleDetailId = json.nextLong(-1);
+                    case "quantity" -> quantity = json.nextInt(0);
+                    case "price" -> price = json.nextDouble(0.0);
+                    case "product" -> productName = readNestedString(json, "product_name");
+                    case "sales" -> {
+                        if (json.beginObjectOrNull()) {
+                            while (json.hasNext()) {
+                                switch (json.nextName()) {
+                                    case "sale_id" -> saleId = json.nextLong(-1);
+                                    case "sale_date" -> saleDate = json.nextString();
+                                    default -> json.skipValue();
+                                }
+                            }
+                            json.endObject();
+                        }
+                    }
+                    default -> json.skipValue();
+                }
+            }
+            json.endObject();
+
             records.add(new SaleHistoryLineRecord(
-                    extractJsonLong(objectJson, "sale_id"),
-                    defaultString(extractNestedJsonString(objectJson, "sales", "sale_date")),
-                    defaultString(extractNestedJsonString(objectJson, "product", "product_name")),
-                    extractJsonInt(objectJson, "quantity"),
-                    extractJsonDouble(objectJson, "price")
+                    saleDetailId,
+                    saleId,
+                    defaultString(saleDate),
+                    defaultString(productName),
+                    quantity,
+                    price
             ));
         }
+        json.endArray();
         return records;
     }
 
-    private static List<String> splitTopLevelObjects(String json) {
-        List<String> objects = new ArrayList<>();
-        if (json == null || json.isBlank() || json.equals("[]")) {
-            return objects;
-        }
-
-        int depth = 0;
-        boolean inString = false;
-        int objectStart = -1;
-        char prev = '\0';
-
-        for (int i = 0; i < json.length(); i++) {
-            char ch = json.charAt(i);
-            if (ch == '"' && prev != '\\') {
-                inString = !inString;
-            }
-            if (!inString) {
-                if (ch == '{') {
-                    if (depth == 0) {
-                        objectStart = i;
-                    }
-                    depth++;
-                } else if (ch == '}') {
-                    depth--;
-                    if (depth == 0 && objectStart >= 0) {
-                        objects.add(json.substring(objectStart, i + 1));
-                        objectStart = -1;
-                    }
+    private static String readNestedString(JsonStreamReader json, String fieldName) throws IOException {
+        String value = null;
+        if (json.beginObjectOrNull()) {
+            while (json.hasNext()) {
+                if (json.nextName().equals(fieldName)) {
+                    value = json.nextString();
+                } else {
+                    json.skipValue();
                 }
             }
-            prev = ch;
+            json.endObject();
         }
-        return objects;
+        return value;
     }
 
-    private static int extractJsonInt(String jsonBody, String fieldName) {
-        Pattern pattern = Pattern.compile("\"" + Pattern.quote(fieldName) + "\"\\s*:\\s*(-?\\d+)");
-        Matcher matcher = pattern.matcher(jsonBody);
-        if (matcher.find()) {
-            return Integer.parseInt(matcher.group(1));
+    private static String findJsonValue(String jsonBody, String fieldName) {
+        if (jsonBody == null || jsonBody.isBlank()) {
+            return null;
         }
-        return 0;
-    }
-
-    private static long extractJsonLong(String jsonBody, String fieldName) {
-        Pattern pattern = Pattern.compile("\"" + Pattern.quote(fieldName) + "\"\\s*:\\s*(-?\\d+)");
-        Matcher matcher = pattern.matcher(jsonBody);
-        if (matcher.find()) {
-            return Long.parseLong(matcher.group(1));
+        try (JsonStreamReader json = new JsonStreamReader(jsonBody)) {
+            return findJsonValue(json, fieldName);
+        } catch (IOException e) {
+            return null;
         }
-        return -1;
     }
 
-    private static String extractNestedItemName(String jsonBody) {
-        Pattern pattern = Pattern.compile("\"item\"\\s*:\\s*\\{[^}]*\"item_name\"\\s*:\\s*\"([^\"]*)\"", Pattern.DOTALL);
-        Matcher matcher = pattern.matcher(jsonBody);
-        if (matcher.find()) {
-            return matcher.group(1);
+    private static String findJsonValue(JsonStreamReader json, String fieldName) throws IOException {
+        switch (json.peek()) {
+            case BEGIN_ARRAY -> {
+                json.beginArray();
+                while (json.hasNext()) {
+                    String value = findJsonValue(json, fieldName);
+                    if (value != null) {
+                        return value;
+                    }
+                }
+                json.endArray();
+            }
+            case BEGIN_OBJECT -> {
+                json.beginObject();
+                while (json.hasNext()) {
+                    String name = json.nextName();
+                    JsonStreamReader.Token token = json.peek();
+                    if (name.equals(fieldName) && token != JsonStreamReader.Token.BEGIN_OBJECT && token != JsonStreamReader.Token.BEGIN_ARRAY) {
+                        return json.nextString();
+                    }
+                    String value = findJsonValue(json, fieldName);
+                    if (value != null) {
+                        return value;
+                    }
+                }
+                json.endObject();
+            }
+            default -> json.skipValue();
         }
         return null;
     }
 
-    private static String extractNestedProductName(String jsonBody) {
-        Pattern pattern = Pattern.compile("\"product\"\\s*:\\s*\\{[^}]*\"product_name\"\\s*:\\s*\"([^\"]*)\"", Pattern.DOTALL);
-        Matcher matcher = pattern.matcher(jsonBody);
-        if (matcher.find()) {
-            return matcher.group(1);
-        }
-        return null;
+    private static long extractJsonLong(String jsonBody, String fieldName) {
+        return extractJsonLong(jsonBody, fieldName, -1);
     }
 
-    private static String extractNestedStockOutField(String jsonBody, String fieldName) {
-        Pattern pattern = Pattern.compile("\"stock_out\"\\s*:\\s*\\{[^}]*\"" + Pattern.quote(fieldName) + "\"\\s*:\\s*\"([^\"]*)\"", Pattern.DOTALL);
-        Matcher matcher = pattern.matcher(jsonBody);
-        if (matcher.find()) {
-            return matcher.group(1);
+    private static long extractJsonLong(String jsonBody, String fieldName, long defaultValue) {
+        String value = findJsonValue(jsonBody, fieldName);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return defaultValue;
         }
-        return null;
     }
 
     private static String defaultString(String value) {
         return value == null ? "" : value;
     }
 
-    private static double extractJsonDouble(String jsonBody, String fieldName) {
-        Pattern pattern = Pattern.compile("\"" + Pattern.quote(fieldName) + "\"\\s*:\\s*(-?\\d+(?:\\.\\d+)?)");
-        Matcher matcher = pattern.matcher(jsonBody);
-        if (matcher.find()) {
-            return Double.parseDouble(matcher.group(1));
-        }
-        return 0.0;
+    private static byte[] credentialsBody(String email, String password) {
+        return JsonBodyWriter.write(json -> json.beginObject()
+                .name("email").value(defaultString(email))
+                .name("password").value(defaultString(password))
+                .endObject());
     }
 
-    private static String jsonEscape(String value) {
-        if (value == null) {
-            return "";
-        }
-        return value
-                .replace("\\", "\\\\")
-                .replace("\"", "\\\"")
-                .replace("\n", "\\n")
-                .replace("\r", "\\r")
-                .replace("\t", "\\t");
+    private static byte[] quantityOnHandBody(int quantity) {
+        return JsonBodyWriter.write(json -> json.beginObject()
+                .name("quantity_on_hand").value(quantity)
+                .endObject());
+    }
+
+    private static String normalizeCategory(String categoryName) {
+        return (categoryName == null || categoryName.isBlank()) ? "Other" : categoryName.trim();
     }
 
     private static String trimTrailingSlash(String value) {
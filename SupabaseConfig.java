@@ -9,6 +9,9 @@ public final class SupabaseConfig {
     private static final String DEFAULT_PUBLISHABLE_KEY = "sb_publishable_zpSYplET5joQRYgJDXxKVA_6do8wZi-";
     private static final String PROPERTIES_FILE = "supabase.properties";
     private static final Properties FILE_PROPERTIES = loadFileProperties();
+    private static final int DEFAULT_PERSIST_WINDOW_MS = 750;
+    private static final long DEFAULT_TEXT_BACKUP_INTERVAL_MINUTES = 30;
+    private static final int DEFAULT_TEXT_BACKUP_RETENTION = 48;
 
     private SupabaseConfig() {
     }
@@ -41,6 +44,42 @@ public final class SupabaseConfig {
         return value == null ? "" : value.trim();
     }
 
+    /**
+     * How long local dataset saves are merged before being written (PERSIST_WINDOW_MS).
+     */
+    public static int getPersistWindowMs() {
+        return (int) readLong("PERSIST_WINDOW_MS", DEFAULT_PERSIST_WINDOW_MS);
+    }
+
+    /**
+     * Minutes between compressed text backup snapshots (TEXT_BACKUP_INTERVAL_MINUTES); 0 keeps only the one taken on exit.
+     */
+    public static long getTextBackupIntervalMinutes() {
+        return readLong("TEXT_BACKUP_INTERVAL_MINUTES", DEFAULT_TEXT_BACKUP_INTERVAL_MINUTES);
+    }
+
+    /**
+     * How many snapshots of each text backup are kept (TEXT_BACKUP_RETENTION).
+     */
+    public static int getTextBackupRetention() {
+        return (int) readLong("TEXT_BACKUP_RETENTION", DEFAULT_TEXT_BACKUP_RETENTION);
+    }
+
+    private static long readLong(String name, long defaultValue) {
+        String value = System.getenv(name);
+        if (value == null || value.isBlank()) {
+            value = FILE_PROPERTIES.getProperty(name, "");
+        }
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
     private static Properties loadFileProperties() {
         Properties properties = new Properties();
         for (Path path : candidatePaths()) {
@@ -0,0 +1,138 @@
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+
+public class SupabaseIdCache {
+    public enum Kind {
+        ITEM("item"),
+        PRODUCT("product"),
+        CATEGORY("category"),
+        USER("user");
+
+        private final String prefix;
+
+        Kind(String prefix) {
+            this.prefix = prefix;
+        }
+    }
+
+    private static final String CACHE_FILE = "supabase_id_cache.properties";
+    private static final String KEY_SOURCE_URL = "source_url";
+    private static final String APP_DIR_NAME = "DrickSys";
+    private static final int DEFAULT_MAX_ENTRIES = 2048;
+
+    private final String sourceUrl;
+    private final int maxEntries;
+    private final Map<String, Long> entries;
+
+    public SupabaseIdCache(String sourceUrl) {
+        this(sourceUrl, DEFAULT_MAX_ENTRIES);
+    }
+
+    public SupabaseIdCache(String sourceUrl, int maxEntries) {
+        this.sourceUrl = sourceUrl == null ? "" : sourceUrl;
+        this.maxEntries = Math.max(16, maxEntries);
+        this.entries = new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                return size() > SupabaseIdCache.this.maxEntries;
+            }
+        };
+    }
+
+    public synchronized long get(Kind kind, String name) {
+        if (name == null) {
+            return -1;
+        }
+        Long id = entries.get(key(kind, name));
+        return id == null ? -1 : id;
+    }
+
+    public synchronized void put(Kind kind, String name, long id) {
+        if (name == null || id <= 0) {
+            return;
+        }
+        entries.put(key(kind, name), id);
+    }
+
+    public synchronized void invalidate(Kind kind, String name) {
+        if (name == null) {
+            return;
+        }
+        entries.remove(key(kind, name));
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public void load() {
+        Path cachePath = resolveCacheFilePath();
+        if (!Files.exists(cachePath)) {
+            return;
+        }
+
+        Properties properties = new Properties();
+        try (FileInputStream inputStream = new FileInputStream(cachePath.toFile())) {
+            properties.load(inputStream);
+        } catch (IOException e) {
+            return;
+        }
+
+        if (!sourceUrl.equals(properties.getProperty(KEY_SOURCE_URL, ""))) {
+            return;
+        }
+
+        synchronized (this) {
+            for (String name : properties.stringPropertyNames()) {
+                if (name.equals(KEY_SOURCE_URL)) {
+                    continue;
+                }
+                try {
+                    long id = Long.parseLong(properties.getProperty(name));
+                    if (id > 0) {
+                        entries.put(name, id);
+                    }
+                } catch (NumberFormatException ignored) {
+                }
+            }
+        }
+    }
+
+    public void save() throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty(KEY_SOURCE_URL, sourceUrl);
+        synchronized (this) {
+            for (Map.Entry<String, Long> entry : entries.entrySet()) {
+                properties.setProperty(entry.getKey(), String.valueOf(entry.getValue()));
+            }
+        }
+
+        Path cachePath = resolveCacheFilePath();
+        Files.createDirectories(cachePath.getParent());
+        try (FileOutputStream outputStream = new FileOutputStream(cachePath.toFile())) {
+            properties.store(outputStream, "Supabase ID Cache");
+        }
+    }
+
+    private static String key(Kind kind, String name) {
+        return kind.prefix + ":" + name;
+    }
+
+    private Path resolveCacheFilePath() {
+        String appData = System.getenv("APPDATA");
+        if (appData != null && !appData.isBlank()) {
+            return Path.of(appData, APP_DIR_NAME, CACHE_FILE);
+        }
+        return Path.of(System.getProperty("user.home", "."), "." + APP_DIR_NAME, CACHE_FILE);
+    }
+}
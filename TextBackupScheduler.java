@@ -0,0 +1,156 @@
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.GZIPOutputStream;
+import javax.swing.Timer;
+
+/**
+ * Writes the human-readable backups as timestamped, gzip-compressed snapshots on a fixed interval
+ * instead of on every save. Each file a dataset renders, e.g. {@code sales_backup.txt}, becomes
+ * {@code sales_backup-20240131-174500.txt.gz} in the backup directory, and only the newest
+ * {@code retention} snapshots per file are kept. Datasets are captured on the EDT and compressed on
+ * the "text-backup" thread. All methods except the constructor must be called on the EDT.
+ */
+public final class TextBackupScheduler {
+    private static final Logger LOGGER = Logger.getLogger(TextBackupScheduler.class.getName());
+    private static final DateTimeFormatter STAMP_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    private static final String SNAPSHOT_SUFFIX = ".gz";
+
+    private final Path directory;
+    private final long intervalMs;
+    private final int retention;
+    private final Map<String, PersistenceScheduler.Dataset> datasets = new LinkedHashMap<>();
+    private final Timer timer;
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "text-backup");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * @param intervalMs time between snapshots; zero or less only snapshots when {@link #snapshotNow()} is called
+     */
+    public TextBackupScheduler(Path directory, long intervalMs, int retention) {
+        this.directory = directory;
+        this.intervalMs = intervalMs;
+        this.retention = Math.max(1, retention);
+        this.timer = new Timer((int) Math.min(Integer.MAX_VALUE, Math.max(1, intervalMs)), event -> snapshotNow());
+    }
+
+    public void register(String name, PersistenceScheduler.Dataset dataset) {
+        datasets.put(name, dataset);
+    }
+
+    /**
+     * Starts the periodic snapshots; the first one is taken after one interval.
+     */
+    public void start() {
+        if (intervalMs > 0) {
+            timer.start();
+        }
+    }
+
+    /**
+     * Captures every dataset now and writes the snapshots in the background.
+     */
+    public Future<?> snapshotNow() {
+        Map<String, PersistenceScheduler.Render> renders = new LinkedHashMap<>();
+        for (Map.Entry<String, PersistenceScheduler.Dataset> dataset : datasets.entrySet()) {
+            renders.put(dataset.getKey(), dataset.getValue().capture());
+        }
+        LocalDateTime takenAt = LocalDateTime.now();
+        return writer.submit(() -> {
+            for (Map.Entry<String, PersistenceScheduler.Render> render : renders.entrySet()) {
+                try {
+                    for (Map.Entry<String, byte[]> file : render.getValue().files().entrySet()) {
+                        writeSnapshot(file.getKey(), file.getValue(), takenAt);
+                    }
+                } catch (IOException | RuntimeException e) {
+                    LOGGER.log(Level.WARNING, "Failed writing text backup for " + render.getKey(), e);
+                }
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Takes a last snapshot and waits for it, then stops the timer and the background thread.
+     */
+    public void shutdown() throws IOException {
+        timer.stop();
+        if (writer.isShutdown()) {
+            return;
+        }
+        Future<?> last = snapshotNow();
+        writer.shutdown();
+        try {
+            last.get(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for text backup");
+        } catch (ExecutionException | TimeoutException e) {
+            throw new IOException("Text backup did not finish", e);
+        }
+    }
+
+    private void writeSnapshot(String fileName, byte[] content, LocalDateTime takenAt) throws IOException {
+        Files.createDirectories(directory);
+        String prefix = baseName(fileName) + "-";
+        String suffix = extension(fileName) + SNAPSHOT_SUFFIX;
+        Path target = directory.resolve(prefix + STAMP_FORMAT.format(takenAt) + suffix);
+        Path temp = directory.resolve(target.getFileName() + ".tmp");
+        try (GZIPOutputStream out = new GZIPOutputStream(new FileOutputStream(temp.toFile()))) {
+            out.write(content);
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        prune(prefix, suffix);
+    }
+
+    /**
+     * Deletes all but the newest {@code retention} snapshots; the fixed-width stamp sorts by name.
+     */
+    private void prune(String prefix, String suffix) throws IOException {
+        List<Path> snapshots = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, prefix + "*" + suffix)) {
+            for (Path file : files) {
+                snapshots.add(file);
+            }
+        }
+        if (snapshots.size() <= retention) {
+            return;
+        }
+        Collections.sort(snapshots);
+        for (Path old : snapshots.subList(0, snapshots.size() - retention)) {
+            Files.deleteIfExists(old);
+        }
+    }
+
+    private static String baseName(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        return dot > 0 ? fileName.substring(0, dot) : fileName;
+    }
+
+    private static String extension(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        return dot > 0 ? fileName.substring(dot) : "";
+    }
+}
@@ -112,3 +112,302 @@ create table if not exists expiration (
     unit_quantity int not null check (unit_quantity > 0),
     expiration_date date not null
 );
+
+
+-- Single round-trip procedures used by the app through /rest/v1/rpc/<name>.
+-- Stock is always adjusted relative to the stored value so concurrent
+-- terminals never overwrite each other's decrements.
+
+create or replace function app_ensure_user(p_username varchar)
+returns bigint
+language plpgsql
+as $$
+declare
+    v_user_id bigint;
+begin
+    select user_id into v_user_id from "user" where username = p_username;
+    if v_user_id is null then
+        insert into "user" (full_name, role, username, password, is_active)
+        values (p_username, 'staff', p_username, '__supabase_auth__', true)
+        on conflict (username) do update set username = excluded.username
+        returning user_id into v_user_id;
+    end if;
+    return v_user_id;
+end;
+$$;
+
+create or replace function app_ensure_category(p_category_name varchar)
+returns bigint
+language plpgsql
+as $$
+declare
+    v_name varchar(150) := coalesce(nullif(trim(p_category_name), ''), 'Other');
+    v_category_id bigint;
+begin
+    select category_id into v_category_id from category where category_name = v_name;
+    if v_category_id is null then
+        insert into category (category_name, description)
+        values (v_name, 'Auto-generated from app')
+        on conflict (category_name) do update set category_name = excluded.category_name
+        returning category_id into v_category_id;
+    end if;
+    return v_category_id;
+end;
+$$;
+
+-- Inserts the product only when it is missing; an existing product keeps its
+-- category, unit and active flag.
+create or replace function app_ensure_product(p_product_name varchar, p_unit varchar, p_active boolean)
+returns bigint
+language plpgsql
+as $$
+declare
+    v_category_id bigint;
+    v_product_id bigint;
+begin
+    select product_id into v_product_id from product where product_name = p_product_name;
+    if v_product_id is not null then
+        return v_product_id;
+    end if;
+
+    v_category_id := app_ensure_category(p_unit);
+    insert into product (product_name, category_id, unit, reorder_level, is_active)
+    values (p_product_name, v_category_id, coalesce(nullif(trim(p_unit), ''), 'Other'), 10, p_active)
+    on conflict (product_name) do nothing
+    returning product_id into v_product_id;
+
+    if v_product_id is null then
+        -- Inserted concurrently by another transaction.
+        select product_id into v_product_id from product where product_name = p_product_name;
+    end if;
+    return v_product_id;
+end;
+$$;
+
+-- p_lines:  [{"product_name": "...", "category": "...", "quantity": 2, "price": 120.00}, ...]
+-- p_usage:  [{"item_name": "...", "quantity": 3}, ...]
+create or replace function app_checkout_sale(p_username varchar, p_lines jsonb, p_usage jsonb)
+returns bigint
+language plpgsql
+as $$
+declare
+    v_sale_id bigint;
+    v_line jsonb;
+    v_product_id bigint;
+    v_item_id bigint;
+    v_on_hand int;
+begin
+    insert into sales (user_id) values (app_ensure_user(p_username))
+    returning sale_id into v_sale_id;
+
+    for v_line in select value from jsonb_array_elements(coalesce(p_lines, '[]'::jsonb)) loop
+        v_product_id := app_ensure_product(v_line->>'product_name', v_line->>'category', true);
+        insert into sales_details (sale_id, product_id, quantity, price)
+        values (v_sale_id, v_product_id, (v_line->>'quantity')::int, (v_line->>'price')::numeric(12,2));
+    end loop;
+
+    -- Raising on a shortfall rolls back the whole sale, like app_record_item_stock_out.
+    for v_line in select value from jsonb_array_elements(coalesce(p_usage, '[]'::jsonb)) loop
+        update item
+           set quantity_on_hand = quantity_on_hand - (v_line->>'quantity')::int
+         where item_name = v_line->>'item_name'
+           and quantity_on_hand >= (v_line->>'quantity')::int
+        returning item_id into v_item_id;
+
+        if v_item_id is null then
+            select quantity_on_hand into v_on_hand from item where item_name = v_line->>'item_name';
+            if not found then
+                raise exception 'Item not found: %', v_line->>'item_name';
+            end if;
+            raise exception 'Not enough stock for %. Available: %', v_line->>'item_name', v_on_hand;
+        end if;
+    end loop;
+
+    return v_sale_id;
+end;
+$$;
+
+create or replace function app_record_item_stock_out(
+    p_username varchar,
+    p_item_name varchar,
+    p_quantity int,
+    p_cost numeric,
+    p_reason varchar
+)
+returns bigint
+language plpgsql
+as $$
+declare
+    v_item_id bigint;
+    v_on_hand int;
+    v_stockout_id bigint;
+begin
+    update item
+       set quantity_on_hand = quantity_on_hand - p_quantity
+     where item_name = p_item_name
+       and quantity_on_hand >= p_quantity
+    returning item_id into v_item_id;
+
+    if v_item_id is null then
+        select quantity_on_hand into v_on_hand from item where item_name = p_item_name;
+        if not found then
+            raise exception 'Item not found: %', p_item_name;
+        end if;
+        raise exception 'Stock out exceeds quantity on hand. Available: %', v_on_hand;
+    end if;
+
+    insert into stock_out (user_id, reason)
+    values (app_ensure_user(p_username), coalesce(p_reason, ''))
+    returning stockout_id into v_stockout_id;
+
+    insert into stock_out_item (stockout_id, item_id, quantity, cost)
+    values (v_stockout_id, v_item_id, p_quantity, p_cost);
+
+    return v_stockout_id;
+end;
+$$;
+
+-- Write-once ledger for operations replayed from a terminal's offline outbox.
+-- op_id is generated on the terminal when the change is made, so a replay
+-- after a lost response returns the original result instead of applying twice.
+create table if not exists client_operation (
+    op_id varchar(64) primary key,
+    op_type varchar(50) not null,
+    result_id bigint,
+    applied_at timestamptz not null default now()
+);
+
+-- The quantity is absolute, so an outbox replay passes p_op_id; a replay of an
+-- edit that already landed must not write its old quantity back over later sales.
+drop function if exists app_upsert_inventory_item(varchar, varchar, int, numeric, boolean);
+
+create or replace function app_upsert_inventory_item(
+    p_item_name varchar,
+    p_unit_type varchar,
+    p_quantity int,
+    p_unit_cost numeric,
+    p_link_product boolean,
+    p_op_id varchar default null
+)
+returns bigint
+language plpgsql
+as $$
+declare
+    v_item_id bigint;
+    v_product_id bigint;
+begin
+    if p_op_id is not null then
+        select result_id into v_item_id from client_operation where op_id = p_op_id;
+        if found then
+            return v_item_id;
+        end if;
+    end if;
+
+    perform app_ensure_category(p_unit_type);
+
+    insert into item (item_name, unit_type, quantity_on_hand, unit_cost)
+    values (p_item_name, p_unit_type, p_quantity, p_unit_cost)
+    on conflict (item_name) do update
+        set unit_type = excluded.unit_type,
+            quantity_on_hand = excluded.quantity_on_hand,
+            unit_cost = excluded.unit_cost
+    returning item_id into v_item_id;
+
+    if p_link_product then
+        v_product_id := app_ensure_product(p_item_name, p_unit_type, true);
+        -- An earlier unlink deactivated it; app_ensure_product leaves existing products as they are.
+        update product set is_active = true where product_id = v_product_id and not is_active;
+        delete from ingredients where product_id = v_product_id and item_id = v_item_id;
+        insert into ingredients (product_id, item_id, unit_type, quantity_needed)
+        values (v_product_id, v_item_id, p_unit_type, 1);
+    else
+        select product_id into v_product_id from product where product_name = p_item_name;
+        if v_product_id is not null then
+            delete from ingredients where product_id = v_product_id and item_id = v_item_id;
+            update product set is_active = false where product_id = v_product_id;
+        end if;
+    end if;
+
+    if p_op_id is not null then
+        insert into client_operation (op_id, op_type, result_id)
+        values (p_op_id, 'upsert_inventory_item', v_item_id);
+    end if;
+    return v_item_id;
+end;
+$$;
+
+create or replace function app_checkout_sale_once(
+    p_op_id varchar,
+    p_username varchar,
+    p_lines jsonb,
+    p_usage jsonb
+)
+returns bigint
+language plpgsql
+as $$
+declare
+    v_sale_id bigint;
+begin
+    select result_id into v_sale_id from client_operation where op_id = p_op_id;
+    if found then
+        return v_sale_id;
+    end if;
+
+    v_sale_id := app_checkout_sale(p_username, p_lines, p_usage);
+    insert into client_operation (op_id, op_type, result_id)
+    values (p_op_id, 'checkout_sale', v_sale_id);
+    return v_sale_id;
+end;
+$$;
+
+-- Renames when the original row still exists, otherwise behaves like an upsert
+-- of the new name. A replay with the same p_op_id returns the first result
+-- without touching the row again.
+drop function if exists app_update_inventory_item(varchar, varchar, varchar, int, numeric, boolean);
+
+create or replace function app_update_inventory_item(
+    p_original_name varchar,
+    p_item_name varchar,
+    p_unit_type varchar,
+    p_quantity int,
+    p_unit_cost numeric,
+    p_link_product boolean,
+    p_op_id varchar default null
+)
+returns bigint
+language plpgsql
+as $$
+declare
+    v_item_id bigint;
+    v_product_id bigint;
+begin
+    if p_op_id is not null then
+        select result_id into v_item_id from client_operation where op_id = p_op_id;
+        if found then
+            return v_item_id;
+        end if;
+    end if;
+
+    if p_original_name <> p_item_name
+       and not exists (select 1 from item where item_name = p_item_name) then
+        update item set item_name = p_item_name where item_name = p_original_name;
+    end if;
+
+    if p_original_name <> p_item_name then
+        select product_id into v_product_id from product where product_name = p_original_name;
+        if v_product_id is not null then
+            delete from ingredients
+             where product_id = v_product_id
+               and item_id in (select item_id from item where item_name = p_item_name);
+            update product set is_active = false where product_id = v_product_id;
+        end if;
+    end if;
+
+    v_item_id := app_upsert_inventory_item(p_item_name, p_unit_type, p_quantity, p_unit_cost, p_link_product);
+    if p_op_id is not null then
+        insert into client_operation (op_id, op_type, result_id)
+        values (p_op_id, 'update_inventory_item', v_item_id);
+    end if;
+    return v_item_id;
+end;
+$$;